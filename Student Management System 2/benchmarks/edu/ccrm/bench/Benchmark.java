@@ -0,0 +1,47 @@
+package edu.ccrm.bench;
+
+/**
+ * One benchmark: untimed setup, then an operation the runner calls repeatedly and times
+ * Mirrors the JMH lifecycle (trial setup, per-iteration setup, the measured method) so
+ * benchmarks can move to JMH unchanged in substance.
+ */
+public abstract class Benchmark {
+    private final String name;
+
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Called once before warmup.
+     */
+    public void setUp() throws Exception {
+    }
+
+    /**
+     * Called before every warmup and measurement iteration, outside the timed region.
+     */
+    public void setUpIteration() throws Exception {
+    }
+
+    /**
+     * The measured operation. The result is consumed by the runner, so the work cannot be
+     * optimized away.
+     */
+    public abstract Object run(long invocation) throws Exception;
+
+    /**
+     * Upper bound on operations per iteration, for benchmarks whose state only allows so
+     * many (e.g. a fixed pool of enrollments to make). Unbounded by default.
+     */
+    public long maxOperationsPerIteration() {
+        return Long.MAX_VALUE;
+    }
+
+    public void tearDown() throws Exception {
+    }
+}
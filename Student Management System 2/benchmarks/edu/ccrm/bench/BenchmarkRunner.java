@@ -0,0 +1,209 @@
+package edu.ccrm.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Command-line benchmark runner
+ * For each benchmark: setUp, warmup iterations, then measured iterations. An iteration calls
+ * the operation in growing batches until the iteration time is used up, reading the clock
+ * once per batch so fast operations are not dominated by timer overhead. Reports the mean
+ * time per operation and its standard deviation across measured iterations.
+ *
+ * Options: --filter REGEX, --warmup N, --iterations N, --time MILLIS, --seed N, --large
+ * (adds the 1M-row CSV benchmarks), --csv FILE (also write results as CSV), --list.
+ */
+public class BenchmarkRunner {
+    private static final long MAX_BATCH_NANOS = 1_000_000L;
+
+    private int warmupIterations = 5;
+    private int measurementIterations = 10;
+    private long iterationNanos = 1_000_000_000L;
+    // Every result feeds this, so the JIT cannot discard the measured work
+    private volatile int sink;
+
+    /**
+     * Result of one benchmark
+     */
+    static class Result {
+        final String name;
+        final double meanNanos;
+        final double stdevNanos;
+        final long operations;
+
+        Result(String name, double meanNanos, double stdevNanos, long operations) {
+            this.name = name;
+            this.meanNanos = meanNanos;
+            this.stdevNanos = stdevNanos;
+            this.operations = operations;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        Pattern filter = null;
+        long seed = SyntheticData.DEFAULT_SEED;
+        boolean large = false;
+        boolean list = false;
+        Path csv = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter":
+                    filter = Pattern.compile(args[++i]);
+                    break;
+                case "--warmup":
+                    runner.warmupIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    runner.measurementIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--time":
+                    runner.iterationNanos = Long.parseLong(args[++i]) * 1_000_000L;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--large":
+                    large = true;
+                    break;
+                case "--csv":
+                    csv = Paths.get(args[++i]);
+                    break;
+                case "--list":
+                    list = true;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        Path workDirectory = Files.createTempDirectory("ccrm-bench");
+        try {
+            List<Benchmark> benchmarks = new ArrayList<>();
+            for (Benchmark benchmark : new Benchmarks(new SyntheticData(seed), workDirectory).all(large)) {
+                if (filter == null || filter.matcher(benchmark.getName()).find()) {
+                    benchmarks.add(benchmark);
+                }
+            }
+            if (list) {
+                benchmarks.forEach(benchmark -> System.out.println(benchmark.getName()));
+                return;
+            }
+
+            System.out.printf("%d benchmarks, %d warmup + %d measured iterations of %d ms, seed %d%n",
+                              benchmarks.size(), runner.warmupIterations, runner.measurementIterations,
+                              runner.iterationNanos / 1_000_000L, seed);
+            List<Result> results = new ArrayList<>();
+            for (Benchmark benchmark : benchmarks) {
+                Result result = runner.run(benchmark);
+                results.add(result);
+                System.out.println(format(result));
+            }
+            if (csv != null) {
+                writeCsv(csv, results);
+            }
+        } finally {
+            deleteRecursively(workDirectory);
+        }
+    }
+
+    Result run(Benchmark benchmark) throws Exception {
+        benchmark.setUp();
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                benchmark.setUpIteration();
+                iteration(benchmark);
+            }
+            System.gc();
+            double[] nanosPerOperation = new double[measurementIterations];
+            long operations = 0;
+            for (int i = 0; i < measurementIterations; i++) {
+                benchmark.setUpIteration();
+                long[] measured = iteration(benchmark);
+                nanosPerOperation[i] = (double) measured[1] / measured[0];
+                operations += measured[0];
+            }
+            return summarize(benchmark.getName(), nanosPerOperation, operations);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    // Returns {operations, elapsed nanos}
+    private long[] iteration(Benchmark benchmark) throws Exception {
+        long limit = benchmark.maxOperationsPerIteration();
+        long batch = 1;
+        long operations = 0;
+        long elapsed = 0;
+        int local = 0;
+        while (elapsed < iterationNanos && operations < limit) {
+            long count = Math.min(batch, limit - operations);
+            long start = System.nanoTime();
+            for (long i = 0; i < count; i++) {
+                Object result = benchmark.run(operations + i);
+                local += result == null ? 0 : System.identityHashCode(result);
+            }
+            long took = System.nanoTime() - start;
+            operations += count;
+            elapsed += took;
+            if (took < MAX_BATCH_NANOS) {
+                batch *= 2;
+            }
+        }
+        sink += local;
+        return new long[] {operations, elapsed};
+    }
+
+    private static Result summarize(String name, double[] samples, long operations) {
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= Math.max(1, samples.length);
+        double variance = 0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        double stdev = samples.length > 1 ? Math.sqrt(variance / (samples.length - 1)) : 0;
+        return new Result(name, mean, stdev, operations);
+    }
+
+    static String format(Result result) {
+        return String.format(Locale.ROOT, "%-60s %16s ns/op  +- %-12s %12s ops/s",
+                             result.name, grouped(result.meanNanos), grouped(result.stdevNanos),
+                             grouped(1e9 / result.meanNanos));
+    }
+
+    private static String grouped(double value) {
+        return value >= 100 ? String.format(Locale.ROOT, "%,.0f", value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.println("Benchmark,NanosPerOp,StdevNanos,Operations");
+            for (Result result : results) {
+                writer.printf(Locale.ROOT, "\"%s\",%.1f,%.1f,%d%n",
+                              result.name, result.meanNanos, result.stdevNanos, result.operations);
+            }
+        }
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.service.EnrollmentStorage;
+import edu.ccrm.service.OffHeapEnrollmentStore;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.ReportService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The benchmark suite: StudentService enrollment, grading, course search and text search, CSV
+ * import and export through ImportExportService, and every report ReportGenerator shows
+ */
+class Benchmarks {
+    static final int[] ENROLLMENT_HISTORY_SIZES = {0, 100, 1_000};
+    static final int SEARCH_COURSES = 10_000;
+    static final int SEARCH_STUDENTS = 200_000;
+    static final int SEARCH_LIMIT = 20;
+    static final int GRADING_STUDENTS = 10_000;
+    static final int REPORT_STUDENTS = 100_000;
+    static final int REPORT_COURSES = 2_000;
+    static final int ENROLLMENTS_PER_STUDENT = 6;
+
+    private final SyntheticData data;
+    private final Path workDirectory;
+    private StudentService reportData;
+    private final List<OffHeapEnrollmentStore> stores = new ArrayList<>();
+
+    Benchmarks(SyntheticData data, Path workDirectory) {
+        this.data = data;
+        this.workDirectory = workDirectory;
+    }
+
+    List<Benchmark> all(boolean large) {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (EnrollmentStorage storage : EnrollmentStorage.values()) {
+            for (int history : ENROLLMENT_HISTORY_SIZES) {
+                benchmarks.add(enrollStudent(history, storage));
+            }
+            benchmarks.add(recordGrade(storage));
+        }
+        benchmarks.addAll(courseSearch());
+        benchmarks.addAll(textSearch());
+        benchmarks.addAll(csv(10_000));
+        if (large) {
+            benchmarks.addAll(csv(1_000_000));
+        }
+        benchmarks.addAll(reports());
+        return benchmarks;
+    }
+
+    // An empty service with the given storage; OFF_HEAP gets a fresh store in the work directory
+    private StudentService newService(EnrollmentStorage storage) throws IOException {
+        if (storage != EnrollmentStorage.OFF_HEAP) {
+            return new StudentService(Integer.MAX_VALUE, storage);
+        }
+        OffHeapEnrollmentStore store = OffHeapEnrollmentStore.open(Files.createTempDirectory(workDirectory, "store"));
+        stores.add(store);
+        StudentService service = new StudentService(Integer.MAX_VALUE, store);
+        service.finishStartupRecovery();
+        return service;
+    }
+
+    private void closeStores() throws IOException {
+        for (OffHeapEnrollmentStore store : stores) {
+            store.close();
+        }
+        stores.clear();
+    }
+
+    // Benchmarks on the default storage keep their original names
+    private static String storageSuffix(EnrollmentStorage storage) {
+        return storage == EnrollmentStorage.OBJECTS ? "" : ",storage=" + storage;
+    }
+
+    /**
+     * Enrolls students who each carry the given number of past (dropped) enrollments. Each
+     * iteration starts from the same state: the courses enrolled in by the previous iteration
+     * are dropped again before it, outside the timed region.
+     */
+    Benchmark enrollStudent(int history, EnrollmentStorage storage) {
+        return new Benchmark("enrollStudent[history=" + history + storageSuffix(storage) + "]") {
+            static final int STUDENTS = 1_024;
+            static final int TARGET_COURSES = 16;
+            StudentService service;
+            String[] studentIds;
+            String[] targetCodes;
+
+            @Override
+            public void setUp() throws Exception {
+                int historyCourses = Math.max(1, Math.min(history, 50));
+                service = data.populate(newService(storage), 0, historyCourses + TARGET_COURSES, 0, 0);
+                studentIds = new String[STUDENTS];
+                for (int s = 0; s < STUDENTS; s++) {
+                    Student student = data.student(s);
+                    service.addStudent(student);
+                    studentIds[s] = student.getId();
+                    for (int h = 0; h < history; h++) {
+                        String code = SyntheticData.courseCode(h % historyCourses);
+                        service.enrollStudent(student.getId(), code);
+                        service.unenrollStudent(student.getId(), code);
+                    }
+                }
+                targetCodes = new String[TARGET_COURSES];
+                for (int c = 0; c < TARGET_COURSES; c++) {
+                    targetCodes[c] = SyntheticData.courseCode(historyCourses + c);
+                }
+            }
+
+            @Override
+            public void setUpIteration() {
+                for (String studentId : studentIds) {
+                    for (String code : targetCodes) {
+                        if (service.isEnrolled(studentId, code)) {
+                            service.unenrollStudent(studentId, code);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                String studentId = studentIds[(int) (invocation % STUDENTS)];
+                service.enrollStudent(studentId, targetCodes[(int) (invocation / STUDENTS)]);
+                return studentId;
+            }
+
+            @Override
+            public long maxOperationsPerIteration() {
+                return (long) STUDENTS * TARGET_COURSES;
+            }
+
+            @Override
+            public void tearDown() throws Exception {
+                service = null;
+                closeStores();
+            }
+        };
+    }
+
+    /**
+     * Records a grade on an active enrollment, which also recomputes the student's GPA.
+     */
+    Benchmark recordGrade(EnrollmentStorage storage) {
+        return new Benchmark("recordGrade+updateStudentGPA[students=" + GRADING_STUDENTS
+                             + storageSuffix(storage) + "]") {
+            StudentService service;
+            String[] studentIds;
+            String[] courseCodes;
+
+            @Override
+            public void setUp() throws Exception {
+                service = data.populate(newService(storage), GRADING_STUDENTS, 500, ENROLLMENTS_PER_STUDENT, 0.5);
+                List<String> students = new ArrayList<>();
+                List<String> courses = new ArrayList<>();
+                for (Student student : service.getStudentsView()) {
+                    student.forEachEnrolledCourse(code -> {
+                        students.add(student.getId());
+                        courses.add(code);
+                    });
+                }
+                studentIds = students.toArray(new String[0]);
+                courseCodes = courses.toArray(new String[0]);
+            }
+
+            @Override
+            public Object run(long invocation) {
+                int i = (int) (invocation % studentIds.length);
+                service.recordGrade(studentIds[i], courseCodes[i], 35 + invocation % 66);
+                return studentIds[i];
+            }
+
+            @Override
+            public void tearDown() throws Exception {
+                service = null;
+                closeStores();
+            }
+        };
+    }
+
+    List<Benchmark> courseSearch() {
+        StudentService[] service = new StudentService[1];
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(search("searchCoursesByDepartment", service,
+                i -> service[0].searchCoursesByDepartment(SyntheticData.DEPARTMENTS[(int) (i % SyntheticData.DEPARTMENTS.length)])));
+        benchmarks.add(search("scanCoursesByDepartment", service,
+                i -> service[0].scanCoursesByDepartment(SyntheticData.DEPARTMENTS[(int) (i % SyntheticData.DEPARTMENTS.length)])));
+        benchmarks.add(search("searchCoursesByInstructor", service,
+                i -> service[0].searchCoursesByInstructor("INST" + i % 200)));
+        benchmarks.add(search("scanCoursesByInstructor", service,
+                i -> service[0].scanCoursesByInstructor("INST" + i % 200)));
+        benchmarks.add(search("searchCoursesBySemester", service,
+                i -> service[0].searchCoursesBySemester(Semester.values()[(int) (i % Semester.values().length)])));
+        benchmarks.add(search("scanCoursesBySemester", service,
+                i -> service[0].scanCoursesBySemester(Semester.values()[(int) (i % Semester.values().length)])));
+        benchmarks.add(search("searchCourses", service,
+                i -> service[0].searchCourses("course " + i % SEARCH_COURSES, SEARCH_LIMIT)));
+        return benchmarks;
+    }
+
+    /**
+     * Ranked student search over names, emails and IDs, against a linear scan with
+     * Student.matches, and fuzzy lookup of names with two letters swapped and of emails with
+     * a letter missing. Synthetic names repeat, so a name query matches hundreds of students.
+     */
+    List<Benchmark> textSearch() {
+        StudentService[] service = new StudentService[1];
+        String[] names = new String[64];
+        String[] prefixes = new String[names.length];
+        String[] typos = new String[names.length * 2];
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(studentSearch("searchStudents", "name", service, names, prefixes, typos,
+                i -> service[0].searchStudents(names[(int) (i % names.length)], SEARCH_LIMIT)));
+        benchmarks.add(studentSearch("searchStudents", "prefix", service, names, prefixes, typos,
+                i -> service[0].searchStudents(prefixes[(int) (i % prefixes.length)], SEARCH_LIMIT)));
+        benchmarks.add(studentSearch("searchStudents", "id", service, names, prefixes, typos,
+                i -> service[0].searchStudents(SyntheticData.studentId((int) (i * 7919 % SEARCH_STUDENTS)), SEARCH_LIMIT)));
+        benchmarks.add(studentSearch("scanStudents", "name", service, names, prefixes, typos,
+                i -> service[0].scanStudents(names[(int) (i % names.length)])));
+        benchmarks.add(studentSearch("fuzzySearchStudents", "name", service, names, prefixes, typos,
+                i -> service[0].fuzzySearchStudents(typos[(int) (i % names.length)], SEARCH_LIMIT)));
+        benchmarks.add(studentSearch("fuzzySearchStudents", "email", service, names, prefixes, typos,
+                i -> service[0].fuzzySearchStudents(typos[names.length + (int) (i % names.length)], SEARCH_LIMIT)));
+        return benchmarks;
+    }
+
+    // The text search benchmarks share one population; queries come from its students' names
+    // and emails, typos holding the misspelled names and then the misspelled emails
+    private Benchmark studentSearch(String name, String query, StudentService[] service, String[] names,
+                                    String[] prefixes, String[] typos, Operation operation) {
+        return new Benchmark(name + "[query=" + query + ",students=" + SEARCH_STUDENTS + "]") {
+            @Override
+            public void setUp() {
+                if (service[0] == null) {
+                    service[0] = data.populate(SEARCH_STUDENTS, 0, 0, 0);
+                    for (int q = 0; q < names.length; q++) {
+                        Student student = data.student(q * 3001);
+                        String[] words = student.getFullName().split(" ");
+                        names[q] = words[0] + " " + words[1];
+                        prefixes[q] = words[0].substring(0, 2) + " " + words[1].substring(0, 2);
+                        typos[q] = words[0].charAt(0) + words[0].substring(2, 3) + words[0].charAt(1)
+                                + words[0].substring(3) + " " + words[1];
+                        typos[names.length + q] = student.getEmail().replaceFirst("@univ", "@unv");
+                    }
+                }
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                return operation.run(invocation);
+            }
+        };
+    }
+
+    private interface Operation {
+        Object run(long invocation) throws Exception;
+    }
+
+    // The search benchmarks share one catalog of courses
+    private Benchmark search(String name, StudentService[] service, Operation operation) {
+        return new Benchmark(name + "[courses=" + SEARCH_COURSES + "]") {
+            @Override
+            public void setUp() {
+                if (service[0] == null) {
+                    service[0] = data.populate(0, SEARCH_COURSES, 0, 0);
+                }
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                return operation.run(invocation);
+            }
+        };
+    }
+
+    /**
+     * Student and course CSV round trips. Each import loads into a fresh service.
+     */
+    List<Benchmark> csv(int rows) {
+        Path studentsCsv = workDirectory.resolve("students-" + rows + ".csv");
+        Path coursesCsv = workDirectory.resolve("courses-" + rows + ".csv");
+        String size = "[rows=" + rows + "]";
+        List<Benchmark> benchmarks = new ArrayList<>();
+
+        benchmarks.add(new Benchmark("importStudentsFromCSV" + size) {
+            @Override
+            public void setUp() throws Exception {
+                writeIfMissing(studentsCsv, rows, true);
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                StudentService service = new StudentService(Integer.MAX_VALUE);
+                new ImportExportService(service).importStudentsFromCSV(studentsCsv);
+                return service;
+            }
+        });
+        benchmarks.add(new Benchmark("importStudentsFromCSVParallel" + size) {
+            @Override
+            public void setUp() throws Exception {
+                writeIfMissing(studentsCsv, rows, true);
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                StudentService service = new StudentService(Integer.MAX_VALUE);
+                new ImportExportService(service).importStudentsFromCSVParallel(studentsCsv);
+                return service;
+            }
+        });
+        benchmarks.add(new Benchmark("importCoursesFromCSV" + size) {
+            @Override
+            public void setUp() throws Exception {
+                writeIfMissing(coursesCsv, rows, false);
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                StudentService service = new StudentService(Integer.MAX_VALUE);
+                new ImportExportService(service).importCoursesFromCSV(coursesCsv);
+                return service;
+            }
+        });
+        benchmarks.add(new Benchmark("importCoursesFromCSVParallel" + size) {
+            @Override
+            public void setUp() throws Exception {
+                writeIfMissing(coursesCsv, rows, false);
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                StudentService service = new StudentService(Integer.MAX_VALUE);
+                new ImportExportService(service).importCoursesFromCSVParallel(coursesCsv);
+                return service;
+            }
+        });
+        benchmarks.add(export("exportStudentsToCSV" + size, rows, false, false));
+        benchmarks.add(export("exportStudentsToCSV.gz" + size, rows, false, true));
+        benchmarks.add(export("exportCoursesToCSV" + size, rows, true, false));
+        return benchmarks;
+    }
+
+    private Benchmark export(String name, int rows, boolean courses, boolean gzip) {
+        Path target = workDirectory.resolve(name.replaceAll("[^A-Za-z0-9.]", "_"));
+        return new Benchmark(name) {
+            ImportExportService service;
+
+            @Override
+            public void setUp() {
+                service = new ImportExportService(courses ? data.populate(0, rows, 0, 0) : data.populate(rows, 0, 0, 0));
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                if (courses) {
+                    service.exportCoursesToCSV(target, gzip);
+                } else {
+                    service.exportStudentsToCSV(target, gzip);
+                }
+                return target;
+            }
+
+            @Override
+            public void tearDown() throws Exception {
+                service = null;
+                Files.deleteIfExists(target);
+            }
+        };
+    }
+
+    private void writeIfMissing(Path file, int rows, boolean students) throws Exception {
+        if (Files.exists(file)) {
+            return;
+        }
+        if (students) {
+            data.writeStudentsCsv(file, rows);
+        } else {
+            data.writeCoursesCsv(file, rows);
+        }
+    }
+
+    /**
+     * The reports behind ReportGenerator's menu, over one shared population.
+     */
+    List<Benchmark> reports() {
+        ReportService[] reports = new ReportService[1];
+        String department = SyntheticData.DEPARTMENTS[0];
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(report("topStudents", "", reports, i -> reports[0].topStudents(ReportService.DEFAULT_TOP_STUDENTS, null, null)));
+        benchmarks.add(report("topStudents", "department", reports,
+                i -> reports[0].topStudents(ReportService.DEFAULT_TOP_STUDENTS, department, null)));
+        benchmarks.add(report("gpaDistribution", "", reports, i -> reports[0].gpaDistribution(null, null)));
+        benchmarks.add(report("gpaDistribution", "department,semester", reports,
+                i -> reports[0].gpaDistribution(department, Semester.FALL)));
+        benchmarks.add(report("gpaPercentiles", "", reports, i -> reports[0].gpaPercentiles(null)));
+        benchmarks.add(report("gpaPercentiles", "department", reports, i -> reports[0].gpaPercentiles(department)));
+        benchmarks.add(report("enrollmentStats", "", reports, i -> reports[0].enrollmentStats()));
+        benchmarks.add(report("departmentStats", "", reports, i -> reports[0].departmentStats()));
+        benchmarks.add(report("reportPack", "", reports, i -> reports[0].reportPack(ReportService.DEFAULT_TOP_STUDENTS)));
+        return benchmarks;
+    }
+
+    private Benchmark report(String name, String cohort, ReportService[] reports, Operation operation) {
+        String parameters = cohort.isEmpty() ? "" : cohort + ",";
+        return new Benchmark("report." + name + "[" + parameters + "students=" + REPORT_STUDENTS + "]") {
+            @Override
+            public void setUp() {
+                if (reports[0] == null) {
+                    if (reportData == null) {
+                        reportData = data.populate(REPORT_STUDENTS, REPORT_COURSES, ENROLLMENTS_PER_STUDENT, 0.8);
+                    }
+                    reports[0] = new ReportService(reportData);
+                }
+            }
+
+            @Override
+            public Object run(long invocation) throws Exception {
+                return operation.run(invocation);
+            }
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.service.EnrollmentStorage;
+import edu.ccrm.service.OffHeapEnrollmentStore;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Heap cost of enrollments under each EnrollmentStorage
+ * For each storage and workload, builds the same synthetic students and courses with and
+ * without enrollments and reports the retained heap difference per enrollment, measured
+ * after repeated full collections. Rosters and seat counters are included, as they grow
+ * with enrollments too. For OFF_HEAP the record and index bytes written to the store are
+ * reported separately.
+ *
+ * Options: --students N (default 100000), --seed N.
+ */
+public class MemoryFootprint {
+    private static final int COURSES = 2_000;
+    private static final int ACTIVE_PER_STUDENT = 6;
+    private static final int DROPPED_PER_STUDENT = 30;
+
+    public static void main(String[] args) throws Exception {
+        int students = 100_000;
+        long seed = SyntheticData.DEFAULT_SEED;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students":
+                    students = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        SyntheticData data = new SyntheticData(seed);
+        System.out.printf("%d students, %d courses, seed %d%n", students, COURSES, seed);
+        System.out.printf("%-10s %-40s %12s %14s %14s%n", "Storage", "Workload", "Enrollments",
+                          "Heap/enroll", "Off-heap/enroll");
+        Path storeDirectory = Files.createTempDirectory("ccrm-footprint");
+        try {
+            for (EnrollmentStorage storage : EnrollmentStorage.values()) {
+                measure(data, storage, storeDirectory, students, 0, "current (" + ACTIVE_PER_STUDENT + " active)");
+                measure(data, storage, storeDirectory, students, DROPPED_PER_STUDENT,
+                        "history (" + DROPPED_PER_STUDENT + " dropped + " + ACTIVE_PER_STUDENT + " active)");
+            }
+        } finally {
+            BenchmarkRunner.deleteRecursively(storeDirectory);
+        }
+    }
+
+    private static void measure(SyntheticData data, EnrollmentStorage storage, Path storeDirectory, int students,
+                                int dropped, String workload) throws IOException {
+        OffHeapEnrollmentStore emptyStore = openStore(storage, storeDirectory);
+        StudentService empty = data.populate(newService(storage, emptyStore), students, COURSES, 0, 0);
+        long baseline = usedHeap();
+        long storeBaseline = emptyStore == null ? 0 : emptyStore.getDataBytes();
+        Reference.reachabilityFence(empty);
+        empty = null;
+        close(emptyStore);
+
+        OffHeapEnrollmentStore store = openStore(storage, storeDirectory);
+        StudentService service = data.populate(newService(storage, store), students, COURSES, ACTIVE_PER_STUDENT, 0.8);
+        long enrollments = (long) students * ACTIVE_PER_STUDENT + addHistory(service, students, dropped);
+        long used = usedHeap();
+        Reference.reachabilityFence(service);
+        System.out.printf("%-10s %-40s %,12d %14.1f %14s%n", storage, workload, enrollments,
+                          (double) (used - baseline) / enrollments,
+                          store == null ? "-" : String.format("%.1f",
+                                  (double) (store.getDataBytes() - storeBaseline) / enrollments));
+        close(store);
+    }
+
+    private static OffHeapEnrollmentStore openStore(EnrollmentStorage storage, Path storeDirectory)
+            throws IOException {
+        return storage == EnrollmentStorage.OFF_HEAP
+                ? OffHeapEnrollmentStore.open(Files.createTempDirectory(storeDirectory, "store"))
+                : null;
+    }
+
+    private static StudentService newService(EnrollmentStorage storage, OffHeapEnrollmentStore store) {
+        if (store == null) {
+            return new StudentService(Integer.MAX_VALUE, storage);
+        }
+        StudentService service = new StudentService(Integer.MAX_VALUE, store);
+        service.finishStartupRecovery();
+        return service;
+    }
+
+    private static void close(OffHeapEnrollmentStore store) throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    // Enrolls in and drops courses the student is not actively enrolled in, graded like real history
+    private static long addHistory(StudentService service, int students, int dropped) {
+        Random random = new Random(students);
+        long added = 0;
+        for (int s = 0; s < students; s++) {
+            String studentId = SyntheticData.studentId(s);
+            for (int d = 0; d < dropped; d++) {
+                String courseCode = SyntheticData.courseCode(random.nextInt(COURSES));
+                if (service.isEnrolled(studentId, courseCode)) {
+                    continue;
+                }
+                try {
+                    service.enrollStudent(studentId, courseCode);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Synthetic enrollment rejected: " + e.getMessage(), e);
+                }
+                service.recordGrade(studentId, courseCode, 35 + random.nextInt(66));
+                service.unenrollStudent(studentId, courseCode);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Collect until the figure settles, so garbage from building the data is not counted
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
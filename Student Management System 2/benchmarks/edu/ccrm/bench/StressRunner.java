@@ -0,0 +1,247 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentStorage;
+import edu.ccrm.service.OffHeapEnrollmentStore;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency stress run of enrollment, for the invariants the service can check itself
+ * For each storage, several threads enroll, unenroll, batch-enroll, grade and join and leave
+ * waitlists on a small set of courses with few seats and a real credit limit, while one of
+ * them keeps replacing courses under new instructors, departments and semesters. GPA
+ * verification is on throughout, so every incremental GPA update is checked against a full
+ * recompute. After each round the threads stop and the run checks verifyEnrollmentIndexes,
+ * verifyCourseIndexes, that no course is over capacity and that no waitlist holds a student
+ * twice. Exits with status 1 on the first failure.
+ *
+ * Options: --threads N (default: available processors), --rounds N (default 5),
+ * --seconds N per round (default 2), --students N (default 2000), --courses N (default 50),
+ * --storage NAME (default: all), --seed N.
+ */
+public class StressRunner {
+    private static final int MAX_CREDITS = 12;
+    private static final int MAX_CAPACITY = 20;
+
+    private final int threads;
+    private final int students;
+    private final int courses;
+    private final long seed;
+    private final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    private final LongAdder operations = new LongAdder();
+
+    StressRunner(int threads, int students, int courses, long seed) {
+        this.threads = threads;
+        this.students = students;
+        this.courses = courses;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int rounds = 5;
+        long roundMillis = 2_000L;
+        int students = 2_000;
+        int courses = 50;
+        long seed = SyntheticData.DEFAULT_SEED;
+        List<EnrollmentStorage> storages = new ArrayList<>(List.of(EnrollmentStorage.values()));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    roundMillis = Long.parseLong(args[++i]) * 1_000L;
+                    break;
+                case "--students":
+                    students = Integer.parseInt(args[++i]);
+                    break;
+                case "--courses":
+                    courses = Integer.parseInt(args[++i]);
+                    break;
+                case "--storage":
+                    storages = List.of(EnrollmentStorage.valueOf(args[++i]));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.printf("%d threads, %d rounds of %d ms, %d students, %d courses, seed %d%n",
+                          threads, rounds, roundMillis, students, courses, seed);
+        Path storeDirectory = Files.createTempDirectory("ccrm-stress");
+        boolean passed = true;
+        try {
+            for (EnrollmentStorage storage : storages) {
+                passed &= new StressRunner(threads, students, courses, seed).run(storage, storeDirectory,
+                                                                                   rounds, roundMillis);
+            }
+        } finally {
+            BenchmarkRunner.deleteRecursively(storeDirectory);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    boolean run(EnrollmentStorage storage, Path storeDirectory, int rounds, long roundMillis)
+            throws IOException, InterruptedException {
+        OffHeapEnrollmentStore store = storage == EnrollmentStorage.OFF_HEAP
+                ? OffHeapEnrollmentStore.open(Files.createTempDirectory(storeDirectory, "store"))
+                : null;
+        try {
+            StudentService service = newService(storage, store);
+            service.setGpaVerification(true);
+            SyntheticData data = new SyntheticData(seed);
+            for (int c = 0; c < courses; c++) {
+                service.addCourse(course(c, new Random(seed + c)));
+            }
+            for (int s = 0; s < students; s++) {
+                service.addStudent(data.student(s));
+            }
+
+            for (int round = 1; round <= rounds; round++) {
+                operations.reset();
+                runRound(service, round, roundMillis);
+                String failure = check(service);
+                System.out.printf("%-10s round %d: %,d operations, %s%n", storage, round, operations.sum(),
+                                  failure == null ? "ok" : "FAILED: " + failure);
+                if (failure != null) {
+                    for (Throwable error : errors) {
+                        error.printStackTrace();
+                    }
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+
+    private static StudentService newService(EnrollmentStorage storage, OffHeapEnrollmentStore store) {
+        if (store == null) {
+            return new StudentService(MAX_CREDITS, storage);
+        }
+        StudentService service = new StudentService(MAX_CREDITS, store);
+        service.finishStartupRecovery();
+        return service;
+    }
+
+    // Same code and credits each time, so replacing a course never changes what enrollments hold
+    private Course course(int i, Random random) {
+        return new Course.Builder()
+                .code(SyntheticData.courseCode(i))
+                .title("Course " + i)
+                .credits(2 + i % 3)
+                .instructorId("INST" + random.nextInt(10))
+                .semester(Semester.values()[random.nextInt(Semester.values().length)])
+                .department(SyntheticData.DEPARTMENTS[random.nextInt(SyntheticData.DEPARTMENTS.length)])
+                .capacity(1 + i % MAX_CAPACITY)
+                .build();
+    }
+
+    private void runRound(StudentService service, int round, long roundMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + roundMillis * 1_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(seed * 31 + round * 1_000L + t);
+            boolean replacesCourses = t == 0;
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        operate(service, random, replacesCourses);
+                        operations.increment();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }, "stress-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void operate(StudentService service, Random random, boolean replacesCourses) {
+        String studentId = SyntheticData.studentId(random.nextInt(students));
+        int course = random.nextInt(courses);
+        String courseCode = SyntheticData.courseCode(course);
+        int choice = random.nextInt(100);
+        if (choice < 35) {
+            try {
+                service.enrollStudent(studentId, courseCode);
+            } catch (CourseFullException e) {
+                service.joinWaitlist(studentId, courseCode);
+            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                // Expected rejections
+            }
+        } else if (choice < 60) {
+            service.unenrollStudent(studentId, courseCode);
+        } else if (choice < 70) {
+            service.joinWaitlist(studentId, courseCode);
+        } else if (choice < 75) {
+            service.leaveWaitlist(studentId, courseCode);
+        } else if (choice < 90) {
+            service.recordGrade(studentId, courseCode, random.nextInt(101));
+        } else if (choice < 97 || !replacesCourses) {
+            List<EnrollmentRequest> requests = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                requests.add(new EnrollmentRequest(studentId, SyntheticData.courseCode(random.nextInt(courses))));
+            }
+            service.enrollStudents(requests);
+        } else {
+            service.addCourse(course(course, random));
+        }
+    }
+
+    // Returns null when every invariant holds, otherwise what failed
+    private String check(StudentService service) {
+        if (!errors.isEmpty()) {
+            return errors.size() + " operations threw, first: " + errors.peek();
+        }
+        if (!service.verifyEnrollmentIndexes()) {
+            return "verifyEnrollmentIndexes";
+        }
+        if (!service.verifyCourseIndexes()) {
+            return "verifyCourseIndexes";
+        }
+        for (Course course : service.getAllCourses()) {
+            if (service.getSeatsTaken(course.getCode()) > course.getCapacity()) {
+                return "course " + course.getCode() + " over capacity";
+            }
+            List<String> waitlist = service.getWaitlist(course.getCode());
+            if (new HashSet<>(waitlist).size() != waitlist.size()) {
+                return "duplicate waitlist entry for " + course.getCode();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,159 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.CsvWriter;
+import edu.ccrm.service.EnrollmentStorage;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Reproducible synthetic data for benchmarks
+ * Everything is derived from the seed and the row index, so the same parameters always give
+ * the same students, courses, enrollments and marks, without needing real data.
+ */
+public class SyntheticData {
+    public static final long DEFAULT_SEED = 42L;
+
+    static final String[] DEPARTMENTS = {
+        "Computer Science", "Mathematics", "Physics", "Chemistry",
+        "Biology", "Economics", "History", "English"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Asha", "Ben", "Chen", "Dara", "Elif", "Farid", "Grace", "Hugo",
+        "Ines", "Jon", "Kofi", "Lena", "Mateo", "Nia", "Omar", "Priya"
+    };
+    private static final String[] LAST_NAMES = {
+        "Khan", "Smith", "Li", "Garcia", "Okafor", "Novak", "Silva", "Ito",
+        "Brown", "Haddad", "Kim", "Rossi", "Nair", "Jensen", "Moreau", "Diaz"
+    };
+    private static final int INSTRUCTORS = 200;
+
+    private final long seed;
+
+    public SyntheticData(long seed) {
+        this.seed = seed;
+    }
+
+    public static String studentId(int i) {
+        return String.format("S%07d", i);
+    }
+
+    public static String courseCode(int i) {
+        return String.format("C%05d", i);
+    }
+
+    public Course course(int i) {
+        Random random = new Random(seed * 31 + i);
+        return new Course.Builder()
+                .code(courseCode(i))
+                .title("Course " + i + " " + DEPARTMENTS[i % DEPARTMENTS.length])
+                .credits(2 + random.nextInt(3))
+                .instructorId("INST" + (i % INSTRUCTORS))
+                .semester(Semester.values()[(i / DEPARTMENTS.length) % Semester.values().length])
+                .department(DEPARTMENTS[i % DEPARTMENTS.length])
+                .build();
+    }
+
+    public Student student(int i) {
+        Random random = new Random(seed * 17 + i);
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        Student student = new Student(studentId(i), String.valueOf(2020_000_000L + i), first + " " + last,
+                                      first.toLowerCase() + "." + last.toLowerCase() + i + "@university.edu");
+        student.setActive(random.nextInt(20) != 0);
+        return student;
+    }
+
+    /**
+     * A service with the given students and courses; each student is enrolled in
+     * enrollmentsPerStudent distinct random courses, and each enrollment is graded with the
+     * given probability.
+     */
+    public StudentService populate(int students, int courses, int enrollmentsPerStudent, double gradedFraction) {
+        return populate(students, courses, enrollmentsPerStudent, gradedFraction, EnrollmentStorage.OBJECTS);
+    }
+
+    public StudentService populate(int students, int courses, int enrollmentsPerStudent, double gradedFraction,
+                                   EnrollmentStorage storage) {
+        return populate(new StudentService(Integer.MAX_VALUE, storage), students, courses, enrollmentsPerStudent,
+                        gradedFraction);
+    }
+
+    /**
+     * Adds the data to an existing service, e.g. one over an off-heap store; it should allow
+     * unlimited credits.
+     */
+    public StudentService populate(StudentService service, int students, int courses, int enrollmentsPerStudent,
+                                   double gradedFraction) {
+        for (int c = 0; c < courses; c++) {
+            service.addCourse(course(c));
+        }
+        Random random = new Random(seed);
+        for (int s = 0; s < students; s++) {
+            Student student = student(s);
+            service.addStudent(student);
+            int enrolled = 0;
+            while (enrolled < Math.min(enrollmentsPerStudent, courses)) {
+                String courseCode = courseCode(random.nextInt(courses));
+                if (service.isEnrolled(student.getId(), courseCode)) {
+                    continue;
+                }
+                try {
+                    service.enrollStudent(student.getId(), courseCode);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Synthetic enrollment rejected: " + e.getMessage(), e);
+                }
+                if (random.nextDouble() < gradedFraction) {
+                    service.recordGrade(student.getId(), courseCode, 35 + random.nextInt(66));
+                }
+                enrolled++;
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Writes a students CSV in the import format.
+     */
+    public void writeStudentsCsv(Path file, int rows) throws IOException {
+        try (CsvWriter writer = CsvWriter.open(file, false)) {
+            writer.header("ID", "RegNo", "FullName", "Email", "Active", "GPA");
+            for (int i = 0; i < rows; i++) {
+                Student student = student(i);
+                writer.field(student.getId())
+                      .field(student.getRegNo())
+                      .field(student.getFullName())
+                      .field(student.getEmail())
+                      .field(student.isActive())
+                      .field(5 + (i % 500) / 100.0, 2)
+                      .endRow();
+            }
+        }
+    }
+
+    /**
+     * Writes a courses CSV in the import format.
+     */
+    public void writeCoursesCsv(Path file, int rows) throws IOException {
+        try (CsvWriter writer = CsvWriter.open(file, false)) {
+            writer.header("Code", "Title", "Credits", "InstructorId", "Semester", "Department", "Active", "Capacity");
+            for (int i = 0; i < rows; i++) {
+                Course course = course(i);
+                writer.field(course.getCode())
+                      .field(course.getTitle())
+                      .field(course.getCredits())
+                      .field(course.getInstructorId())
+                      .field(course.getSemester().name())
+                      .field(course.getDepartment())
+                      .field(course.isActive())
+                      .field(course.getCapacity())
+                      .endRow();
+            }
+        }
+    }
+}
@@ -2,10 +2,18 @@ package edu.ccrm.cli;
 
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.io.BackupSummary;
 import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.MutationJournal;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.BatchReport;
+import edu.ccrm.service.EnrollmentStorage;
+import edu.ccrm.service.OffHeapEnrollmentStore;
 import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptService;
 import edu.ccrm.util.ReportGenerator;
 
 import java.io.IOException;
@@ -21,18 +29,27 @@ import java.util.stream.Collectors;
  * Demonstrates comprehensive Java features and design patterns
  */
 public class CCRMApplication {
+    // Matches shown by the name and title searches
+    private static final int SEARCH_RESULT_LIMIT = 20;
+    private static final int CLOSEST_MATCH_LIMIT = 10;
+
     private final Scanner scanner;
     private final StudentService studentService;
     private final ImportExportService importExportService;
     private final AppConfig config;
     private final ReportGenerator reportGenerator;
+    private final TranscriptService transcriptService;
+    private MutationJournal journal;
+    private OffHeapEnrollmentStore enrollmentStore;
 
     public CCRMApplication() {
         this.scanner = new Scanner(System.in);
         this.config = AppConfig.getInstance();
-        this.studentService = new StudentService(config.getMaxCreditsPerSemester());
+        this.studentService = createStudentService();
         this.importExportService = new ImportExportService(studentService);
         this.reportGenerator = new ReportGenerator(studentService);
+        this.transcriptService = new TranscriptService(studentService);
+        Metrics.getInstance().registerMBeans();
         
         // Initialize data directories
         try {
@@ -43,6 +60,20 @@ public class CCRMApplication {
         }
     }
 
+    private StudentService createStudentService() {
+        EnrollmentStorage storage = config.getEnrollmentStorage();
+        if (storage == EnrollmentStorage.OFF_HEAP) {
+            try {
+                enrollmentStore = OffHeapEnrollmentStore.open(config.getEnrollmentStoreDirectory());
+                return new StudentService(config.getMaxCreditsPerSemester(), enrollmentStore);
+            } catch (IOException e) {
+                System.err.println("Enrollment store unavailable, keeping enrollments on the heap: " + e.getMessage());
+                storage = EnrollmentStorage.COMPACT;
+            }
+        }
+        return new StudentService(config.getMaxCreditsPerSemester(), storage);
+    }
+
     public static void main(String[] args) {
         CCRMApplication app = new CCRMApplication();
         app.run();
@@ -69,7 +100,10 @@ public class CCRMApplication {
                     case "6": backupAndReports(); break;
                     case "7": showReports(); break;
                     case "8": config.printPlatformInfo(); break;
+                    case "9": showMetrics(); break;
                     case "0": 
+                        closeJournal();
+                        closeEnrollmentStore();
                         System.out.println("Thank you for using CCRM!");
                         return;
                     default: 
@@ -94,6 +128,7 @@ public class CCRMApplication {
         System.out.println("6. Backup & Reports");
         System.out.println("7. Show Reports");
         System.out.println("8. Platform Information");
+        System.out.println("9. Performance Metrics");
         System.out.println("0. Exit");
         System.out.print("Enter your choice: ");
     }
@@ -106,6 +141,7 @@ public class CCRMApplication {
             System.out.println("3. View Student Profile");
             System.out.println("4. Update Student");
             System.out.println("5. Deactivate Student");
+            System.out.println("6. Search Students");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
             
@@ -117,6 +153,7 @@ public class CCRMApplication {
                 case "3": viewStudentProfile(); break;
                 case "4": updateStudent(); break;
                 case "5": deactivateStudent(); break;
+                case "6": searchStudents(); break;
                 case "0": return;
                 default: System.out.println("Invalid choice. Please try again.");
             }
@@ -151,17 +188,63 @@ public class CCRMApplication {
         }
     }
 
+    private void searchStudents() {
+        System.out.print("Enter name, email, ID or registration number: ");
+        String query = scanner.nextLine().trim();
+        
+        List<Student> students = studentService.searchStudents(query, SEARCH_RESULT_LIMIT);
+        if (students.isEmpty()) {
+            System.out.println("No students found matching: " + query);
+            List<Student> closest = studentService.fuzzySearchStudents(query, CLOSEST_MATCH_LIMIT);
+            if (!closest.isEmpty()) {
+                System.out.println("Did you mean:");
+                closest.forEach(s -> System.out.println(s.getDisplayInfo()));
+            }
+        } else {
+            System.out.println("\nStudents matching " + query + ":");
+            students.forEach(s -> System.out.println(s.getDisplayInfo()));
+        }
+    }
+
     private void viewStudentProfile() {
-        System.out.print("Enter Student ID: ");
-        String studentId = scanner.nextLine().trim();
+        System.out.print("Enter Student ID, name or email: ");
+        String input = scanner.nextLine().trim();
         
-        Student student = studentService.getStudent(studentId);
+        Student student = studentService.getStudent(input);
+        if (student == null) {
+            student = chooseClosestStudent(input);
+        }
         if (student != null) {
             System.out.println("\n" + student.getDisplayInfo());
             System.out.println("Enrolled Courses: " + student.getEnrolledCourses());
             System.out.println("GPA: " + String.format("%.2f", student.getGpa()));
-        } else {
+        }
+    }
+
+    // Looks the input up as a possibly misspelled name or email; null if nothing is chosen
+    private Student chooseClosestStudent(String input) {
+        List<Student> closest = studentService.fuzzySearchStudents(input, CLOSEST_MATCH_LIMIT);
+        if (closest.isEmpty()) {
             System.out.println("Student not found.");
+            return null;
+        }
+        if (closest.size() == 1) {
+            return closest.get(0);
+        }
+        System.out.println("\nClosest matches for " + input + ":");
+        for (int i = 0; i < closest.size(); i++) {
+            System.out.println((i + 1) + ". " + closest.get(i).getDisplayInfo());
+        }
+        System.out.print("Select a student (or press Enter to cancel): ");
+        String choice = scanner.nextLine().trim();
+        if (choice.isEmpty()) {
+            return null;
+        }
+        try {
+            return closest.get(Integer.parseInt(choice) - 1);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            System.out.println("Invalid choice.");
+            return null;
         }
     }
 
@@ -173,16 +256,17 @@ public class CCRMApplication {
         if (student != null) {
             System.out.print("Enter new Full Name (or press Enter to keep current): ");
             String fullName = scanner.nextLine().trim();
-            if (!fullName.isEmpty()) {
-                student.setFullName(fullName);
+            if (fullName.isEmpty()) {
+                fullName = student.getFullName();
             }
             
             System.out.print("Enter new Email (or press Enter to keep current): ");
             String email = scanner.nextLine().trim();
-            if (!email.isEmpty()) {
-                student.setEmail(email);
+            if (email.isEmpty()) {
+                email = student.getEmail();
             }
             
+            studentService.updateStudent(studentId, fullName, email, student.isActive());
             System.out.println("Student updated successfully!");
         } else {
             System.out.println("Student not found.");
@@ -195,7 +279,7 @@ public class CCRMApplication {
         
         Student student = studentService.getStudent(studentId);
         if (student != null) {
-            student.setActive(false);
+            studentService.updateStudent(studentId, student.getFullName(), student.getEmail(), false);
             System.out.println("Student deactivated successfully!");
         } else {
             System.out.println("Student not found.");
@@ -210,6 +294,7 @@ public class CCRMApplication {
             System.out.println("3. Search Courses by Instructor");
             System.out.println("4. Search Courses by Department");
             System.out.println("5. Search Courses by Semester");
+            System.out.println("6. Search Courses by Title");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
             
@@ -221,6 +306,7 @@ public class CCRMApplication {
                 case "3": searchCoursesByInstructor(); break;
                 case "4": searchCoursesByDepartment(); break;
                 case "5": searchCoursesBySemester(); break;
+                case "6": searchCoursesByTitle(); break;
                 case "0": return;
                 default: System.out.println("Invalid choice. Please try again.");
             }
@@ -250,6 +336,10 @@ public class CCRMApplication {
         System.out.print("Enter Department: ");
         String department = scanner.nextLine().trim();
         
+        System.out.print("Enter Capacity (press Enter for unlimited): ");
+        String capacityInput = scanner.nextLine().trim();
+        int capacity = capacityInput.isEmpty() ? Course.UNLIMITED_CAPACITY : Integer.parseInt(capacityInput);
+        
         Course course = new Course.Builder()
                 .code(code)
                 .title(title)
@@ -257,6 +347,7 @@ public class CCRMApplication {
                 .instructorId(instructorId)
                 .semester(semester)
                 .department(department)
+                .capacity(capacity)
                 .build();
         
         studentService.addCourse(course);
@@ -316,6 +407,24 @@ public class CCRMApplication {
         }
     }
 
+    private void searchCoursesByTitle() {
+        System.out.print("Enter title, code or department: ");
+        String query = scanner.nextLine().trim();
+        
+        List<Course> courses = studentService.searchCourses(query, SEARCH_RESULT_LIMIT);
+        if (courses.isEmpty()) {
+            System.out.println("No courses found matching: " + query);
+            List<Course> closest = studentService.fuzzySearchCourses(query, CLOSEST_MATCH_LIMIT);
+            if (!closest.isEmpty()) {
+                System.out.println("Did you mean:");
+                closest.forEach(c -> System.out.println(c.toString()));
+            }
+        } else {
+            System.out.println("\nCourses matching " + query + ":");
+            courses.forEach(c -> System.out.println(c.toString()));
+        }
+    }
+
     private void manageEnrollments() {
         while (true) {
             System.out.println("\n=== Enrollment Management ===");
@@ -351,6 +460,14 @@ public class CCRMApplication {
             System.err.println("Enrollment failed: " + e.getMessage());
         } catch (MaxCreditLimitExceededException e) {
             System.err.println("Enrollment failed: " + e.getMessage());
+        } catch (CourseFullException e) {
+            System.err.println("Enrollment failed: " + e.getMessage());
+            System.out.print("Join the waitlist for " + courseCode + "? (y/n): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                studentService.joinWaitlist(studentId, courseCode);
+                System.out.println("Added to waitlist. Position: " + 
+                        studentService.getWaitlist(courseCode).size());
+            }
         }
     }
 
@@ -388,6 +505,7 @@ public class CCRMApplication {
             System.out.println("\n=== Grade Management ===");
             System.out.println("1. Record Grade");
             System.out.println("2. View Student Transcript");
+            System.out.println("3. Export Transcripts");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
             
@@ -396,6 +514,7 @@ public class CCRMApplication {
             switch (choice) {
                 case "1": recordGrade(); break;
                 case "2": viewTranscript(); break;
+                case "3": exportTranscripts(); break;
                 case "0": return;
                 default: System.out.println("Invalid choice. Please try again.");
             }
@@ -420,10 +539,39 @@ public class CCRMApplication {
         System.out.print("Enter Student ID: ");
         String studentId = scanner.nextLine().trim();
         
-        String transcript = studentService.generateTranscript(studentId);
+        String transcript = transcriptService.getTranscript(studentId);
         System.out.println("\n" + transcript);
     }
 
+    private void exportTranscripts() {
+        System.out.print("Registration No prefix (blank for all active students): ");
+        String prefix = scanner.nextLine().trim();
+        List<String> studentIds = transcriptService.selectStudents(
+                s -> s.isActive() && s.getRegNo().startsWith(prefix));
+        if (studentIds.isEmpty()) {
+            System.out.println("No matching students found.");
+            return;
+        }
+
+        System.out.print("1. Single file  2. One file per student [1]: ");
+        boolean perStudent = scanner.nextLine().trim().equals("2");
+        Path directory = config.getTranscriptDirectory();
+        try {
+            long start = System.currentTimeMillis();
+            int written;
+            if (perStudent) {
+                written = transcriptService.exportTranscriptFiles(studentIds, directory);
+            } else {
+                Path file = directory.resolve("transcripts" + (prefix.isEmpty() ? "" : "_" + prefix.replaceAll("[^A-Za-z0-9._-]+", "_")) + ".txt");
+                written = transcriptService.exportTranscripts(studentIds, file);
+            }
+            System.out.println("Exported " + written + " transcripts to " + directory + 
+                             " in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            System.err.println("Transcript export failed: " + e.getMessage());
+        }
+    }
+
     private void importExportData() {
         while (true) {
             System.out.println("\n=== Import/Export Data ===");
@@ -431,6 +579,9 @@ public class CCRMApplication {
             System.out.println("2. Import Courses from CSV");
             System.out.println("3. Export Students to CSV");
             System.out.println("4. Export Courses to CSV");
+            System.out.println("5. Import Grades from CSV");
+            System.out.println("6. Save Snapshot");
+            System.out.println("7. Load Snapshot");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
             
@@ -441,13 +592,13 @@ public class CCRMApplication {
                     case "1": 
                         System.out.print("Enter CSV file path: ");
                         Path studentFile = Paths.get(scanner.nextLine().trim());
-                        importExportService.importStudentsFromCSV(studentFile);
+                        importExportService.importStudentsFromCSVParallel(studentFile);
                         System.out.println("Students imported successfully!");
                         break;
                     case "2": 
                         System.out.print("Enter CSV file path: ");
                         Path courseFile = Paths.get(scanner.nextLine().trim());
-                        importExportService.importCoursesFromCSV(courseFile);
+                        importExportService.importCoursesFromCSVParallel(courseFile);
                         System.out.println("Courses imported successfully!");
                         break;
                     case "3": 
@@ -460,6 +611,20 @@ public class CCRMApplication {
                         importExportService.exportCoursesToCSV(exportCourseFile);
                         System.out.println("Courses exported to: " + exportCourseFile);
                         break;
+                    case "5": 
+                        System.out.print("Enter CSV file path (StudentId,CourseCode,Marks): ");
+                        Path gradeFile = Paths.get(scanner.nextLine().trim());
+                        BatchReport report = importExportService.importGradesFromCSV(gradeFile);
+                        printBatchReport(report);
+                        break;
+                    case "6": 
+                        importExportService.saveSnapshot(config.getSnapshotFile());
+                        System.out.println("Snapshot saved to: " + config.getSnapshotFile());
+                        break;
+                    case "7": 
+                        importExportService.loadSnapshot(config.getSnapshotFile());
+                        System.out.println("Snapshot loaded from: " + config.getSnapshotFile());
+                        break;
                     case "0": return;
                     default: System.out.println("Invalid choice. Please try again.");
                 }
@@ -469,12 +634,29 @@ public class CCRMApplication {
         }
     }
 
+    private void printBatchReport(BatchReport report) {
+        System.out.println("Rows processed: " + report.getTotalRows() + 
+                ", applied: " + report.getAppliedRows() + 
+                ", rejected: " + report.getRejectedRows());
+        report.getErrors().stream()
+                .limit(20)
+                .forEach(error -> System.out.println("  " + error));
+        if (report.getRejectedRows() > 20) {
+            System.out.println("  ... " + (report.getRejectedRows() - 20) + " more");
+        }
+    }
+
     private void backupAndReports() {
         while (true) {
             System.out.println("\n=== Backup & Reports ===");
             System.out.println("1. Create Backup");
             System.out.println("2. Show Backup Directory Size");
             System.out.println("3. List Backup Files by Depth");
+            System.out.println("4. Create Incremental Backup");
+            System.out.println("5. List Backups");
+            System.out.println("6. Restore Backup");
+            System.out.println("7. Prune Old Backups");
+            System.out.println("8. Rebuild Backup Catalog");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
             
@@ -494,6 +676,33 @@ public class CCRMApplication {
                         int depth = Integer.parseInt(scanner.nextLine().trim());
                         importExportService.listBackupFilesByDepth(config.getBackupDirectory(), depth);
                         break;
+                    case "4": 
+                        BackupSummary summary = importExportService.createIncrementalBackup(config.getBackupDirectory());
+                        System.out.println("Backup created at: " + summary.getDirectory());
+                        System.out.println("Chunks: " + summary.getChunkCount() + " (" + summary.getNewChunks() + 
+                                         " new, " + summary.getReusedChunks() + " reused), " + 
+                                         summary.getBytesWritten() + " bytes written");
+                        break;
+                    case "5": 
+                        importExportService.listBackups(config.getBackupDirectory()).forEach(System.out::println);
+                        break;
+                    case "6": 
+                        System.out.print("Enter backup name: ");
+                        String backupName = scanner.nextLine().trim();
+                        importExportService.restoreBackup(config.getBackupDirectory(), backupName);
+                        System.out.println("Backup restored: " + backupName);
+                        break;
+                    case "7": 
+                        System.out.print("Number of recent backups to keep [" + config.getBackupRetention() + "]: ");
+                        String keep = scanner.nextLine().trim();
+                        int keepLatest = keep.isEmpty() ? config.getBackupRetention() : Integer.parseInt(keep);
+                        int pruned = importExportService.pruneBackups(config.getBackupDirectory(), keepLatest);
+                        System.out.println("Deleted " + pruned + " old backups.");
+                        break;
+                    case "8": 
+                        importExportService.rebuildBackupCatalog(config.getBackupDirectory());
+                        System.out.println("Backup catalog rebuilt.");
+                        break;
                     case "0": return;
                     default: System.out.println("Invalid choice. Please try again.");
                 }
@@ -504,23 +713,92 @@ public class CCRMApplication {
     }
 
     private void showReports() {
-        reportGenerator.showReports();
+        reportGenerator.showReports(scanner);
     }
 
-    private void loadInitialData() {
-        // Load sample data if files exist
-        try {
-            Path studentFile = config.getDataDirectory().resolve("students.csv");
-            Path courseFile = config.getDataDirectory().resolve("courses.csv");
+    private void showMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        while (true) {
+            System.out.println("\n=== Performance Metrics ===");
+            System.out.println("1. Show Metrics");
+            System.out.println("2. Reset Metrics");
+            System.out.println("3. " + (metrics.isEnabled() ? "Disable" : "Enable") + " Metrics");
+            System.out.println("0. Back to Main Menu");
+            System.out.print("Enter your choice: ");
             
-            if (Files.exists(studentFile)) {
-                importExportService.importStudentsFromCSV(studentFile);
+            String choice = scanner.nextLine().trim();
+            
+            switch (choice) {
+                case "1":
+                    System.out.println();
+                    System.out.print(metrics.dump());
+                    break;
+                case "2":
+                    metrics.reset();
+                    System.out.println("Metrics reset.");
+                    break;
+                case "3":
+                    metrics.setEnabled(!metrics.isEnabled());
+                    System.out.println("Metrics " + (metrics.isEnabled() ? "enabled." : "disabled."));
+                    break;
+                case "0": return;
+                default: System.out.println("Invalid choice. Please try again.");
             }
-            if (Files.exists(courseFile)) {
-                importExportService.importCoursesFromCSV(courseFile);
+        }
+    }
+
+    private void loadInitialData() {
+        // Load the snapshot if there is one, otherwise sample data if files exist
+        long snapshotSequence = 0;
+        try {
+            if (Files.exists(config.getSnapshotFile())) {
+                snapshotSequence = importExportService.loadSnapshot(config.getSnapshotFile());
+            } else {
+                Path studentFile = config.getDataDirectory().resolve("students.csv");
+                Path courseFile = config.getDataDirectory().resolve("courses.csv");
+                
+                if (Files.exists(studentFile)) {
+                    importExportService.importStudentsFromCSV(studentFile);
+                }
+                if (Files.exists(courseFile)) {
+                    importExportService.importCoursesFromCSV(courseFile);
+                }
             }
         } catch (IOException e) {
             System.out.println("No initial data files found. Starting with empty system.");
         }
+
+        // Replay changes made since the snapshot, then journal every new change
+        try {
+            journal = MutationJournal.open(config.getJournalFile(), config.getJournalDurability(), 
+                                           studentService, snapshotSequence);
+            importExportService.setJournal(journal);
+            if (journal.getReplayedRecords() > 0) {
+                System.out.println("Recovered " + journal.getReplayedRecords() + " changes from the journal.");
+            }
+        } catch (IOException e) {
+            System.err.println("Journal unavailable, changes will not survive a restart: " + e.getMessage());
+        }
+        studentService.finishStartupRecovery();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeEnrollmentStore() {
+        if (enrollmentStore != null) {
+            try {
+                enrollmentStore.close();
+            } catch (IOException e) {
+                System.err.println("Error closing enrollment store: " + e.getMessage());
+            }
+        }
     }
 }
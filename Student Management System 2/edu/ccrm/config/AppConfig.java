@@ -1,7 +1,12 @@
 package edu.ccrm.config;
 
+import edu.ccrm.io.MutationJournal;
+import edu.ccrm.service.EnrollmentStorage;
+
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
 
 /**
  * Singleton configuration class
@@ -12,11 +17,31 @@ public class AppConfig {
     private final Path dataDirectory;
     private final Path backupDirectory;
     private final int maxCreditsPerSemester;
+    private MutationJournal.Durability journalDurability;
+    private int backupRetention;
+    private EnrollmentStorage enrollmentStorage;
 
     private AppConfig() {
         this.dataDirectory = Paths.get("data");
         this.backupDirectory = Paths.get("backups");
         this.maxCreditsPerSemester = 18;
+        this.journalDurability = MutationJournal.Durability.GROUP_COMMIT;
+        this.backupRetention = 30;
+        this.enrollmentStorage = parseEnrollmentStorage(System.getProperty("ccrm.enrollmentStorage"));
+    }
+
+    // A misspelled ccrm.enrollmentStorage falls back to OBJECTS rather than stopping startup
+    private static EnrollmentStorage parseEnrollmentStorage(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return EnrollmentStorage.OBJECTS;
+        }
+        try {
+            return EnrollmentStorage.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown ccrm.enrollmentStorage '" + value + "', expected one of "
+                               + Arrays.toString(EnrollmentStorage.values()) + "; using OBJECTS");
+            return EnrollmentStorage.OBJECTS;
+        }
     }
 
     public static synchronized AppConfig getInstance() {
@@ -30,10 +55,64 @@ public class AppConfig {
         return dataDirectory;
     }
 
+    public Path getSnapshotFile() {
+        return dataDirectory.resolve("ccrm.snapshot");
+    }
+
+    /**
+     * Directory of the off-heap enrollment store, used with EnrollmentStorage.OFF_HEAP.
+     */
+    public Path getEnrollmentStoreDirectory() {
+        return dataDirectory.resolve("enrollments");
+    }
+
+    public Path getJournalFile() {
+        return dataDirectory.resolve("ccrm.journal");
+    }
+
+    public MutationJournal.Durability getJournalDurability() {
+        return journalDurability;
+    }
+
+    public void setJournalDurability(MutationJournal.Durability journalDurability) {
+        this.journalDurability = journalDurability;
+    }
+
     public Path getBackupDirectory() {
         return backupDirectory;
     }
 
+    public Path getReportDirectory() {
+        return dataDirectory.resolve("reports");
+    }
+
+    public Path getTranscriptDirectory() {
+        return dataDirectory.resolve("transcripts");
+    }
+
+    /**
+     * Default number of recent backups kept when pruning.
+     */
+    public int getBackupRetention() {
+        return backupRetention;
+    }
+
+    public void setBackupRetention(int backupRetention) {
+        this.backupRetention = backupRetention;
+    }
+
+    /**
+     * How enrollments are held in memory; read when the service is created. Defaults to the
+     * ccrm.enrollmentStorage system property, else OBJECTS.
+     */
+    public EnrollmentStorage getEnrollmentStorage() {
+        return enrollmentStorage;
+    }
+
+    public void setEnrollmentStorage(EnrollmentStorage enrollmentStorage) {
+        this.enrollmentStorage = enrollmentStorage;
+    }
+
     public int getMaxCreditsPerSemester() {
         return maxCreditsPerSemester;
     }
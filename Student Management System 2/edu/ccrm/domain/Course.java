@@ -6,7 +6,9 @@ import java.util.Objects;
  * Course class with Builder pattern
  * Demonstrates Builder design pattern
  */
-public class Course {
+public class Course implements Searchable<String> {
+    public static final int UNLIMITED_CAPACITY = 0;
+
     private String code;
     private String title;
     private int credits;
@@ -14,6 +16,7 @@ public class Course {
     private Semester semester;
     private String department;
     private boolean active;
+    private int capacity;
 
     private Course(Builder builder) {
         this.code = builder.code;
@@ -23,6 +26,7 @@ public class Course {
         this.semester = builder.semester;
         this.department = builder.department;
         this.active = builder.active;
+        this.capacity = builder.capacity;
     }
 
     // Builder pattern
@@ -34,6 +38,7 @@ public class Course {
         private Semester semester;
         private String department;
         private boolean active = true;
+        private int capacity = UNLIMITED_CAPACITY;
 
         public Builder code(String code) {
             this.code = code;
@@ -70,6 +75,11 @@ public class Course {
             return this;
         }
 
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
         public Course build() {
             Objects.requireNonNull(code, "Course code is required");
             Objects.requireNonNull(title, "Course title is required");
@@ -79,6 +89,9 @@ public class Course {
             if (credits <= 0) {
                 throw new IllegalArgumentException("Credits must be positive");
             }
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Capacity cannot be negative");
+            }
             
             return new Course(this);
         }
@@ -106,6 +119,22 @@ public class Course {
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public boolean hasCapacityLimit() { return capacity != UNLIMITED_CAPACITY; }
+
+    // Searchable: code, title and department
+    @Override
+    public String getSearchableContent() {
+        return code + " " + title + " " + department;
+    }
+
+    @Override
+    public boolean matches(String searchTerm) {
+        return SearchText.matches(getSearchableContent(), searchTerm);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -122,8 +151,8 @@ public class Course {
     @Override
     public String toString() {
         return String.format("Course{code='%s', title='%s', credits=%d, " +
-                           "instructorId='%s', semester=%s, department='%s', active=%s}", 
-                           code, title, credits, instructorId, semester, department, active);
+                           "instructorId='%s', semester=%s, department='%s', active=%s, capacity=%d}", 
+                           code, title, credits, instructorId, semester, department, active, capacity);
     }
 }
 
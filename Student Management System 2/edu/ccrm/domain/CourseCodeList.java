@@ -0,0 +1,63 @@
+package edu.ccrm.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A student's own list of enrolled course codes, in enrollment order
+ */
+class CourseCodeList implements EnrolledCourses {
+    private final List<String> courseCodes;
+
+    CourseCodeList() {
+        this.courseCodes = new ArrayList<>();
+    }
+
+    CourseCodeList(List<String> courseCodes) {
+        this.courseCodes = new ArrayList<>(courseCodes);
+    }
+
+    @Override
+    public synchronized void add(String courseCode) {
+        if (!courseCodes.contains(courseCode)) {
+            courseCodes.add(courseCode);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String courseCode) {
+        courseCodes.remove(courseCode);
+    }
+
+    @Override
+    public synchronized boolean contains(String courseCode) {
+        return courseCodes.contains(courseCode);
+    }
+
+    @Override
+    public synchronized boolean containsAny(Set<String> codes) {
+        for (String courseCode : courseCodes) {
+            if (codes.contains(courseCode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized int size() {
+        return courseCodes.size();
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<String> action) {
+        courseCodes.forEach(action);
+    }
+
+    @Override
+    public synchronized List<String> toList() {
+        return new ArrayList<>(courseCodes);
+    }
+}
@@ -0,0 +1,26 @@
+package edu.ccrm.domain;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The course codes a student is enrolled in
+ * Students keep their own list by default; a service can substitute a view over its own
+ * enrollment storage, in which case add and remove are left to that storage.
+ */
+public interface EnrolledCourses {
+    void add(String courseCode);
+
+    void remove(String courseCode);
+
+    boolean contains(String courseCode);
+
+    boolean containsAny(Set<String> courseCodes);
+
+    int size();
+
+    void forEach(Consumer<String> action);
+
+    List<String> toList();
+}
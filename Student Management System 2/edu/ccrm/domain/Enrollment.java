@@ -23,6 +23,16 @@ public class Enrollment {
         this.active = true;
     }
 
+    public Enrollment(String studentId, String courseCode, LocalDate enrollmentDate,
+                      Grade grade, double marks, boolean active) {
+        this.studentId = Objects.requireNonNull(studentId, "Student ID cannot be null");
+        this.courseCode = Objects.requireNonNull(courseCode, "Course code cannot be null");
+        this.enrollmentDate = Objects.requireNonNull(enrollmentDate, "Enrollment date cannot be null");
+        this.grade = grade;
+        this.marks = marks;
+        this.active = active;
+    }
+
     public void recordGrade(double marks) {
         this.marks = marks;
         this.grade = Grade.fromPercentage(marks);
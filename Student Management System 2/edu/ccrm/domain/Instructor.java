@@ -21,6 +21,11 @@ public class Instructor extends Person {
         return String.format("Instructor: %s (%s) - %s, %s", fullName, employeeId, email, department);
     }
 
+    @Override
+    public String getSearchableContent() {
+        return super.getSearchableContent() + " " + employeeId + " " + department;
+    }
+
     // Getters and setters
     public String getDepartment() { return department; }
     public void setDepartment(String department) { this.department = department; }
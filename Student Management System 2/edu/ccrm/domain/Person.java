@@ -7,18 +7,19 @@ import java.util.Objects;
  * Abstract base class for Person entities
  * Demonstrates abstraction and inheritance
  */
-public abstract class Person {
+public abstract class Person implements Searchable<String> {
     protected String id;
     protected String fullName;
     protected String email;
-    protected LocalDate dateCreated;
+    // Kept as an epoch day rather than a LocalDate, which would be one more object per person
+    protected int dateCreatedEpochDay;
     protected boolean active;
 
     public Person(String id, String fullName, String email) {
         this.id = Objects.requireNonNull(id, "ID cannot be null");
         this.fullName = Objects.requireNonNull(fullName, "Full name cannot be null");
         this.email = Objects.requireNonNull(email, "Email cannot be null");
-        this.dateCreated = LocalDate.now();
+        this.dateCreatedEpochDay = (int) LocalDate.now().toEpochDay();
         this.active = true;
     }
 
@@ -35,12 +36,23 @@ public abstract class Person {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
-    public LocalDate getDateCreated() { return dateCreated; }
-    public void setDateCreated(LocalDate dateCreated) { this.dateCreated = dateCreated; }
+    public LocalDate getDateCreated() { return LocalDate.ofEpochDay(dateCreatedEpochDay); }
+    public void setDateCreated(LocalDate dateCreated) { this.dateCreatedEpochDay = (int) dateCreated.toEpochDay(); }
 
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 
+    // Searchable: ID, name and email; subclasses add their own identifiers
+    @Override
+    public String getSearchableContent() {
+        return id + " " + fullName + " " + email;
+    }
+
+    @Override
+    public boolean matches(String searchTerm) {
+        return SearchText.matches(getSearchableContent(), searchTerm);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -0,0 +1,57 @@
+package edu.ccrm.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word splitting shared by the Searchable implementations and the search indexes
+ * Words are runs of letters and digits, lower-cased, so an email address or a course title
+ * splits into the parts people type: "john.smith@uni.edu" gives john, smith, uni, edu.
+ */
+public final class SearchText {
+    private SearchText() {
+    }
+
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * True if every word of the query starts some word of the text; false for an empty query.
+     */
+    public static boolean matches(String text, String query) {
+        List<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return false;
+        }
+        List<String> words = words(text);
+        for (String term : terms) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
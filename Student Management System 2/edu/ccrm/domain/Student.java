@@ -1,9 +1,9 @@
 package edu.ccrm.domain;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Student class extending Person
@@ -11,13 +11,13 @@ import java.util.Objects;
  */
 public class Student extends Person {
     private String regNo;
-    private List<String> enrolledCourses;
-    private double gpa;
+    private volatile EnrolledCourses enrolledCourses;
+    private volatile double gpa;
 
     public Student(String id, String regNo, String fullName, String email) {
         super(id, fullName, email);
         this.regNo = Objects.requireNonNull(regNo, "Registration number cannot be null");
-        this.enrolledCourses = new ArrayList<>();
+        this.enrolledCourses = new CourseCodeList();
         this.gpa = 0.0;
     }
 
@@ -26,10 +26,13 @@ public class Student extends Person {
         return String.format("Student: %s (%s) - %s", fullName, regNo, email);
     }
 
+    @Override
+    public String getSearchableContent() {
+        return super.getSearchableContent() + " " + regNo;
+    }
+
     public void enrollInCourse(String courseCode) {
-        if (!enrolledCourses.contains(courseCode)) {
-            enrolledCourses.add(courseCode);
-        }
+        enrolledCourses.add(courseCode);
     }
 
     public void unenrollFromCourse(String courseCode) {
@@ -40,13 +43,37 @@ public class Student extends Person {
         return enrolledCourses.contains(courseCode);
     }
 
+    /**
+     * Visits the enrolled course codes without copying them; runs under the lock of the
+     * enrolled-course store.
+     */
+    public void forEachEnrolledCourse(Consumer<String> action) {
+        enrolledCourses.forEach(action);
+    }
+
+    public int getEnrolledCourseCount() {
+        return enrolledCourses.size();
+    }
+
+    public boolean isEnrolledInAny(Set<String> courseCodes) {
+        return enrolledCourses.containsAny(courseCodes);
+    }
+
+    /**
+     * Makes the student read its enrolled courses from another store, e.g. the service's
+     * compact enrollment storage, instead of keeping its own list.
+     */
+    public void setEnrolledCourseStore(EnrolledCourses store) {
+        this.enrolledCourses = Objects.requireNonNull(store, "Enrolled course store cannot be null");
+    }
+
     // Getters and setters
     public String getRegNo() { return regNo; }
     public void setRegNo(String regNo) { this.regNo = regNo; }
 
-    public List<String> getEnrolledCourses() { return new ArrayList<>(enrolledCourses); }
+    public List<String> getEnrolledCourses() { return enrolledCourses.toList(); }
     public void setEnrolledCourses(List<String> enrolledCourses) { 
-        this.enrolledCourses = new ArrayList<>(enrolledCourses); 
+        this.enrolledCourses = new CourseCodeList(enrolledCourses); 
     }
 
     public double getGpa() { return gpa; }
@@ -0,0 +1,15 @@
+package edu.ccrm.exception;
+
+/**
+ * Custom exception for enrolling into a course with no free seats
+ * Demonstrates custom exception creation
+ */
+public class CourseFullException extends Exception {
+    public CourseFullException(String message) {
+        super(message);
+    }
+
+    public CourseFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
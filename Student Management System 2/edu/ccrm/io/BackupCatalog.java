@@ -0,0 +1,313 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of every file under the backup directory, with its size
+ * Answers size and listing queries without walking the tree. Files are grouped by owner: a
+ * backup's name for files inside that backup, CHUNK_OWNER for the shared chunk store.
+ * createBackup appends to the catalog; when it is missing it is rebuilt with a parallel walk.
+ *
+ * File: header line, then one "owner TAB relative/path TAB size" line per file.
+ */
+class BackupCatalog {
+    static final String CATALOG_FILE = "catalog.tsv";
+    static final String CHUNK_OWNER = IncrementalBackup.CHUNK_DIRECTORY;
+    static final String BACKUP_PREFIX = "backup_";
+    private static final String HEADER = "CCRM-CATALOG 1";
+
+    /**
+     * One cataloged file
+     */
+    static class Entry {
+        final String relativePath;
+        final long size;
+
+        Entry(String relativePath, long size) {
+            this.relativePath = relativePath;
+            this.size = size;
+        }
+
+        int depth() {
+            int depth = 1;
+            for (int i = 0; i < relativePath.length(); i++) {
+                if (relativePath.charAt(i) == '/') {
+                    depth++;
+                }
+            }
+            return depth;
+        }
+    }
+
+    private final Path backupDir;
+    // Backup names sort by timestamp, so iteration runs oldest first
+    private final Map<String, List<Entry>> entriesByOwner;
+    private FileTime loadedModified;
+    private long loadedSize;
+
+    private BackupCatalog(Path backupDir) {
+        this.backupDir = backupDir;
+        this.entriesByOwner = new TreeMap<>();
+    }
+
+    Path getBackupDir() {
+        return backupDir;
+    }
+
+    /**
+     * Reads the catalog, rebuilding it first if it is missing or unreadable.
+     */
+    static BackupCatalog load(Path backupDir) throws IOException {
+        Path file = backupDir.resolve(CATALOG_FILE);
+        if (Files.exists(file)) {
+            BackupCatalog catalog = new BackupCatalog(backupDir);
+            if (catalog.read(file)) {
+                return catalog;
+            }
+        }
+        return rebuild(backupDir);
+    }
+
+    /**
+     * True while the catalog file is the one this instance was read from or last wrote.
+     */
+    boolean isCurrent() throws IOException {
+        Path file = backupDir.resolve(CATALOG_FILE);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.lastModifiedTime().equals(loadedModified) && attributes.size() == loadedSize;
+    }
+
+    /**
+     * Walks the backup directory and writes a fresh catalog. Each backup and each chunk
+     * fan-out directory is walked as a separate task on the common fork-join pool; sizes come
+     * from the walk's own file attributes, so there is no extra stat per file.
+     */
+    static BackupCatalog rebuild(Path backupDir) throws IOException {
+        BackupCatalog catalog = new BackupCatalog(backupDir);
+        if (!Files.exists(backupDir)) {
+            return catalog;
+        }
+
+        List<Path> roots = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(backupDir)) {
+            entries.filter(path -> !path.getFileName().toString().equals(CATALOG_FILE))
+                   .forEach(roots::add);
+        }
+        Path chunkDir = backupDir.resolve(CHUNK_OWNER);
+        if (roots.remove(chunkDir) && Files.isDirectory(chunkDir)) {
+            try (Stream<Path> fanOut = Files.list(chunkDir)) {
+                fanOut.forEach(roots::add);
+            }
+        }
+
+        Map<String, List<Entry>> walked;
+        try {
+            walked = roots.parallelStream()
+                    .flatMap(root -> walk(backupDir, root).stream())
+                    .collect(Collectors.groupingByConcurrent(found -> found[0],
+                            Collectors.mapping(found -> new Entry(found[1], Long.parseLong(found[2])),
+                                               Collectors.toList())));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Map.Entry<String, List<Entry>> owner : walked.entrySet()) {
+            List<Entry> files = new ArrayList<>(owner.getValue());
+            files.sort((a, b) -> a.relativePath.compareTo(b.relativePath));
+            catalog.entriesByOwner.put(owner.getKey(), files);
+        }
+        catalog.save();
+        return catalog;
+    }
+
+    // Returns {owner, relative path, size} for every regular file under root
+    private static List<String[]> walk(Path backupDir, Path root) {
+        List<String[]> found = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile()) {
+                        Path relative = backupDir.relativize(file);
+                        found.add(new String[] {relative.getName(0).toString(), toCatalogPath(relative),
+                                                Long.toString(attributes.size())});
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // A file deleted during the walk is simply not cataloged
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return found;
+    }
+
+    /**
+     * Records new files and appends them to the catalog file.
+     */
+    void add(String owner, Map<Path, Long> files) throws IOException {
+        List<Entry> added = new ArrayList<>();
+        for (Map.Entry<Path, Long> file : files.entrySet()) {
+            added.add(new Entry(toCatalogPath(backupDir.relativize(file.getKey())), file.getValue()));
+        }
+        entriesByOwner.computeIfAbsent(owner, k -> new ArrayList<>()).addAll(added);
+
+        Path catalogFile = backupDir.resolve(CATALOG_FILE);
+        try (BufferedWriter writer = Files.newBufferedWriter(catalogFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Entry entry : added) {
+                writeEntry(writer, owner, entry);
+            }
+        }
+        remember(catalogFile);
+    }
+
+    /**
+     * Forgets an owner's files, e.g. after the backup was deleted. Call save() afterwards.
+     */
+    List<Entry> remove(String owner) {
+        List<Entry> removed = entriesByOwner.remove(owner);
+        return removed == null ? Collections.emptyList() : removed;
+    }
+
+    void removeChunks(Set<String> relativePaths) {
+        List<Entry> chunks = entriesByOwner.get(CHUNK_OWNER);
+        if (chunks != null) {
+            chunks.removeIf(entry -> relativePaths.contains(entry.relativePath));
+        }
+    }
+
+    /**
+     * Backup names in the catalog, oldest first.
+     */
+    List<String> getBackupNames() {
+        List<String> names = new ArrayList<>();
+        for (String owner : entriesByOwner.keySet()) {
+            if (owner.startsWith(BACKUP_PREFIX)) {
+                names.add(owner);
+            }
+        }
+        return names;
+    }
+
+    List<Entry> getEntries(String owner) {
+        List<Entry> entries = entriesByOwner.get(owner);
+        return entries == null ? Collections.emptyList() : entries;
+    }
+
+    /**
+     * Total bytes under the backup directory, the catalog file itself included.
+     */
+    long getTotalSize() {
+        long total = loadedSize;
+        for (List<Entry> entries : entriesByOwner.values()) {
+            for (Entry entry : entries) {
+                total += entry.size;
+            }
+        }
+        return total;
+    }
+
+    Map<String, List<Entry>> getEntriesByOwner() {
+        return Collections.unmodifiableMap(entriesByOwner);
+    }
+
+    long getCatalogFileSize() {
+        return loadedSize;
+    }
+
+    void save() throws IOException {
+        Files.createDirectories(backupDir);
+        Path catalogFile = backupDir.resolve(CATALOG_FILE);
+        Path temp = backupDir.resolve(CATALOG_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, List<Entry>> owner : entriesByOwner.entrySet()) {
+                for (Entry entry : owner.getValue()) {
+                    writeEntry(writer, owner.getKey(), entry);
+                }
+            }
+        }
+        try {
+            Files.move(temp, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        remember(catalogFile);
+    }
+
+    private boolean read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+            return false;
+        }
+        for (int i = 1; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split("\t");
+            if (fields.length != 3) {
+                return false;
+            }
+            try {
+                entriesByOwner.computeIfAbsent(fields[0], k -> new ArrayList<>())
+                        .add(new Entry(fields[1], Long.parseLong(fields[2])));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        remember(file);
+        return true;
+    }
+
+    private void remember(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        loadedModified = attributes.lastModifiedTime();
+        loadedSize = attributes.size();
+    }
+
+    private static void writeEntry(BufferedWriter writer, String owner, Entry entry) throws IOException {
+        writer.write(owner);
+        writer.write('\t');
+        writer.write(entry.relativePath);
+        writer.write('\t');
+        writer.write(Long.toString(entry.size));
+        writer.newLine();
+    }
+
+    private static String toCatalogPath(Path relative) {
+        StringBuilder path = new StringBuilder();
+        for (Path part : relative) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(part);
+        }
+        return path.toString();
+    }
+}
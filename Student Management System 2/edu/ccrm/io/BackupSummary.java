@@ -0,0 +1,35 @@
+package edu.ccrm.io;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of an incremental backup: how many chunks it references and how many were new
+ */
+public class BackupSummary {
+    private final String name;
+    private final Path directory;
+    private final int chunkCount;
+    private final int newChunks;
+    private final long bytesWritten;
+
+    public BackupSummary(String name, Path directory, int chunkCount, int newChunks, long bytesWritten) {
+        this.name = name;
+        this.directory = directory;
+        this.chunkCount = chunkCount;
+        this.newChunks = newChunks;
+        this.bytesWritten = bytesWritten;
+    }
+
+    public String getName() { return name; }
+    public Path getDirectory() { return directory; }
+    public int getChunkCount() { return chunkCount; }
+    public int getNewChunks() { return newChunks; }
+    public int getReusedChunks() { return chunkCount - newChunks; }
+    public long getBytesWritten() { return bytesWritten; }
+
+    @Override
+    public String toString() {
+        return String.format("BackupSummary{name='%s', chunks=%d, new=%d, bytesWritten=%d}", 
+                           name, chunkCount, newChunks, bytesWritten);
+    }
+}
@@ -0,0 +1,93 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store of backup chunks
+ * Each chunk is saved gzip-compressed under the SHA-256 of its uncompressed bytes, fanned out
+ * into 256 subdirectories by the first two hex digits. A chunk that is already present is
+ * never written again, which is what makes repeated backups incremental.
+ */
+class ChunkStore {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+
+    ChunkStore(Path root) {
+        this.root = root;
+    }
+
+    static String hash(byte[] bytes, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes, 0, length);
+            byte[] hash = digest.digest();
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+
+    boolean contains(String hash) {
+        return Files.exists(pathOf(hash));
+    }
+
+    /**
+     * Stores the chunk unless it is already present. Returns the number of bytes written,
+     * 0 for a chunk that was deduplicated.
+     */
+    long put(String hash, byte[] bytes, int length) throws IOException {
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return 0;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(hash + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            out.write(bytes, 0, length);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return Files.size(target);
+    }
+
+    /**
+     * Reads a chunk back and checks it against its hash.
+     */
+    byte[] get(String hash) throws IOException {
+        Path source = pathOf(hash);
+        if (!Files.exists(source)) {
+            throw new IOException("Backup chunk missing: " + hash);
+        }
+        byte[] bytes;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(source))) {
+            bytes = in.readAllBytes();
+        }
+        if (!hash(bytes, bytes.length).equals(hash)) {
+            throw new IOException("Backup chunk is corrupt: " + hash);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,298 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming CSV reader with RFC 4180 quoting
+ * Fields of the current record live in one reusable char buffer and are only turned into
+ * Strings when asked for, so reading a record allocates nothing by itself.
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+public class CsvReader implements Closeable {
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] input;
+    private int inputPos;
+    private int inputLimit;
+
+    private char[] record;
+    private int recordLength;
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    private int fieldCount;
+
+    private int lineNumber;
+    private int recordLineNumber;
+    private Map<String, Integer> header;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+        this.input = new char[INPUT_BUFFER_SIZE];
+        this.record = new char[256];
+        this.fieldStarts = new int[16];
+        this.fieldEnds = new int[16];
+    }
+
+    /**
+     * Opens a CSV file; files ending in .gz are decompressed on the fly.
+     */
+    public static CsvReader open(Path filePath) throws IOException {
+        InputStream in = Files.newInputStream(filePath);
+        if (isGzip(filePath)) {
+            in = new GZIPInputStream(in, INPUT_BUFFER_SIZE);
+        }
+        return new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static boolean isGzip(Path filePath) {
+        return filePath.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Reads the first record as a header so columns can be looked up by name.
+     * Returns false if the input is empty.
+     */
+    public boolean readHeader() throws IOException {
+        if (!next()) {
+            return false;
+        }
+        header = new HashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            String name = get(i).trim();
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            header.put(name.toLowerCase(Locale.ROOT), i);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of a header column (case-insensitive), or -1 if it is absent.
+     */
+    public int column(String name) {
+        if (header == null) {
+            throw new IllegalStateException("Header has not been read");
+        }
+        Integer index = header.get(name.toLowerCase(Locale.ROOT));
+        return index == null ? -1 : index;
+    }
+
+    public int requireColumn(String name) throws IOException {
+        int index = column(name);
+        if (index < 0) {
+            throw new IOException("Missing CSV column: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Advances to the next record. Returns false at end of input.
+     */
+    public boolean next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        recordLength = 0;
+        fieldCount = 0;
+        recordLineNumber = ++lineNumber;
+        startField();
+
+        boolean inQuotes = false;
+        while (true) {
+            if (c == -1) {
+                endField();
+                return true;
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append((char) c);
+                }
+            } else if (c == '"' && recordLength == fieldStarts[fieldCount]) {
+                inQuotes = true;
+            } else if (c == ',') {
+                endField();
+                startField();
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                endField();
+                return true;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Sets the line number of the next record, for readers that start mid-file.
+     */
+    public void setFirstLineNumber(int firstLineNumber) {
+        this.lineNumber = firstLineNumber - 1;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Line number (1-based) on which the current record starts.
+     */
+    public int getLineNumber() {
+        return recordLineNumber;
+    }
+
+    /**
+     * True for an empty or whitespace-only line.
+     */
+    public boolean isBlank() {
+        if (fieldCount != 1) {
+            return false;
+        }
+        for (int i = fieldStarts[0]; i < fieldEnds[0]; i++) {
+            if (!Character.isWhitespace(record[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean has(int index) {
+        return index >= 0 && index < fieldCount;
+    }
+
+    public String get(int index) {
+        checkIndex(index);
+        return new String(record, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    public int getInt(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && Character.isWhitespace(record[start])) start++;
+        while (end > start && Character.isWhitespace(record[end - 1])) end--;
+
+        boolean negative = start < end && record[start] == '-';
+        if (negative || (start < end && record[start] == '+')) {
+            start++;
+        }
+        if (start == end) {
+            throw new NumberFormatException("Empty number in column " + index);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char ch = record[i];
+            if (ch < '0' || ch > '9') {
+                throw new NumberFormatException("For input string: \"" + get(index) + "\"");
+            }
+            value = value * 10 + (ch - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Number out of range: \"" + get(index) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range: \"" + get(index) + "\"");
+        }
+        return (int) value;
+    }
+
+    public double getDouble(int index) {
+        return Double.parseDouble(get(index).trim());
+    }
+
+    /**
+     * Same rules as Boolean.parseBoolean: true only for "true", ignoring case.
+     */
+    public boolean getBoolean(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        if (fieldEnds[index] - start != 4) {
+            return false;
+        }
+        return (record[start] | 0x20) == 't' && (record[start + 1] | 0x20) == 'r'
+                && (record[start + 2] | 0x20) == 'u' && (record[start + 3] | 0x20) == 'e';
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IllegalArgumentException(String.format(
+                "Line %d has %d fields, column %d requested", recordLineNumber, fieldCount, index));
+        }
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = recordLength;
+    }
+
+    private void endField() {
+        fieldEnds[fieldCount++] = recordLength;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (inputPos >= inputLimit && !fill()) {
+            return -1;
+        }
+        return input[inputPos++];
+    }
+
+    private int peek() throws IOException {
+        if (inputPos >= inputLimit && !fill()) {
+            return -1;
+        }
+        return input[inputPos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(input, 0, input.length);
+        if (n <= 0) {
+            return false;
+        }
+        inputPos = 0;
+        inputLimit = n;
+        return true;
+    }
+}
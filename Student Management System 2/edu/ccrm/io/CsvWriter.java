@@ -0,0 +1,171 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming CSV writer, the counterpart of CsvReader
+ * Rows go straight to a buffered stream, optionally gzip-compressed, without building
+ * per-row Strings. Fields are quoted per RFC 4180 only when they need it.
+ */
+public class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+    private final char[] digits;
+    private boolean firstField;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+        this.digits = new char[20];
+        this.firstField = true;
+    }
+
+    public static CsvWriter open(Path filePath, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(filePath);
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    public CsvWriter header(String... names) throws IOException {
+        for (String name : names) {
+            field(name);
+        }
+        return endRow();
+    }
+
+    /**
+     * Writes a text field; null is written as an empty field, which the readers of these
+     * files (CSV import, IncrementalBackup) take back as missing.
+     */
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        if (needsQuoting(value)) {
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+        return this;
+    }
+
+    public CsvWriter field(boolean value) throws IOException {
+        separator();
+        writer.write(value ? "true" : "false");
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * Writes a number with a fixed number of decimals (at most 18), rounded half-up, with the
+     * same digits as String.format("%.2f") and the like (e.g. 2.675 gives 2.68).
+     */
+    public CsvWriter field(double value, int decimals) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.write(Double.toString(value));
+            return this;
+        }
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        double product = Math.abs(value) * scale;
+        double remainder = product - Math.floor(product);
+        // String.format rounds the decimal digits of the value; near a tie, or past exact long
+        // arithmetic, the binary product can round the other way, so defer to it there
+        if (product >= 1e15 || Math.abs(remainder - 0.5) < 1e-6) {
+            writer.write(String.format(Locale.ROOT, "%." + decimals + "f", value));
+            return this;
+        }
+        long scaled = Math.round(product);
+        if (value < 0 && scaled != 0) {
+            writer.write('-');
+        }
+        writeLong(scaled / scale);
+        if (decimals > 0) {
+            writer.write('.');
+            long fraction = scaled % scale;
+            for (long unit = scale / 10; unit > 0; unit /= 10) {
+                writer.write((char) ('0' + (fraction / unit) % 10));
+            }
+        }
+        return this;
+    }
+
+    public CsvWriter endRow() throws IOException {
+        writer.write(LINE_SEPARATOR);
+        firstField = true;
+        return this;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            writer.write(',');
+        }
+        firstField = false;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writer.write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            writer.write('-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        writer.write(digits, pos, digits.length - pos);
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,87 +3,505 @@ package edu.ccrm.io;
 import edu.ccrm.domain.Student;
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
+import edu.ccrm.service.BatchReport;
+import edu.ccrm.service.GradeEntry;
 import edu.ccrm.service.StudentService;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.time.LocalDate;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Service for importing and exporting data using NIO.2 and Streams
  * Demonstrates NIO.2 APIs and Stream processing
+ *
+ * Every import, export, snapshot and backup call is timed into Metrics; CSV imports and
+ * exports also report their row counts, for rows per second.
  */
 public class ImportExportService {
+    // Grade rows handed to StudentService.recordGrades per call
+    private static final int GRADE_BATCH_SIZE = 50_000;
+
+    private static final OperationMetrics IMPORT_STUDENTS_METRICS = operation("importStudentsFromCSV");
+    private static final OperationMetrics IMPORT_COURSES_METRICS = operation("importCoursesFromCSV");
+    private static final OperationMetrics IMPORT_STUDENTS_PARALLEL_METRICS = operation("importStudentsFromCSVParallel");
+    private static final OperationMetrics IMPORT_COURSES_PARALLEL_METRICS = operation("importCoursesFromCSVParallel");
+    private static final OperationMetrics IMPORT_GRADES_METRICS = operation("importGradesFromCSV");
+    private static final OperationMetrics EXPORT_STUDENTS_METRICS = operation("exportStudentsToCSV");
+    private static final OperationMetrics EXPORT_COURSES_METRICS = operation("exportCoursesToCSV");
+    private static final OperationMetrics SAVE_SNAPSHOT_METRICS = operation("saveSnapshot");
+    private static final OperationMetrics LOAD_SNAPSHOT_METRICS = operation("loadSnapshot");
+    private static final OperationMetrics BACKUP_METRICS = operation("createBackup");
+    private static final OperationMetrics INCREMENTAL_BACKUP_METRICS = operation("createIncrementalBackup");
+    private static final OperationMetrics RESTORE_METRICS = operation("restoreBackup");
+    private static final DateTimeFormatter BACKUP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+
     private final StudentService studentService;
+    private MutationJournal journal;
+    private BackupCatalog backupCatalog;
 
     public ImportExportService(StudentService studentService) {
         this.studentService = studentService;
     }
 
-    public void importStudentsFromCSV(Path filePath) throws IOException {
-        try (Stream<String> lines = Files.lines(filePath)) {
-            lines.skip(1) // Skip header
-                 .filter(line -> line != null && !line.trim().isEmpty())
-                 .map(this::parseStudentFromCSV)
-                 .forEach(studentService::addStudent);
+    /**
+     * Sets the journal recording the service's changes. Snapshots are then taken as
+     * journal checkpoints, so replay after a restart starts where the snapshot ends.
+     */
+    public void setJournal(MutationJournal journal) {
+        this.journal = journal;
+    }
+
+    private static OperationMetrics operation(String name) {
+        return Metrics.getInstance().operation("ImportExportService." + name);
+    }
+
+    /**
+     * An I/O operation timed by measure
+     */
+    private interface TimedOperation<T> {
+        T run() throws IOException;
+    }
+
+    private static <T> T measure(OperationMetrics metrics, TimedOperation<T> operation) throws IOException {
+        long start = metrics.start();
+        try {
+            T result = operation.run();
+            metrics.succeeded(start);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            metrics.failed(start, e);
+            throw e;
+        }
+    }
+
+    // For operations whose result is the number of rows they handled
+    private static void measureRows(OperationMetrics metrics, TimedOperation<Long> operation) throws IOException {
+        long start = metrics.start();
+        try {
+            metrics.succeeded(start, operation.run());
+        } catch (IOException | RuntimeException e) {
+            metrics.failed(start, e);
+            throw e;
         }
     }
 
+    // Bulk loads run as one journal batch, so GROUP_COMMIT syncs once at the end, not per row
+    private <T> T inBatch(TimedOperation<T> operation) throws IOException {
+        MutationJournal current = journal;
+        if (current == null) {
+            return operation.run();
+        }
+        current.beginBatch();
+        try {
+            return operation.run();
+        } finally {
+            current.endBatch();
+        }
+    }
+
+    public void importStudentsFromCSV(Path filePath) throws IOException {
+        measureRows(IMPORT_STUDENTS_METRICS, () -> inBatch(() -> readStudents(filePath)));
+    }
+
     public void importCoursesFromCSV(Path filePath) throws IOException {
-        try (Stream<String> lines = Files.lines(filePath)) {
-            lines.skip(1) // Skip header
-                 .filter(line -> line != null && !line.trim().isEmpty())
-                 .map(this::parseCourseFromCSV)
-                 .forEach(studentService::addCourse);
+        measureRows(IMPORT_COURSES_METRICS, () -> inBatch(() -> readCourses(filePath)));
+    }
+
+    private long readStudents(Path filePath) throws IOException {
+        long rows = 0;
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            if (!reader.readHeader()) {
+                return rows;
+            }
+            StudentColumns columns = new StudentColumns(reader);
+            while (reader.next()) {
+                if (!reader.isBlank()) {
+                    studentService.addStudent(parseStudent(reader, columns));
+                    rows++;
+                }
+            }
         }
+        return rows;
     }
 
-    public void exportStudentsToCSV(Path filePath) throws IOException {
-        List<String> lines = studentService.getAllStudents().stream()
-                .map(this::studentToCSV)
-                .collect(Collectors.toList());
-        
-        lines.add(0, "ID,RegNo,FullName,Email,Active,GPA"); // Add header
+    private long readCourses(Path filePath) throws IOException {
+        long rows = 0;
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            if (!reader.readHeader()) {
+                return rows;
+            }
+            CourseColumns columns = new CourseColumns(reader);
+            while (reader.next()) {
+                if (!reader.isBlank()) {
+                    studentService.addCourse(parseCourse(reader, columns));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Parallel variant of importStudentsFromCSV for large files. The file is split into
+     * memory-mapped chunks parsed on all cores; when an ID appears more than once the last
+     * row wins, and a malformed row stops the import after the rows before it, as in the
+     * sequential import. Small files are imported sequentially.
+     */
+    public void importStudentsFromCSVParallel(Path filePath) throws IOException {
+        measureRows(IMPORT_STUDENTS_PARALLEL_METRICS, () -> inBatch(() -> {
+            LongAdder rows = new LongAdder();
+            boolean imported = ParallelCsvImporter.importFile(filePath, StudentColumns::new,
+                    this::parseStudent, Student::getId, counting(studentService::addStudent, rows));
+            return imported ? rows.sum() : readStudents(filePath);
+        }));
+    }
+
+    /**
+     * Parallel variant of importCoursesFromCSV, with the same last-row-wins and error guarantees.
+     */
+    public void importCoursesFromCSVParallel(Path filePath) throws IOException {
+        measureRows(IMPORT_COURSES_PARALLEL_METRICS, () -> inBatch(() -> {
+            LongAdder rows = new LongAdder();
+            boolean imported = ParallelCsvImporter.importFile(filePath, CourseColumns::new,
+                    this::parseCourse, Course::getCode, counting(studentService::addCourse, rows));
+            return imported ? rows.sum() : readCourses(filePath);
+        }));
+    }
+
+    // Counts the rows the parallel importer hands to the sink
+    private static <T> Consumer<T> counting(Consumer<T> sink, LongAdder rows) {
+        return value -> {
+            sink.accept(value);
+            rows.increment();
+        };
+    }
+
+    /**
+     * Imports grades from a CSV with header StudentId,CourseCode,Marks.
+     * Rows are applied in batches through StudentService.recordGrades; malformed or
+     * rejected rows are reported by file line number and do not stop the import.
+     */
+    public BatchReport importGradesFromCSV(Path filePath) throws IOException {
+        long start = IMPORT_GRADES_METRICS.start();
+        try {
+            BatchReport report = inBatch(() -> readGrades(filePath));
+            IMPORT_GRADES_METRICS.succeeded(start, report.getTotalRows());
+            return report;
+        } catch (IOException | RuntimeException e) {
+            IMPORT_GRADES_METRICS.failed(start, e);
+            throw e;
+        }
+    }
+
+    private BatchReport readGrades(Path filePath) throws IOException {
+        BatchReport report = new BatchReport();
+        List<GradeEntry> batch = new ArrayList<>();
+        List<Integer> batchLines = new ArrayList<>();
         
-        Files.write(filePath, lines);
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            if (!reader.readHeader()) {
+                return report;
+            }
+            int studentColumn = reader.requireColumn("StudentId");
+            int courseColumn = reader.requireColumn("CourseCode");
+            int marksColumn = reader.requireColumn("Marks");
+            while (reader.next()) {
+                if (reader.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(new GradeEntry(reader.get(studentColumn).trim(), 
+                                             reader.get(courseColumn).trim(), 
+                                             reader.getDouble(marksColumn)));
+                    batchLines.add(reader.getLineNumber());
+                } catch (RuntimeException e) {
+                    report.addError(reader.getLineNumber(), "Malformed row: " + e.getMessage());
+                }
+                if (batch.size() >= GRADE_BATCH_SIZE) {
+                    applyGradeBatch(batch, batchLines, report);
+                }
+            }
+        }
+        applyGradeBatch(batch, batchLines, report);
+        return report;
+    }
+
+    private void applyGradeBatch(List<GradeEntry> batch, List<Integer> batchLines, BatchReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        BatchReport batchReport = studentService.recordGrades(batch);
+        report.addApplied(batchReport.getAppliedRows());
+        for (BatchReport.RowError error : batchReport.getErrors()) {
+            report.addError(batchLines.get(error.getRow() - 1), error.getMessage());
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    public void exportStudentsToCSV(Path filePath) throws IOException {
+        exportStudentsToCSV(filePath, false);
+    }
+
+    /**
+     * Streams students to CSV row by row; heap use does not grow with the number of rows.
+     * With gzip set, the file is written gzip-compressed.
+     */
+    public void exportStudentsToCSV(Path filePath, boolean gzip) throws IOException {
+        measureRows(EXPORT_STUDENTS_METRICS, () -> writeStudents(filePath, gzip));
+    }
+
+    private long writeStudents(Path filePath, boolean gzip) throws IOException {
+        long rows = 0;
+        try (CsvWriter writer = CsvWriter.open(filePath, gzip)) {
+            writer.header("ID", "RegNo", "FullName", "Email", "Active", "GPA");
+            for (Student student : studentService.getStudentsView()) {
+                writer.field(student.getId())
+                      .field(student.getRegNo())
+                      .field(student.getFullName())
+                      .field(student.getEmail())
+                      .field(student.isActive())
+                      .field(student.getGpa(), 2)
+                      .endRow();
+                rows++;
+            }
+        }
+        return rows;
     }
 
     public void exportCoursesToCSV(Path filePath) throws IOException {
-        List<String> lines = studentService.getAllCourses().stream()
-                .map(this::courseToCSV)
-                .collect(Collectors.toList());
-        
-        lines.add(0, "Code,Title,Credits,InstructorId,Semester,Department,Active"); // Add header
-        
-        Files.write(filePath, lines);
+        exportCoursesToCSV(filePath, false);
+    }
+
+    public void exportCoursesToCSV(Path filePath, boolean gzip) throws IOException {
+        measureRows(EXPORT_COURSES_METRICS, () -> writeCourses(filePath, gzip));
+    }
+
+    private long writeCourses(Path filePath, boolean gzip) throws IOException {
+        long rows = 0;
+        try (CsvWriter writer = CsvWriter.open(filePath, gzip)) {
+            writer.header("Code", "Title", "Credits", "InstructorId", "Semester", "Department", "Active", "Capacity");
+            for (Course course : studentService.getCoursesView()) {
+                writer.field(course.getCode())
+                      .field(course.getTitle())
+                      .field(course.getCredits())
+                      .field(course.getInstructorId())
+                      .field(course.getSemester().name())
+                      .field(course.getDepartment())
+                      .field(course.isActive())
+                      .field(course.getCapacity())
+                      .endRow();
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Saves students, courses, instructors and enrollments (with grades) as a binary snapshot.
+     * The snapshot is written to a temporary file first and moved into place, so a crash
+     * never leaves a half-written snapshot behind.
+     */
+    public void saveSnapshot(Path filePath) throws IOException {
+        measure(SAVE_SNAPSHOT_METRICS, () -> {
+            if (journal != null) {
+                journal.checkpoint(sequence -> writeSnapshot(filePath, sequence));
+            } else {
+                writeSnapshot(filePath, 0);
+            }
+            return null;
+        });
+    }
+
+    private void writeSnapshot(Path filePath, long journalSequence) throws IOException {
+        Path parent = filePath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve(filePath.getFileName() + ".tmp");
+        try (SnapshotWriter writer = new SnapshotWriter(temp)) {
+            writer.write(studentService, journalSequence);
+        }
+        try {
+            Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a snapshot written by saveSnapshot into the student service. Records with the
+     * same ID or code as existing ones replace them, as with the CSV imports.
+     * Returns the last journal sequence contained in the snapshot, for MutationJournal.open.
+     */
+    public long loadSnapshot(Path filePath) throws IOException {
+        return measure(LOAD_SNAPSHOT_METRICS, () -> inBatch(() -> {
+            try (SnapshotReader reader = new SnapshotReader(filePath)) {
+                return reader.read(studentService);
+            }
+        }));
     }
 
     public void createBackup(Path backupDir) throws IOException {
-        String timestamp = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-        Path timestampedDir = backupDir.resolve("backup_" + timestamp);
+        measure(BACKUP_METRICS, () -> {
+            writeFullBackup(backupDir);
+            return null;
+        });
+    }
+
+    private void writeFullBackup(Path backupDir) throws IOException {
+        Path timestampedDir = newBackupDirectory(backupDir);
         
-        Files.createDirectories(timestampedDir);
+        // Export data to backup directory; timed as part of the backup, not as exports
+        writeStudents(timestampedDir.resolve("students.csv"), false);
+        writeCourses(timestampedDir.resolve("courses.csv"), false);
         
-        // Export data to backup directory
-        exportStudentsToCSV(timestampedDir.resolve("students.csv"));
-        exportCoursesToCSV(timestampedDir.resolve("courses.csv"));
+        Map<Path, Long> files = new LinkedHashMap<>();
+        files.put(timestampedDir.resolve("students.csv"), Files.size(timestampedDir.resolve("students.csv")));
+        files.put(timestampedDir.resolve("courses.csv"), Files.size(timestampedDir.resolve("courses.csv")));
+        catalogBackup(backupDir, timestampedDir, files, new LinkedHashMap<>());
         
         System.out.println("Backup created at: " + timestampedDir);
     }
 
+    /**
+     * Creates a backup that stores only chunks not already in the backup directory's chunk
+     * store, so its I/O follows what changed since earlier backups. Covers students, courses,
+     * instructors and enrollments with grades.
+     */
+    public BackupSummary createIncrementalBackup(Path backupDir) throws IOException {
+        return measure(INCREMENTAL_BACKUP_METRICS, () -> writeIncrementalBackup(backupDir));
+    }
+
+    private BackupSummary writeIncrementalBackup(Path backupDir) throws IOException {
+        Path timestampedDir = newBackupDirectory(backupDir);
+        IncrementalBackup backup = new IncrementalBackup(studentService, backupDir);
+        BackupSummary summary = backup.write(timestampedDir);
+
+        Path manifest = timestampedDir.resolve(IncrementalBackup.MANIFEST_FILE);
+        Map<Path, Long> files = new LinkedHashMap<>();
+        files.put(manifest, Files.size(manifest));
+        catalogBackup(backupDir, timestampedDir, files, backup.getWrittenChunks());
+        return summary;
+    }
+
+    /**
+     * Names of all backups (full and incremental), oldest first.
+     */
+    public List<String> listBackups(Path backupDir) throws IOException {
+        if (!Files.exists(backupDir)) {
+            return new ArrayList<>();
+        }
+        return backupCatalog(backupDir).getBackupNames();
+    }
+
+    /**
+     * Restores the named backup into the student service. Records with the same ID or code
+     * as existing ones are replaced; restoring into an empty service reproduces the backup's
+     * point in time exactly (full CSV backups carry students and courses only).
+     */
+    public void restoreBackup(Path backupDir, String backupName) throws IOException {
+        measure(RESTORE_METRICS, () -> inBatch(() -> {
+            readBackup(backupDir, backupName);
+            return null;
+        }));
+    }
+
+    private void readBackup(Path backupDir, String backupName) throws IOException {
+        Path backup = backupDir.resolve(backupName);
+        if (Files.exists(backup.resolve(IncrementalBackup.MANIFEST_FILE))) {
+            new IncrementalBackup(studentService, backupDir).restore(backup);
+        } else if (Files.exists(backup.resolve("students.csv"))) {
+            readCourses(backup.resolve("courses.csv"));
+            readStudents(backup.resolve("students.csv"));
+        } else {
+            throw new IOException("Backup not found: " + backup);
+        }
+    }
+
+    // Timestamps go down to milliseconds; a clash within the same millisecond takes the next one
+    private Path newBackupDirectory(Path backupDir) throws IOException {
+        Files.createDirectories(backupDir);
+        LocalDateTime time = LocalDateTime.now();
+        while (true) {
+            Path dir = backupDir.resolve(BackupCatalog.BACKUP_PREFIX + time.format(BACKUP_TIMESTAMP));
+            try {
+                return Files.createDirectory(dir);
+            } catch (FileAlreadyExistsException e) {
+                time = time.plusNanos(1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Deletes all but the newest keepLatest backups, then removes chunks no remaining
+     * incremental backup refers to. Returns the number of backups deleted.
+     */
+    public int pruneBackups(Path backupDir, int keepLatest) throws IOException {
+        if (!Files.exists(backupDir)) {
+            return 0;
+        }
+        BackupCatalog catalog = backupCatalog(backupDir);
+        List<String> names = catalog.getBackupNames();
+        int excess = names.size() - Math.max(0, keepLatest);
+        if (excess <= 0) {
+            return 0;
+        }
+
+        for (String name : names.subList(0, excess)) {
+            deleteTree(backupDir.resolve(name));
+            catalog.remove(name);
+        }
+
+        Set<String> liveChunks = new HashSet<>();
+        for (String name : names.subList(excess, names.size())) {
+            Path backup = backupDir.resolve(name);
+            if (Files.exists(backup.resolve(IncrementalBackup.MANIFEST_FILE))) {
+                liveChunks.addAll(IncrementalBackup.readManifest(backup));
+            }
+        }
+        Set<String> deadChunks = new HashSet<>();
+        for (BackupCatalog.Entry chunk : catalog.getEntries(BackupCatalog.CHUNK_OWNER)) {
+            Path chunkFile = backupDir.resolve(chunk.relativePath);
+            if (!liveChunks.contains(IncrementalBackup.chunkHash(chunkFile))) {
+                Files.deleteIfExists(chunkFile);
+                deadChunks.add(chunk.relativePath);
+            }
+        }
+        catalog.removeChunks(deadChunks);
+        catalog.save();
+        return excess;
+    }
+
+    /**
+     * Rebuilds the backup catalog by walking the backup directory, e.g. after backups were
+     * changed by hand.
+     */
+    public void rebuildBackupCatalog(Path backupDir) throws IOException {
+        backupCatalog = BackupCatalog.rebuild(backupDir);
+    }
+
+    /**
+     * Total size of the backup directory, answered from the backup catalog.
+     */
     public long getBackupDirectorySize(Path backupDir) throws IOException {
         if (!Files.exists(backupDir)) {
             return 0;
         }
         
-        return Files.walk(backupDir)
-                .filter(Files::isRegularFile)
-                .mapToLong(this::getFileSize)
-                .sum();
+        return backupCatalog(backupDir).getTotalSize();
     }
 
     public void listBackupFilesByDepth(Path backupDir, int maxDepth) throws IOException {
@@ -92,68 +510,128 @@ public class ImportExportService {
             return;
         }
         
-        Files.walk(backupDir, maxDepth)
-                .filter(Files::isRegularFile)
-                .forEach(path -> {
-                    try {
-                        int depth = backupDir.relativize(path).getNameCount();
-                        System.out.println("Depth " + depth + ": " + path.getFileName() + 
-                                         " (" + Files.size(path) + " bytes)");
-                    } catch (IOException e) {
-                        System.err.println("Error reading file: " + path);
-                    }
+        BackupCatalog catalog = backupCatalog(backupDir);
+        System.out.println("Depth 1: " + BackupCatalog.CATALOG_FILE + 
+                         " (" + catalog.getCatalogFileSize() + " bytes)");
+        catalog.getEntriesByOwner().values().stream()
+                .flatMap(List::stream)
+                .filter(entry -> entry.depth() <= maxDepth)
+                .forEach(entry -> {
+                    String fileName = entry.relativePath.substring(entry.relativePath.lastIndexOf('/') + 1);
+                    System.out.println("Depth " + entry.depth() + ": " + fileName + 
+                                     " (" + entry.size + " bytes)");
                 });
     }
 
-    private Student parseStudentFromCSV(String line) {
-        String[] fields = line.split(",");
-        Student student = new Student(fields[0], fields[1], fields[2], fields[3]);
-        student.setActive(Boolean.parseBoolean(fields[4]));
-        if (fields.length > 5) {
-            student.setGpa(Double.parseDouble(fields[5]));
+    // The cached catalog is reused until its file changes on disk
+    private BackupCatalog backupCatalog(Path backupDir) throws IOException {
+        if (backupCatalog == null || !backupCatalog.getBackupDir().equals(backupDir) || !backupCatalog.isCurrent()) {
+            backupCatalog = BackupCatalog.load(backupDir);
+        }
+        return backupCatalog;
+    }
+
+    private void catalogBackup(Path backupDir, Path backup, Map<Path, Long> files, 
+                               Map<Path, Long> newChunks) throws IOException {
+        if (!Files.exists(backupDir.resolve(BackupCatalog.CATALOG_FILE))) {
+            // First catalog for this directory: the walk picks up the new backup as well
+            backupCatalog = BackupCatalog.rebuild(backupDir);
+            return;
+        }
+        BackupCatalog catalog = backupCatalog(backupDir);
+        catalog.add(backup.getFileName().toString(), files);
+        if (!newChunks.isEmpty()) {
+            catalog.add(BackupCatalog.CHUNK_OWNER, newChunks);
         }
-        return student;
     }
 
-    private Course parseCourseFromCSV(String line) {
-        String[] fields = line.split(",");
-        return new Course.Builder()
-                .code(fields[0])
-                .title(fields[1])
-                .credits(Integer.parseInt(fields[2]))
-                .instructorId(fields[3])
-                .semester(Semester.valueOf(fields[4]))
-                .department(fields[5])
-                .active(Boolean.parseBoolean(fields[6]))
-                .build();
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
     }
 
-    private String studentToCSV(Student student) {
-        return String.format("%s,%s,%s,%s,%s,%.2f",
-                student.getId(),
-                student.getRegNo(),
-                student.getFullName(),
-                student.getEmail(),
-                student.isActive(),
-                student.getGpa());
+    private Student parseStudent(CsvReader reader, StudentColumns columns) {
+        try {
+            Student student = new Student(reader.get(columns.id), reader.get(columns.regNo), 
+                                          reader.get(columns.fullName), reader.get(columns.email));
+            student.setActive(reader.getBoolean(columns.active));
+            if (reader.has(columns.gpa)) {
+                student.setGpa(reader.getDouble(columns.gpa));
+            }
+            return student;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid student at line " + reader.getLineNumber() + 
+                                               ": " + e.getMessage(), e);
+        }
     }
 
-    private String courseToCSV(Course course) {
-        return String.format("%s,%s,%d,%s,%s,%s,%s",
-                course.getCode(),
-                course.getTitle(),
-                course.getCredits(),
-                course.getInstructorId(),
-                course.getSemester(),
-                course.getDepartment(),
-                course.isActive());
+    // Exports write a missing instructor as an empty field
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
     }
 
-    private long getFileSize(Path path) {
+    private Course parseCourse(CsvReader reader, CourseColumns columns) {
         try {
-            return Files.size(path);
-        } catch (IOException e) {
-            return 0;
+            return new Course.Builder()
+                    .code(reader.get(columns.code))
+                    .title(reader.get(columns.title))
+                    .credits(reader.getInt(columns.credits))
+                    .instructorId(emptyToNull(reader.get(columns.instructorId)))
+                    .semester(Semester.valueOf(reader.get(columns.semester).trim().toUpperCase(Locale.ROOT)))
+                    .department(reader.get(columns.department))
+                    .active(reader.getBoolean(columns.active))
+                    .capacity(reader.has(columns.capacity) ? reader.getInt(columns.capacity) 
+                                                           : Course.UNLIMITED_CAPACITY)
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid course at line " + reader.getLineNumber() + 
+                                               ": " + e.getMessage(), e);
+        }
+    }
+
+    // Column positions resolved once from the CSV header
+    private static class StudentColumns {
+        final int id, regNo, fullName, email, active, gpa;
+
+        StudentColumns(CsvReader reader) throws IOException {
+            id = reader.requireColumn("ID");
+            regNo = reader.requireColumn("RegNo");
+            fullName = reader.requireColumn("FullName");
+            email = reader.requireColumn("Email");
+            active = reader.requireColumn("Active");
+            gpa = reader.column("GPA");
+        }
+    }
+
+    private static class CourseColumns {
+        final int code, title, credits, instructorId, semester, department, active, capacity;
+
+        CourseColumns(CsvReader reader) throws IOException {
+            code = reader.requireColumn("Code");
+            title = reader.requireColumn("Title");
+            credits = reader.requireColumn("Credits");
+            instructorId = reader.requireColumn("InstructorId");
+            semester = reader.requireColumn("Semester");
+            department = reader.requireColumn("Department");
+            active = reader.requireColumn("Active");
+            capacity = reader.column("Capacity");
         }
     }
 }
@@ -0,0 +1,308 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental backups built from content-addressed chunks
+ * The state is serialized as CSV rows in a fixed order (courses, instructors, then students
+ * with their enrollments, each sorted by key) and cut into chunks. A chunk ends after a record
+ * whose key hashes to a boundary, so boundaries depend only on the keys around them: changing,
+ * adding or removing a record changes just the chunk it falls in, and every other chunk hashes
+ * to a file the store already has. Disk writes therefore follow the changes since the last
+ * backup, not the size of the data.
+ *
+ * Each backup directory holds a manifest listing its chunks in order; restoring reads them
+ * back, so any retained backup can be restored.
+ */
+class IncrementalBackup {
+    static final String MANIFEST_FILE = "manifest.txt";
+    static final String CHUNK_DIRECTORY = "chunks";
+    private static final String MANIFEST_HEADER = "CCRM-BACKUP 1";
+
+    // Average records per chunk is 2^CHUNK_BITS; the size cap bounds chunks of unlucky key runs
+    private static final int CHUNK_BITS = 5;
+    private static final int MAX_CHUNK_BYTES = 256 * 1024;
+
+    private static final String COURSE = "C";
+    private static final String INSTRUCTOR = "I";
+    private static final String STUDENT = "S";
+    private static final String ENROLLMENT = "E";
+
+    private final StudentService service;
+    private final ChunkStore store;
+    private final Map<Path, Long> writtenChunks;
+
+    IncrementalBackup(StudentService service, Path backupRoot) {
+        this.service = service;
+        this.store = new ChunkStore(backupRoot.resolve(CHUNK_DIRECTORY));
+        this.writtenChunks = new LinkedHashMap<>();
+    }
+
+    /**
+     * Chunk files the last write() added to the store, with their sizes.
+     */
+    Map<Path, Long> getWrittenChunks() {
+        return writtenChunks;
+    }
+
+    static String chunkHash(Path chunkFile) {
+        String name = chunkFile.getFileName().toString();
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    BackupSummary write(Path backupDirectory) throws IOException {
+        Chunker chunker = new Chunker();
+        CsvWriter writer = chunker.writer;
+
+        List<Course> courses = service.getAllCourses();
+        courses.sort(Comparator.comparing(Course::getCode));
+        for (Course course : courses) {
+            writer.field(COURSE)
+                  .field(course.getCode())
+                  .field(course.getTitle())
+                  .field(course.getCredits())
+                  .field(course.getInstructorId())
+                  .field(course.getSemester().name())
+                  .field(course.getDepartment())
+                  .field(course.isActive())
+                  .field(course.getCapacity())
+                  .endRow();
+            chunker.endRecord(course.getCode());
+        }
+        chunker.seal();
+
+        List<Instructor> instructors = service.getAllInstructors();
+        instructors.sort(Comparator.comparing(Instructor::getId));
+        for (Instructor instructor : instructors) {
+            writer.field(INSTRUCTOR)
+                  .field(instructor.getId())
+                  .field(instructor.getEmployeeId())
+                  .field(instructor.getFullName())
+                  .field(instructor.getEmail())
+                  .field(instructor.getDepartment())
+                  .field(instructor.isActive())
+                  .field(instructor.getDateCreated().toString())
+                  .endRow();
+            chunker.endRecord(instructor.getId());
+        }
+        chunker.seal();
+
+        List<Student> students = service.getAllStudents();
+        students.sort(Comparator.comparing(Student::getId));
+        for (Student student : students) {
+            writer.field(STUDENT)
+                  .field(student.getId())
+                  .field(student.getRegNo())
+                  .field(student.getFullName())
+                  .field(student.getEmail())
+                  .field(student.isActive())
+                  .field(Double.toString(student.getGpa()))
+                  .field(student.getDateCreated().toString())
+                  .endRow();
+            try {
+                service.forEachEnrollment(student.getId(), (enrollment, credits) -> writeEnrollment(writer, enrollment, credits));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            chunker.endRecord(student.getId());
+        }
+        chunker.seal();
+
+        List<String> manifest = new ArrayList<>();
+        manifest.add(MANIFEST_HEADER);
+        manifest.add("created " + LocalDateTime.now());
+        manifest.addAll(chunker.manifestLines);
+        Files.write(backupDirectory.resolve(MANIFEST_FILE), manifest, StandardCharsets.UTF_8);
+
+        return new BackupSummary(backupDirectory.getFileName().toString(), backupDirectory,
+                                 chunker.manifestLines.size(), chunker.newChunks, chunker.bytesWritten);
+    }
+
+    private static void writeEnrollment(CsvWriter writer, Enrollment enrollment, int credits) {
+        try {
+            writer.field(ENROLLMENT)
+                  .field(enrollment.getCourseCode())
+                  .field(enrollment.getEnrollmentDate().toString())
+                  .field(enrollment.isActive())
+                  .field(enrollment.getGrade() != null ? enrollment.getGrade().name() : null)
+                  .field(Double.toString(enrollment.getMarks()))
+                  .field(credits)
+                  .endRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lists the chunk hashes of a backup, in order.
+     */
+    static List<String> readManifest(Path backupDirectory) throws IOException {
+        List<String> lines = Files.readAllLines(backupDirectory.resolve(MANIFEST_FILE), StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_HEADER)) {
+            throw new IOException("Not a CCRM backup manifest: " + backupDirectory);
+        }
+        List<String> hashes = new ArrayList<>();
+        for (String line : lines) {
+            if (line.startsWith("chunk ")) {
+                hashes.add(line.split(" ")[1]);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Loads a backup into the service. Records with the same key as existing ones replace
+     * them; restore into an empty service to get exactly the state at backup time.
+     */
+    void restore(Path backupDirectory) throws IOException {
+        Student current = null;
+        for (String hash : readManifest(backupDirectory)) {
+            byte[] chunk = store.get(hash);
+            try (CsvReader reader = new CsvReader(new InputStreamReader(
+                    new ByteArrayInputStream(chunk), StandardCharsets.UTF_8))) {
+                while (reader.next()) {
+                    if (reader.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        current = restoreRow(reader, current);
+                    } catch (RuntimeException e) {
+                        throw new IOException("Invalid record in chunk " + hash + " at line "
+                                              + reader.getLineNumber() + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns the student that following enrollment rows belong to
+    private Student restoreRow(CsvReader reader, Student current) {
+        switch (reader.get(0)) {
+            case COURSE:
+                service.addCourse(new Course.Builder()
+                        .code(reader.get(1))
+                        .title(reader.get(2))
+                        .credits(reader.getInt(3))
+                        .instructorId(emptyToNull(reader.get(4)))
+                        .semester(Semester.valueOf(reader.get(5)))
+                        .department(reader.get(6))
+                        .active(reader.getBoolean(7))
+                        .capacity(reader.getInt(8))
+                        .build());
+                return current;
+            case INSTRUCTOR: {
+                Instructor instructor = new Instructor(reader.get(1), reader.get(2), reader.get(3),
+                                                       reader.get(4), reader.get(5));
+                instructor.setActive(reader.getBoolean(6));
+                instructor.setDateCreated(LocalDate.parse(reader.get(7)));
+                service.addInstructor(instructor);
+                return current;
+            }
+            case STUDENT: {
+                Student student = new Student(reader.get(1), reader.get(2), reader.get(3), reader.get(4));
+                student.setActive(reader.getBoolean(5));
+                student.setGpa(reader.getDouble(6));
+                student.setDateCreated(LocalDate.parse(reader.get(7)));
+                service.addStudent(student);
+                return student;
+            }
+            case ENROLLMENT: {
+                if (current == null) {
+                    throw new IllegalArgumentException("Enrollment without a student");
+                }
+                Enrollment enrollment = new Enrollment(current.getId(), reader.get(1));
+                enrollment.setEnrollmentDate(LocalDate.parse(reader.get(2)));
+                enrollment.setActive(reader.getBoolean(3));
+                String grade = reader.get(4);
+                enrollment.setGrade(grade.isEmpty() ? null : Grade.valueOf(grade));
+                enrollment.setMarks(reader.getDouble(5));
+                service.restoreEnrollment(enrollment, reader.getInt(6));
+                return current;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown record type: " + reader.get(0));
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    // Boundaries come from the key alone, so they stay put when other records change
+    private static boolean isBoundary(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h >>> (32 - CHUNK_BITS)) == 0;
+    }
+
+    /**
+     * Collects rows into the current chunk and stores it once a boundary is reached
+     */
+    private class Chunker {
+        final ChunkBuffer bytes = new ChunkBuffer();
+        final CsvWriter writer = new CsvWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+        final List<String> manifestLines = new ArrayList<>();
+        int records;
+        int newChunks;
+        long bytesWritten;
+
+        void endRecord(String key) throws IOException {
+            records++;
+            if (isBoundary(key)) {
+                seal();
+            } else if (bytes.size() >= MAX_CHUNK_BYTES) {
+                writer.flush();
+                if (bytes.size() >= MAX_CHUNK_BYTES) {
+                    seal();
+                }
+            }
+        }
+
+        void seal() throws IOException {
+            writer.flush();
+            if (bytes.size() == 0) {
+                return;
+            }
+            String hash = ChunkStore.hash(bytes.array(), bytes.size());
+            long written = store.put(hash, bytes.array(), bytes.size());
+            if (written > 0) {
+                writtenChunks.put(store.pathOf(hash), written);
+                newChunks++;
+                bytesWritten += written;
+            }
+            manifestLines.add("chunk " + hash + " " + records + " " + bytes.size());
+            bytes.reset();
+            records = 0;
+        }
+    }
+
+    // ByteArrayOutputStream that exposes its buffer, so chunks are hashed and stored without a copy
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,670 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.MutationListener;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of StudentService changes, for crash recovery
+ * Every change the service reports is appended as a checksummed record. On startup the latest
+ * snapshot is loaded and the journal replayed on top of it; a torn or corrupt tail left by a
+ * crash fails its checksum and is cut off. Taking a snapshot through checkpoint() empties the
+ * journal, and the snapshot remembers the last sequence it contains so a crash between the two
+ * steps never replays a record twice.
+ *
+ * With OFF_HEAP enrollment storage, recovery takes enrollments of students already in the store
+ * from the store rather than from the journal, so every journal sync and every checkpoint also
+ * forces the store: an enrollment is durable once its journal record is.
+ *
+ * File: int magic "CCJL", int version, then records of
+ *   int length, int CRC32C of the next length bytes, long sequence, byte type, fields
+ */
+public class MutationJournal implements MutationListener, Closeable {
+    /**
+     * When a change becomes durable relative to the call that made it
+     */
+    public enum Durability {
+        /** Each record is written and forced on its own before the call returns */
+        FSYNC,
+        /** Callers wait for a shared force, so concurrent changes share one fsync */
+        GROUP_COMMIT,
+        /**
+         * Records are forced in the background; a crash can lose the last few milliseconds.
+         * A background write failure is thrown by the next change or by close().
+         */
+        ASYNC
+    }
+
+    /**
+     * The calling thread's open mutations and batches, and the sequence before the first
+     */
+    private static class Scope {
+        int mutations;
+        int batches;
+        long startSequence;
+
+        boolean isOpen() {
+            return mutations > 0 || batches > 0;
+        }
+    }
+
+    /**
+     * Writes a snapshot containing every journal record up to the given sequence
+     */
+    public interface CheckpointAction {
+        void write(long sequence) throws IOException;
+    }
+
+    private static final int MAGIC = 0x43434A4C; // "CCJL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    // Record layout offsets: the length and CRC cover everything from the sequence on
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int TYPE_OFFSET = 16;
+    // Appenders flush themselves once this much is waiting, whatever the mode
+    private static final int MAX_PENDING_BYTES = 4 * 1024 * 1024;
+    private static final long ASYNC_FLUSH_INTERVAL_MS = 10;
+
+    private static final byte STUDENT_ADDED = 1;
+    private static final byte STUDENT_UPDATED = 2;
+    private static final byte COURSE_ADDED = 3;
+    private static final byte INSTRUCTOR_ADDED = 4;
+    private static final byte ENROLLED = 5;
+    private static final byte UNENROLLED = 6;
+    private static final byte GRADE_RECORDED = 7;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final StudentService service;
+    private final long replayedRecords;
+
+    // Changes hold the read side; checkpoint takes the write side to see a quiet service
+    private final ReadWriteLock checkpointLock;
+    private final ThreadLocal<RecordBuilder> builders;
+    private final ThreadLocal<Scope> scopes;
+
+    // Guarded by appendLock
+    private final Object appendLock = new Object();
+    private final CRC32C crc;
+    private ByteBuffer pending;
+    private long sequence;
+    private volatile long appendedSequence;
+
+    // Guarded by flushLock; only the flush leader writes to the channel
+    private final Object flushLock = new Object();
+    private ByteBuffer spare;
+    private volatile long durableSequence;
+    private volatile IOException failure;
+
+    private final ScheduledExecutorService flusher;
+
+    private MutationJournal(FileChannel channel, Durability durability, StudentService service,
+                            long lastSequence, long replayedRecords) {
+        this.channel = channel;
+        this.durability = durability;
+        this.service = service;
+        this.replayedRecords = replayedRecords;
+        this.checkpointLock = new ReentrantReadWriteLock();
+        this.builders = ThreadLocal.withInitial(RecordBuilder::new);
+        this.scopes = ThreadLocal.withInitial(Scope::new);
+        this.crc = new CRC32C();
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.spare = ByteBuffer.allocate(64 * 1024);
+        this.sequence = lastSequence;
+        this.appendedSequence = lastSequence;
+        this.durableSequence = lastSequence;
+
+        if (durability == Durability.ASYNC) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ccrm-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground,
+                    ASYNC_FLUSH_INTERVAL_MS, ASYNC_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Opens (or creates) the journal, replays the records after snapshotSequence into the
+     * service, and registers the journal as the service's listener. Call it after loading the
+     * snapshot that snapshotSequence came from, and before any other change to the service.
+     */
+    public static MutationJournal open(Path filePath, Durability durability, StudentService service,
+                                       long snapshotSequence) throws IOException {
+        Path parent = filePath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long lastSequence = snapshotSequence;
+            long replayed = 0;
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.force(true);
+                channel.position(HEADER_SIZE);
+            } else {
+                Replay replay = replay(channel, service, snapshotSequence);
+                // Cut off a torn or corrupt tail so new records follow the last good one
+                channel.truncate(replay.validLength);
+                channel.force(true);
+                channel.position(replay.validLength);
+                lastSequence = Math.max(lastSequence, replay.lastSequence);
+                replayed = replay.applied;
+            }
+            MutationJournal journal = new MutationJournal(channel, durability, service, lastSequence, replayed);
+            service.addMutationListener(journal);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of records applied from the journal when it was opened.
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Blocks changes, waits for every journaled change to be durable, lets the action write a
+     * snapshot up to the last sequence, then empties the journal.
+     */
+    public void checkpoint(CheckpointAction action) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            long last = appendedSequence;
+            sync(last);
+            action.write(last);
+            // The snapshot leaves enrollments held in the off-heap store to the store
+            service.forceEnrollmentStore();
+            synchronized (flushLock) {
+                channel.truncate(HEADER_SIZE);
+                channel.force(true);
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void beginMutation() {
+        checkpointLock.readLock().lock();
+        open(scopes.get()).mutations++;
+    }
+
+    @Override
+    public void endMutation() {
+        checkpointLock.readLock().unlock();
+        Scope scope = scopes.get();
+        scope.mutations--;
+        commit(scope);
+    }
+
+    /**
+     * Starts a batch on the calling thread: under GROUP_COMMIT, the changes it makes until
+     * endBatch() are synced once at the end instead of once per call. For bulk loads such as
+     * imports and restores, which would otherwise pay an fsync per row. Batches nest.
+     */
+    public void beginBatch() {
+        open(scopes.get()).batches++;
+    }
+
+    /**
+     * Ends a batch, making its changes durable once the outermost batch ends.
+     */
+    public void endBatch() {
+        Scope scope = scopes.get();
+        scope.batches--;
+        commit(scope);
+    }
+
+    private Scope open(Scope scope) {
+        if (!scope.isOpen()) {
+            scope.startSequence = appendedSequence;
+        }
+        return scope;
+    }
+
+    // Once the thread's outermost scope ends: syncs if anything was appended since it began
+    private void commit(Scope scope) {
+        if (scope.isOpen()) {
+            return;
+        }
+        if (durability == Durability.ASYNC) {
+            checkFailure();
+        } else if (durability == Durability.GROUP_COMMIT && appendedSequence != scope.startSequence) {
+            // Waits for everything appended so far, which covers batch records appended on other threads
+            sync(appendedSequence);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Journal is unavailable after a write failure", failure);
+        }
+    }
+
+    // A failure stops background flushing; it is rethrown by the next change and by close()
+    private void flushInBackground() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            sync(appendedSequence);
+        } catch (RuntimeException e) {
+            if (failure == null) {
+                failure = new IOException("Background journal flush failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        RecordBuilder record = builders.get().start(STUDENT_ADDED);
+        record.putString(student.getId());
+        record.putString(student.getRegNo());
+        record.putString(student.getFullName());
+        record.putString(student.getEmail());
+        record.putBoolean(student.isActive());
+        record.putDouble(student.getGpa());
+        record.putDate(student.getDateCreated());
+        append(record);
+    }
+
+    @Override
+    public void studentUpdated(Student student) {
+        RecordBuilder record = builders.get().start(STUDENT_UPDATED);
+        record.putString(student.getId());
+        record.putString(student.getFullName());
+        record.putString(student.getEmail());
+        record.putBoolean(student.isActive());
+        append(record);
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        RecordBuilder record = builders.get().start(COURSE_ADDED);
+        record.putString(course.getCode());
+        record.putString(course.getTitle());
+        record.putInt(course.getCredits());
+        record.putString(course.getInstructorId());
+        record.putByte((byte) course.getSemester().ordinal());
+        record.putString(course.getDepartment());
+        record.putBoolean(course.isActive());
+        record.putInt(course.getCapacity());
+        append(record);
+    }
+
+    @Override
+    public void instructorAdded(Instructor instructor) {
+        RecordBuilder record = builders.get().start(INSTRUCTOR_ADDED);
+        record.putString(instructor.getId());
+        record.putString(instructor.getEmployeeId());
+        record.putString(instructor.getFullName());
+        record.putString(instructor.getEmail());
+        record.putString(instructor.getDepartment());
+        record.putBoolean(instructor.isActive());
+        record.putDate(instructor.getDateCreated());
+        append(record);
+    }
+
+    @Override
+    public void enrolled(Enrollment enrollment, int credits) {
+        RecordBuilder record = builders.get().start(ENROLLED);
+        record.putString(enrollment.getStudentId());
+        record.putString(enrollment.getCourseCode());
+        record.putDate(enrollment.getEnrollmentDate());
+        record.putBoolean(enrollment.isActive());
+        record.putByte(enrollment.getGrade() != null ? (byte) enrollment.getGrade().ordinal() : (byte) -1);
+        record.putDouble(enrollment.getMarks());
+        record.putInt(credits);
+        append(record);
+    }
+
+    @Override
+    public void unenrolled(String studentId, String courseCode) {
+        RecordBuilder record = builders.get().start(UNENROLLED);
+        record.putString(studentId);
+        record.putString(courseCode);
+        append(record);
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseCode, double marks) {
+        RecordBuilder record = builders.get().start(GRADE_RECORDED);
+        record.putString(studentId);
+        record.putString(courseCode);
+        record.putDouble(marks);
+        append(record);
+    }
+
+    private void append(RecordBuilder record) {
+        checkFailure();
+        ByteBuffer bytes = record.buffer;
+        int size = bytes.position();
+        if (size - SEQUENCE_OFFSET > MAX_RECORD_SIZE) {
+            throw new IllegalStateException("Journal record too large: " + size + " bytes");
+        }
+        boolean flushNow;
+        long appended;
+        synchronized (appendLock) {
+            appended = ++sequence;
+            bytes.putLong(SEQUENCE_OFFSET, appended);
+            crc.reset();
+            crc.update(bytes.array(), SEQUENCE_OFFSET, size - SEQUENCE_OFFSET);
+            bytes.putInt(0, size - SEQUENCE_OFFSET);
+            bytes.putInt(4, (int) crc.getValue());
+
+            if (pending.remaining() < size) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            pending.put(bytes.array(), 0, size);
+            appendedSequence = appended;
+
+            if (durability == Durability.FSYNC) {
+                // Nothing else is ever pending in this mode, so writing here keeps records in order
+                writeAndForce(pending, appended);
+                return;
+            }
+            flushNow = pending.position() >= MAX_PENDING_BYTES;
+        }
+        if (flushNow) {
+            sync(appended);
+        }
+    }
+
+    // Group commit: the first caller in becomes the leader and forces everything pending
+    private void sync(long upTo) {
+        if (durableSequence >= upTo) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (durableSequence >= upTo) {
+                return;
+            }
+            ByteBuffer batch;
+            long batchEnd;
+            synchronized (appendLock) {
+                batch = pending;
+                pending = spare;
+                batchEnd = appendedSequence;
+            }
+            try {
+                writeAndForce(batch, batchEnd);
+            } finally {
+                spare = batch;
+            }
+        }
+    }
+
+    private void writeAndForce(ByteBuffer batch, long batchEnd) {
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+            // Store changes are made before their records are appended, so this covers the batch
+            service.forceEnrollmentStore();
+            durableSequence = batchEnd;
+        } catch (IOException e) {
+            failure = e;
+            throw new IllegalStateException("Journal write failed", e);
+        } catch (UncheckedIOException e) {
+            failure = e.getCause();
+            throw new IllegalStateException("Enrollment store write failed", e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.removeMutationListener(this);
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                // A flush still running must not race the channel close below
+                flusher.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (failure == null) {
+                sync(appendedSequence);
+            }
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("Journal closed after a write failure; recent changes may not be durable", failure);
+        }
+    }
+
+    private static Replay replay(FileChannel channel, StudentService service, long snapshotSequence)
+            throws IOException {
+        Replay replay = new Replay();
+        // Not closed: closing the stream would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), 64 * 1024));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a CCRM journal file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version: " + version);
+        }
+        replay.validLength = HEADER_SIZE;
+
+        CRC32C checksum = new CRC32C();
+        byte[] body = new byte[256];
+        while (true) {
+            int length;
+            int expectedCrc;
+            try {
+                length = in.readInt();
+                expectedCrc = in.readInt();
+                if (length <= TYPE_OFFSET - SEQUENCE_OFFSET || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                in.readFully(body, 0, length);
+            } catch (EOFException e) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(body, 0, length);
+            if ((int) checksum.getValue() != expectedCrc) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(body, 0, length);
+            long recordSequence = record.getLong();
+            if (recordSequence > snapshotSequence) {
+                try {
+                    apply(service, record.get(), record);
+                } catch (RuntimeException e) {
+                    throw new IOException("Journal replay failed at sequence " + recordSequence
+                            + ": " + e.getMessage(), e);
+                }
+                replay.applied++;
+            }
+            replay.lastSequence = recordSequence;
+            replay.validLength += 8 + length;
+        }
+        return replay;
+    }
+
+    private static void apply(StudentService service, byte type, ByteBuffer record) throws IOException {
+        switch (type) {
+            case STUDENT_ADDED: {
+                Student student = new Student(getString(record), getString(record), getString(record), getString(record));
+                student.setActive(record.get() != 0);
+                student.setGpa(record.getDouble());
+                student.setDateCreated(LocalDate.ofEpochDay(record.getInt()));
+                service.addStudent(student);
+                break;
+            }
+            case STUDENT_UPDATED:
+                service.updateStudent(getString(record), getString(record), getString(record), record.get() != 0);
+                break;
+            case COURSE_ADDED:
+                service.addCourse(new Course.Builder()
+                        .code(getString(record))
+                        .title(getString(record))
+                        .credits(record.getInt())
+                        .instructorId(getString(record))
+                        .semester(Semester.values()[record.get()])
+                        .department(getString(record))
+                        .active(record.get() != 0)
+                        .capacity(record.getInt())
+                        .build());
+                break;
+            case INSTRUCTOR_ADDED: {
+                Instructor instructor = new Instructor(getString(record), getString(record), getString(record),
+                                                       getString(record), getString(record));
+                instructor.setActive(record.get() != 0);
+                instructor.setDateCreated(LocalDate.ofEpochDay(record.getInt()));
+                service.addInstructor(instructor);
+                break;
+            }
+            case ENROLLED: {
+                Enrollment enrollment = new Enrollment(getString(record), getString(record));
+                enrollment.setEnrollmentDate(LocalDate.ofEpochDay(record.getInt()));
+                enrollment.setActive(record.get() != 0);
+                byte grade = record.get();
+                enrollment.setGrade(grade >= 0 ? Grade.values()[grade] : null);
+                enrollment.setMarks(record.getDouble());
+                service.restoreEnrollment(enrollment, record.getInt());
+                break;
+            }
+            case UNENROLLED:
+                service.unenrollStudent(getString(record), getString(record));
+                break;
+            case GRADE_RECORDED:
+                service.recordGrade(getString(record), getString(record), record.getDouble());
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+                                  StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    private static class Replay {
+        long validLength;
+        long lastSequence;
+        long applied;
+    }
+
+    /**
+     * Per-thread buffer a record is encoded into before it is appended
+     */
+    private static class RecordBuilder {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+
+        RecordBuilder start(byte type) {
+            buffer.clear();
+            buffer.position(TYPE_OFFSET);
+            buffer.put(type);
+            return this;
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putBoolean(boolean value) {
+            putByte(value ? (byte) 1 : (byte) 0);
+        }
+
+        void putDouble(double value) {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        void putDate(LocalDate date) {
+            putInt((int) date.toEpochDay());
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+}
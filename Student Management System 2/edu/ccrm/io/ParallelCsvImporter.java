@@ -0,0 +1,262 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel import of large CSV files
+ * Splits the file into byte ranges aligned to record boundaries, memory-maps each range and
+ * parses the ranges on the common fork-join pool, a bounded number ahead of the calling
+ * thread. That thread applies the chunks in file order as they finish, each reduced to the
+ * last row per key, so for duplicate keys the last row in the file wins, exactly as a
+ * sequential import would. Heap use is bounded by the chunks in flight, not the file size.
+ */
+class ParallelCsvImporter {
+    // Below this size a sequential import is faster than splitting the file
+    static final long MIN_PARALLEL_SIZE = 4L * 1024 * 1024;
+    // Bounds the rows held per chunk; also well under the 2 GB limit of one MappedByteBuffer
+    private static final long MAX_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final int CHUNKS_PER_CORE = 4;
+    private static final int CHUNKS_IN_FLIGHT_PER_CORE = 2;
+
+    /**
+     * A parsed chunk: its rows, last per key, and the error that ended parsing early, if any
+     */
+    private static class ParsedChunk<T> {
+        final List<T> rows;
+        final RuntimeException error;
+
+        ParsedChunk(List<T> rows, RuntimeException error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    interface ColumnResolver<C> {
+        C resolve(CsvReader header) throws IOException;
+    }
+
+    interface RowParser<C, T> {
+        T parse(CsvReader reader, C columns);
+    }
+
+    private ParallelCsvImporter() {
+    }
+
+    /**
+     * Imports the file in parallel and hands the winning rows to the sink on the calling
+     * thread, in file order chunk by chunk. Returns false without applying anything when the
+     * file is too small to split, is gzip-compressed, or a quoted field spans a chunk
+     * boundary; the caller should then fall back to a sequential import.
+     *
+     * A malformed row is thrown once every row before it has been applied, and nothing after
+     * it is, as in the sequential import.
+     */
+    static <C, T> boolean importFile(Path filePath, ColumnResolver<C> resolver, RowParser<C, T> parser,
+                                     Function<T, String> key, Consumer<T> sink) throws IOException {
+        if (CsvReader.isGzip(filePath)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MIN_PARALLEL_SIZE) {
+                return false;
+            }
+
+            long dataStart = nextLineStart(channel, 0, size);
+            C columns = resolveHeader(channel, dataStart, resolver);
+            long[] bounds = chunkBounds(channel, dataStart, size);
+            int chunkCount = bounds.length - 1;
+
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]);
+            }
+
+            // A chunk that starts after an odd number of quotes would start inside a quoted field
+            long[][] counts = new long[chunkCount][];
+            IntStream.range(0, chunkCount).parallel()
+                    .forEach(i -> counts[i] = countQuotesAndLines(chunks[i].duplicate()));
+            int[] firstLines = new int[chunkCount];
+            long quotes = 0;
+            long lines = 2; // the header is line 1
+            for (int i = 0; i < chunkCount; i++) {
+                if ((quotes & 1) != 0) {
+                    return false;
+                }
+                firstLines[i] = (int) Math.min(lines, Integer.MAX_VALUE);
+                quotes += counts[i][0];
+                lines += counts[i][1];
+            }
+
+            int window = Math.max(2, Runtime.getRuntime().availableProcessors() * CHUNKS_IN_FLIGHT_PER_CORE);
+            Deque<CompletableFuture<ParsedChunk<T>>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            for (int applied = 0; applied < chunkCount; applied++) {
+                while (next < chunkCount && inFlight.size() < window) {
+                    MappedByteBuffer chunk = chunks[next];
+                    int firstLine = firstLines[next];
+                    inFlight.addLast(CompletableFuture.supplyAsync(
+                            () -> parseChunk(chunk, firstLine, columns, parser, key)));
+                    next++;
+                }
+                // Applying in file order lets a later chunk's row replace an earlier one's
+                ParsedChunk<T> parsed = inFlight.removeFirst().join();
+                for (T row : parsed.rows) {
+                    sink.accept(row);
+                }
+                if (parsed.error != null) {
+                    throw parsed.error;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static <C> C resolveHeader(FileChannel channel, long headerEnd, ColumnResolver<C> resolver)
+            throws IOException {
+        ByteBuffer headerBytes = ByteBuffer.allocate((int) Math.min(headerEnd, Integer.MAX_VALUE));
+        channel.read(headerBytes, 0);
+        headerBytes.flip();
+        CsvReader header = new CsvReader(new InputStreamReader(
+                new ByteBufferInputStream(headerBytes), StandardCharsets.UTF_8));
+        if (!header.readHeader()) {
+            throw new IOException("Missing CSV header");
+        }
+        return resolver.resolve(header);
+    }
+
+    private static long[] chunkBounds(FileChannel channel, long dataStart, long size) throws IOException {
+        long dataSize = size - dataStart;
+        int cores = Runtime.getRuntime().availableProcessors();
+        long chunkCount = Math.max((long) cores * CHUNKS_PER_CORE, (dataSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long chunkSize = Math.max(1, dataSize / chunkCount);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(dataStart);
+        long last = dataStart;
+        for (long target = dataStart + chunkSize; target < size; target += chunkSize) {
+            long boundary = nextLineStart(channel, Math.max(target, last), size);
+            if (boundary > last && boundary < size) {
+                bounds.add(boundary);
+                last = boundary;
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Position just after the next '\n' at or after from, or size if there is none
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // UTF-8 continuation bytes never equal '"' or '\n', so counting raw bytes is safe
+    private static long[] countQuotesAndLines(ByteBuffer buffer) {
+        long quotes = 0;
+        long lines = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '"') {
+                quotes++;
+            } else if (b == '\n') {
+                lines++;
+            }
+        }
+        return new long[] {quotes, lines};
+    }
+
+    // Parses up to the first bad row, then keeps only the last row per key, in file order
+    private static <C, T> ParsedChunk<T> parseChunk(ByteBuffer chunk, int firstLine, C columns,
+                                                    RowParser<C, T> parser, Function<T, String> key) {
+        List<T> rows = new ArrayList<>();
+        RuntimeException error = null;
+        CsvReader reader = new CsvReader(new InputStreamReader(
+                new ByteBufferInputStream(chunk.duplicate()), StandardCharsets.UTF_8));
+        reader.setFirstLineNumber(firstLine);
+        try {
+            while (reader.next()) {
+                if (!reader.isBlank()) {
+                    rows.add(parser.parse(reader, columns));
+                }
+            }
+        } catch (IOException e) {
+            error = new IllegalStateException("Error reading mapped chunk", e);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+
+        Map<String, Integer> lastRows = new HashMap<>();
+        for (int row = 0; row < rows.size(); row++) {
+            lastRows.put(key.apply(rows.get(row)), row);
+        }
+        if (lastRows.size() == rows.size()) {
+            return new ParsedChunk<>(rows, error);
+        }
+        List<T> winners = new ArrayList<>(lastRows.size());
+        for (int row = 0; row < rows.size(); row++) {
+            if (lastRows.get(key.apply(rows.get(row))) == row) {
+                winners.add(rows.get(row));
+            }
+        }
+        return new ParsedChunk<>(winners, error);
+    }
+
+    /**
+     * InputStream view of a ByteBuffer, so a mapped chunk can feed a CsvReader
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
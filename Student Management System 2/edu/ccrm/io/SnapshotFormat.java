@@ -0,0 +1,46 @@
+package edu.ccrm.io;
+
+/**
+ * Constants for the versioned binary snapshot format
+ *
+ * Layout (big-endian):
+ *   header:  int magic "CCRM", int version, long offset of the string table
+ *   section: byte tag, int record count, then records
+ *   record:  int payload length, payload
+ *   strings: byte tag, int count, then (int length, UTF-8 bytes) per string
+ *
+ * Sections appear as meta, courses, instructors, students; the string table comes last.
+ * Every record is length-prefixed, so readers skip fields appended by newer versions.
+ * String references are indexes into the string table, -1 for null.
+ *
+ * Meta:       long last MutationJournal sequence contained in the snapshot (0 if none)
+ * Course:     ref code, str title, int credits, ref instructorId, byte semester,
+ *             ref department, byte active, int capacity
+ * Instructor: ref id, str employeeId, str fullName, str email, ref department,
+ *             byte active, int dateCreated (epoch day)
+ * Student:    str id, str regNo, str fullName, str email, byte active, double gpa,
+ *             int dateCreated, int enrollment count, then per enrollment:
+ *             ref courseCode, int date (epoch day), byte flags, byte grade (-1 if none),
+ *             double marks, short charged credits
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x4343524D; // "CCRM"
+    static final int VERSION = 1;
+    static final long TABLE_OFFSET_POSITION = 8;
+    static final int HEADER_SIZE = 16;
+
+    static final byte SECTION_COURSES = 1;
+    static final byte SECTION_INSTRUCTORS = 2;
+    static final byte SECTION_STUDENTS = 3;
+    static final byte SECTION_STRINGS = 4;
+    static final byte SECTION_META = 5;
+
+    static final byte FLAG_ACTIVE = 1;
+    static final byte FLAG_GRADED = 2;
+    static final int ENROLLMENT_SIZE = 4 + 4 + 1 + 1 + 8 + 2;
+
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,204 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Reads the binary snapshot format described in SnapshotFormat
+ * The file is memory-mapped in windows of up to 1 GB (a single mapping cannot exceed 2 GB),
+ * and each record is decoded from a slice of its own length, so fields appended by newer
+ * writers are skipped. Unknown sections are skipped as well.
+ */
+class SnapshotReader implements Closeable {
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private String[] strings;
+
+    SnapshotReader(Path filePath) throws IOException {
+        this.channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    /**
+     * Loads the snapshot into the service and returns the journal sequence stored with it.
+     */
+    long read(StudentService service) throws IOException {
+        long journalSequence = 0;
+        long tableOffset = readHeader();
+        readStringTable(tableOffset);
+
+        position = SnapshotFormat.HEADER_SIZE;
+        while (position < tableOffset) {
+            ByteBuffer section = slice(5);
+            byte tag = section.get();
+            int count = section.getInt();
+            for (int i = 0; i < count; i++) {
+                int length = slice(4).getInt();
+                ByteBuffer record = slice(length);
+                switch (tag) {
+                    case SnapshotFormat.SECTION_META:
+                        journalSequence = record.getLong();
+                        break;
+                    case SnapshotFormat.SECTION_COURSES:
+                        service.addCourse(readCourse(record));
+                        break;
+                    case SnapshotFormat.SECTION_INSTRUCTORS:
+                        service.addInstructor(readInstructor(record));
+                        break;
+                    case SnapshotFormat.SECTION_STUDENTS:
+                        readStudent(service, record);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return journalSequence;
+    }
+
+    private long readHeader() throws IOException {
+        if (size < SnapshotFormat.HEADER_SIZE) {
+            throw new IOException("Snapshot file is truncated");
+        }
+        position = 0;
+        ByteBuffer header = slice(SnapshotFormat.HEADER_SIZE);
+        if (header.getInt() != SnapshotFormat.MAGIC) {
+            throw new IOException("Not a CCRM snapshot file");
+        }
+        int version = header.getInt();
+        if (version != SnapshotFormat.VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        long tableOffset = header.getLong();
+        if (tableOffset < SnapshotFormat.HEADER_SIZE || tableOffset >= size) {
+            throw new IOException("Snapshot file is incomplete");
+        }
+        return tableOffset;
+    }
+
+    private void readStringTable(long tableOffset) throws IOException {
+        position = tableOffset;
+        ByteBuffer section = slice(5);
+        if (section.get() != SnapshotFormat.SECTION_STRINGS) {
+            throw new IOException("Snapshot string table not found");
+        }
+        strings = new String[section.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = slice(4).getInt();
+            strings[i] = decode(slice(length), length);
+        }
+    }
+
+    private Course readCourse(ByteBuffer record) {
+        return new Course.Builder()
+                .code(getStringRef(record))
+                .title(getString(record))
+                .credits(record.getInt())
+                .instructorId(getStringRef(record))
+                .semester(Semester.values()[record.get()])
+                .department(getStringRef(record))
+                .active(record.get() != 0)
+                .capacity(record.getInt())
+                .build();
+    }
+
+    private Instructor readInstructor(ByteBuffer record) {
+        String id = getStringRef(record);
+        String employeeId = getString(record);
+        String fullName = getString(record);
+        String email = getString(record);
+        Instructor instructor = new Instructor(id, employeeId, fullName, email, getStringRef(record));
+        instructor.setActive(record.get() != 0);
+        instructor.setDateCreated(LocalDate.ofEpochDay(record.getInt()));
+        return instructor;
+    }
+
+    private void readStudent(StudentService service, ByteBuffer record) {
+        Student student = new Student(getString(record), getString(record), getString(record), getString(record));
+        student.setActive(record.get() != 0);
+        student.setGpa(record.getDouble());
+        student.setDateCreated(LocalDate.ofEpochDay(record.getInt()));
+        service.addStudent(student);
+
+        int count = record.getInt();
+        for (int i = 0; i < count; i++) {
+            Enrollment enrollment = new Enrollment(student.getId(), strings[record.getInt()]);
+            enrollment.setEnrollmentDate(LocalDate.ofEpochDay(record.getInt()));
+            byte flags = record.get();
+            byte grade = record.get();
+            enrollment.setMarks(record.getDouble());
+            int credits = record.getShort();
+            if ((flags & SnapshotFormat.FLAG_GRADED) != 0) {
+                enrollment.setGrade(Grade.values()[grade]);
+            }
+            enrollment.setActive((flags & SnapshotFormat.FLAG_ACTIVE) != 0);
+            service.restoreEnrollment(enrollment, credits);
+        }
+    }
+
+    private String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer bytes = record.slice();
+        bytes.limit(length);
+        record.position(record.position() + length);
+        return decode(bytes, length);
+    }
+
+    private String getStringRef(ByteBuffer record) {
+        int id = record.getInt();
+        return id < 0 ? null : strings[id];
+    }
+
+    private static String decode(ByteBuffer bytes, int length) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), length, StandardCharsets.UTF_8);
+        }
+        byte[] copy = new byte[length];
+        bytes.get(copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    // Returns the next length bytes as a buffer, remapping the window when they fall outside it
+    private ByteBuffer slice(int length) throws IOException {
+        if (length < 0 || position + length > size) {
+            throw new IOException("Snapshot file is truncated at offset " + position);
+        }
+        if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+        }
+        ByteBuffer slice = window.duplicate();
+        slice.position((int) (position - windowStart));
+        slice.limit(slice.position() + length);
+        position += length;
+        return slice.slice();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,232 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the binary snapshot format described in SnapshotFormat
+ * Records are built in a reusable buffer, then written length-prefixed through a
+ * direct output buffer. Repeated strings (codes, instructor IDs, departments) go into
+ * a string table written at the end of the file.
+ */
+class SnapshotWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer out;
+    private ByteBuffer record;
+    private final Map<String, Integer> stringIds;
+    private final List<String> strings;
+
+    SnapshotWriter(Path filePath) throws IOException {
+        this.channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = ByteBuffer.allocateDirect(SnapshotFormat.BUFFER_SIZE);
+        this.record = ByteBuffer.allocate(4096);
+        this.stringIds = new HashMap<>();
+        this.strings = new ArrayList<>();
+    }
+
+    void write(StudentService service, long journalSequence) throws IOException {
+        out.putInt(SnapshotFormat.MAGIC);
+        out.putInt(SnapshotFormat.VERSION);
+        out.putLong(0L); // string table offset, patched in finish()
+
+        beginSection(SnapshotFormat.SECTION_META, 1);
+        record.clear();
+        record.putLong(journalSequence);
+        endRecord();
+
+        // Sections are written from copies so record counts match under concurrent updates
+        List<Course> courses = service.getAllCourses();
+        beginSection(SnapshotFormat.SECTION_COURSES, courses.size());
+        for (Course course : courses) {
+            writeCourse(course);
+        }
+
+        List<Instructor> instructors = service.getAllInstructors();
+        beginSection(SnapshotFormat.SECTION_INSTRUCTORS, instructors.size());
+        for (Instructor instructor : instructors) {
+            writeInstructor(instructor);
+        }
+
+        List<Student> students = service.getAllStudents();
+        beginSection(SnapshotFormat.SECTION_STUDENTS, students.size());
+        for (Student student : students) {
+            writeStudent(service, student);
+        }
+
+        finish();
+    }
+
+    private void writeCourse(Course course) throws IOException {
+        record.clear();
+        putStringRef(course.getCode());
+        putString(course.getTitle());
+        record.putInt(course.getCredits());
+        putStringRef(course.getInstructorId());
+        record.put((byte) course.getSemester().ordinal());
+        putStringRef(course.getDepartment());
+        record.put(course.isActive() ? (byte) 1 : (byte) 0);
+        record.putInt(course.getCapacity());
+        endRecord();
+    }
+
+    private void writeInstructor(Instructor instructor) throws IOException {
+        record.clear();
+        putStringRef(instructor.getId());
+        putString(instructor.getEmployeeId());
+        putString(instructor.getFullName());
+        putString(instructor.getEmail());
+        putStringRef(instructor.getDepartment());
+        record.put(instructor.isActive() ? (byte) 1 : (byte) 0);
+        record.putInt((int) instructor.getDateCreated().toEpochDay());
+        endRecord();
+    }
+
+    private void writeStudent(StudentService service, Student student) throws IOException {
+        record.clear();
+        putString(student.getId());
+        putString(student.getRegNo());
+        putString(student.getFullName());
+        putString(student.getEmail());
+        record.put(student.isActive() ? (byte) 1 : (byte) 0);
+        record.putDouble(student.getGpa());
+        record.putInt((int) student.getDateCreated().toEpochDay());
+
+        int countPosition = record.position();
+        record.putInt(0);
+        int[] count = new int[1];
+        service.forEachEnrollment(student.getId(), (enrollment, credits) -> {
+            ensureCapacity(SnapshotFormat.ENROLLMENT_SIZE);
+            record.putInt(stringId(enrollment.getCourseCode()));
+            record.putInt((int) enrollment.getEnrollmentDate().toEpochDay());
+            byte flags = 0;
+            if (enrollment.isActive()) flags |= SnapshotFormat.FLAG_ACTIVE;
+            if (enrollment.getGrade() != null) flags |= SnapshotFormat.FLAG_GRADED;
+            record.put(flags);
+            record.put(enrollment.getGrade() != null ? (byte) enrollment.getGrade().ordinal() : (byte) -1);
+            record.putDouble(enrollment.getMarks());
+            record.putShort((short) credits);
+            count[0]++;
+        });
+        record.putInt(countPosition, count[0]);
+        endRecord();
+    }
+
+    private void beginSection(byte tag, int count) throws IOException {
+        ensureOut(5);
+        out.put(tag);
+        out.putInt(count);
+    }
+
+    private void endRecord() throws IOException {
+        record.flip();
+        ensureOut(4);
+        out.putInt(record.remaining());
+        while (record.hasRemaining()) {
+            if (!out.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(out.remaining(), record.remaining());
+            ByteBuffer slice = record.duplicate();
+            slice.limit(slice.position() + n);
+            out.put(slice);
+            record.position(record.position() + n);
+        }
+    }
+
+    // The string table goes last so strings can be interned in a single pass
+    private void finish() throws IOException {
+        flush();
+        long tableOffset = channel.position();
+        beginSection(SnapshotFormat.SECTION_STRINGS, strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensureOut(4);
+            out.putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!out.hasRemaining()) {
+                    flush();
+                }
+                int n = Math.min(out.remaining(), bytes.length - offset);
+                out.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+        flush();
+
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putLong(tableOffset).flip();
+        channel.write(header, SnapshotFormat.TABLE_OFFSET_POSITION);
+        channel.force(true);
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureCapacity(4);
+            record.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4 + bytes.length);
+        record.putInt(bytes.length);
+        record.put(bytes);
+    }
+
+    private void putStringRef(String value) {
+        ensureCapacity(4);
+        record.putInt(value == null ? -1 : stringId(value));
+    }
+
+    private int stringId(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (record.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+    }
+
+    private void ensureOut(int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
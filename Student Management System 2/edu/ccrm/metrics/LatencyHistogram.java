@@ -0,0 +1,125 @@
+package edu.ccrm.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram
+ * Values below 32 get a bucket each; above that, every power of two is split into 32
+ * sub-buckets, so any recorded value is known to within about 3%. Recording is one atomic
+ * increment; count, mean, max and percentiles are derived from the buckets when read.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long value) {
+        counts.incrementAndGet(bucketOf(Math.max(0, value)));
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        return (long) ((bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+    }
+
+    static long highestValueOf(int bucket) {
+        return bucket + 1 < BUCKETS ? lowestValueOf(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Copies the counts, so figures read from one snapshot are consistent with each other.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Point-in-time view of a histogram
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Mean, taking each value as the midpoint of its bucket.
+         */
+        public double getMean() {
+            if (count == 0) {
+                return 0;
+            }
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    sum += counts[i] * ((lowestValueOf(i) + (double) highestValueOf(i)) / 2);
+                }
+            }
+            return sum / count;
+        }
+
+        /**
+         * Upper bound of the highest non-empty bucket.
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return highestValueOf(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Smallest bucket upper bound that at least the given percentage of values fall under.
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueOf(i);
+                }
+            }
+            return getMax();
+        }
+    }
+}
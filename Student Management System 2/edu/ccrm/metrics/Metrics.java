@@ -0,0 +1,159 @@
+package edu.ccrm.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of operation metrics
+ * Services look up their OperationMetrics once, by name, and record into them on every
+ * call. Hot-path operations time a sample of HOT_PATH_SAMPLING calls; bulk operations time
+ * them all. Metrics are on by default; -Dccrm.metrics=false or setEnabled(false) turns
+ * recording off. Once registerMBeans() has been called every operation, including ones
+ * created later, is also visible over JMX as edu.ccrm:type=Operation,name=...
+ */
+public class Metrics {
+    public static final String JMX_DOMAIN = "edu.ccrm";
+    // Two clock reads cost about as much as a cheap operation, so hot paths time 1 call in 32
+    public static final int HOT_PATH_SAMPLING = 32;
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final Map<String, OperationMetrics> operations;
+    private volatile boolean enabled;
+    private MBeanServer mbeanServer;
+
+    private Metrics() {
+        this.operations = new ConcurrentSkipListMap<>();
+        this.enabled = Boolean.parseBoolean(System.getProperty("ccrm.metrics", "true"));
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * The metrics of the named operation, timing every call; created on first use.
+     */
+    public OperationMetrics operation(String name) {
+        return operation(name, 1);
+    }
+
+    /**
+     * The metrics of the named operation, timing a random 1 in sampleEvery calls (a power
+     * of two). The first lookup of a name fixes its sampling.
+     */
+    public OperationMetrics operation(String name, int sampleEvery) {
+        OperationMetrics existing = operations.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            return operations.computeIfAbsent(name, k -> {
+                OperationMetrics created = new OperationMetrics(k, this, sampleEvery);
+                if (mbeanServer != null) {
+                    register(created);
+                }
+                return created;
+            });
+        }
+    }
+
+    /**
+     * All operations, by name.
+     */
+    public List<OperationMetrics> getOperations() {
+        return new ArrayList<>(operations.values());
+    }
+
+    public void reset() {
+        for (OperationMetrics operation : operations.values()) {
+            operation.reset();
+        }
+    }
+
+    /**
+     * Registers every operation with the platform MBean server. Safe to call more than once.
+     */
+    public synchronized void registerMBeans() {
+        if (mbeanServer != null) {
+            return;
+        }
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (OperationMetrics operation : operations.values()) {
+            register(operation);
+        }
+    }
+
+    private void register(OperationMetrics operation) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + ObjectName.quote(operation.getName()));
+            if (!mbeanServer.isRegistered(name)) {
+                mbeanServer.registerMBean(operation, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register metrics for " + operation.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Text table of every operation that has been called; times in microseconds.
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-50s %10s %9s %10s %10s %10s %10s %12s%n",
+                "Operation", "Calls", "Rejected", "Mean us", "p50 us", "p99 us", "Max us", "Rows/s"));
+        List<OperationMetrics> rejected = new ArrayList<>();
+        for (OperationMetrics operation : operations.values()) {
+            long calls = operation.getCalls();
+            if (calls == 0) {
+                continue;
+            }
+            LatencyHistogram.Snapshot latency = operation.getLatency();
+            long rejections = operation.getRejections();
+            boolean timed = latency.getCount() > 0;
+            out.append(String.format(Locale.ROOT, "%-50s %10d %9d %10s %10s %10s %10s %12s%n",
+                    operation.getName(), calls, rejections,
+                    timed ? micros(latency.getMean()) : "-",
+                    timed ? micros(latency.valueAtPercentile(50)) : "-",
+                    timed ? micros(latency.valueAtPercentile(99)) : "-",
+                    timed ? micros(latency.getMax()) : "-",
+                    operation.getRows() == 0 ? "-" : String.format(Locale.ROOT, "%.0f", operation.getRowsPerSecond())));
+            if (rejections > 0) {
+                rejected.add(operation);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            out.append(String.format("%nRejections by type:%n"));
+            for (OperationMetrics operation : rejected) {
+                for (Map.Entry<String, Long> entry : operation.getRejectionsByType().entrySet()) {
+                    out.append(String.format(Locale.ROOT, "  %-50s %-36s %10d%n",
+                            operation.getName(), entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        out.append(String.format("%nLatencies of hot-path operations are sampled, 1 call in %d.%n", HOT_PATH_SAMPLING));
+        if (!enabled) {
+            out.append(String.format("%n(metrics are disabled)%n"));
+        }
+        return out.toString();
+    }
+
+    private static String micros(double nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000);
+    }
+}
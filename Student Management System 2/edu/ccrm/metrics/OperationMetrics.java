@@ -0,0 +1,169 @@
+package edu.ccrm.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, latency, rejections and row throughput of one operation
+ * Call start() on entry, then succeeded() or failed() with its result. When metrics are
+ * disabled start() returns at once and the other calls do nothing. Calls and rejections
+ * (by exception type) are counted exactly; successful calls are timed into a
+ * LatencyHistogram, either every call or a random 1 in sampleEvery, since reading the
+ * clock costs more than some hot-path operations themselves. Row counts reported by
+ * timed calls give rows per second over the time those calls took.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+    // start() results that are not clock readings; System.nanoTime() will not realistically produce them
+    private static final long NOT_COUNTED = Long.MIN_VALUE;
+    private static final long NOT_TIMED = Long.MIN_VALUE + 1;
+
+    private final String name;
+    private final Metrics metrics;
+    private final int sampleMask;
+    private final LongAdder calls;
+    private final LatencyHistogram latency;
+    private final Map<String, LongAdder> rejections;
+    private final LongAdder rows;
+    private final LongAdder rowNanos;
+
+    OperationMetrics(String name, Metrics metrics, int sampleEvery) {
+        if (Integer.bitCount(sampleEvery) != 1) {
+            throw new IllegalArgumentException("sampleEvery must be a power of two: " + sampleEvery);
+        }
+        this.name = name;
+        this.metrics = metrics;
+        this.sampleMask = sampleEvery - 1;
+        this.calls = new LongAdder();
+        this.latency = new LatencyHistogram();
+        this.rejections = new ConcurrentHashMap<>();
+        this.rows = new LongAdder();
+        this.rowNanos = new LongAdder();
+    }
+
+    public long start() {
+        if (!metrics.isEnabled()) {
+            return NOT_COUNTED;
+        }
+        calls.increment();
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    public void succeeded(long start) {
+        if (start > NOT_TIMED) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a successful call that processed the given number of rows.
+     */
+    public void succeeded(long start, long rowCount) {
+        if (start > NOT_TIMED) {
+            long elapsed = System.nanoTime() - start;
+            latency.record(elapsed);
+            rows.add(rowCount);
+            rowNanos.add(elapsed);
+        }
+    }
+
+    public void failed(long start, Throwable error) {
+        if (start != NOT_COUNTED) {
+            rejections.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Latencies of the timed successful calls.
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    public int getSampleEvery() {
+        return sampleMask + 1;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getRejections() {
+        long total = 0;
+        for (LongAdder count : rejections.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getRejectionsByType() {
+        Map<String, Long> byType = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : rejections.entrySet()) {
+            byType.put(entry.getKey(), entry.getValue().sum());
+        }
+        return byType;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.snapshot().getMean() / 1_000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.snapshot().valueAtPercentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.snapshot().valueAtPercentile(90) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.snapshot().valueAtPercentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.snapshot().valueAtPercentile(99.9) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.snapshot().getMax() / 1_000.0;
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        long nanos = rowNanos.sum();
+        return nanos == 0 ? 0 : rows.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        latency.reset();
+        rejections.clear();
+        rows.reset();
+        rowNanos.reset();
+    }
+}
@@ -0,0 +1,34 @@
+package edu.ccrm.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of one instrumented operation; times are in microseconds
+ */
+public interface OperationMetricsMXBean {
+    String getName();
+
+    long getCalls();
+
+    long getRejections();
+
+    Map<String, Long> getRejectionsByType();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    long getRows();
+
+    double getRowsPerSecond();
+
+    void reset();
+}
@@ -0,0 +1,69 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk operation: how many rows were applied and why the rest were rejected
+ * Rows are numbered from 1 in input order unless the caller supplies its own numbering
+ */
+public class BatchReport {
+    private int appliedRows;
+    private final List<RowError> errors;
+
+    public BatchReport() {
+        this.appliedRows = 0;
+        this.errors = new ArrayList<>();
+    }
+
+    public void addApplied() {
+        appliedRows++;
+    }
+
+    public void addApplied(int rows) {
+        appliedRows += rows;
+    }
+
+    public void addError(int row, String message) {
+        errors.add(new RowError(row, message));
+    }
+
+    public int getTotalRows() { return appliedRows + errors.size(); }
+    public int getAppliedRows() { return appliedRows; }
+    public int getRejectedRows() { return errors.size(); }
+    public boolean hasErrors() { return !errors.isEmpty(); }
+
+    public List<RowError> getErrors() {
+        List<RowError> sorted = new ArrayList<>(errors);
+        sorted.sort(Comparator.comparingInt(RowError::getRow));
+        return sorted;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchReport{total=%d, applied=%d, rejected=%d}", 
+                           getTotalRows(), appliedRows, errors.size());
+    }
+
+    /**
+     * A rejected row and the reason it was rejected
+     */
+    public static class RowError {
+        private final int row;
+        private final String message;
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Row " + row + ": " + message;
+        }
+    }
+}
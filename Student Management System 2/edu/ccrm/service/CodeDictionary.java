@@ -0,0 +1,78 @@
+package edu.ccrm.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned strings (course codes, student IDs) numbered densely from 0
+ * Ids are never reused, so an id stays valid for the life of the dictionary. Lookups in
+ * either direction are lock-free; assigning a new id takes the dictionary lock.
+ */
+class CodeDictionary {
+    static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> ids;
+    private volatile String[] codes;
+    private int size;
+
+    CodeDictionary() {
+        this.ids = new ConcurrentHashMap<>();
+        this.codes = new String[64];
+    }
+
+    /**
+     * The id of the code, assigning the next one if it is new.
+     */
+    int idOf(String code) {
+        Integer id = ids.get(code);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(code);
+            if (id != null) {
+                return id;
+            }
+            assigned(size, code);
+            String[] current = codes;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = code;
+            codes = current;
+            // Published after the array, so whoever finds the id can read the code back
+            ids.put(code, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Called under the dictionary lock before a new id is published, e.g. to persist it.
+     * If it throws, the id is not assigned.
+     */
+    void assigned(int id, String code) {
+    }
+
+    /**
+     * Number of ids assigned so far.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The id of the code, or NOT_FOUND if it has never been assigned one.
+     */
+    int find(Object code) {
+        Integer id = ids.get(code);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    /**
+     * The interned code for an id.
+     */
+    String codeOf(int id) {
+        return codes[id];
+    }
+}
@@ -0,0 +1,243 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.EnrolledCourses;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Enrollment ledger packed into primitive arrays
+ * The history is one int array with three ints per enrollment: the course id from the shared
+ * CodeDictionary, the enrollment date as an epoch day, and a PackedEnrollment state word.
+ * A second int array lists the history slots of the active enrollments in enrollment order;
+ * students have few of those, so lookups scan it.
+ * Enrollment objects handed out are copies built on read.
+ *
+ * Also serves as the student's enrolled course view. The view reads under the ledger monitor,
+ * which is the student's lock in StudentService, and leaves add and remove to the ledger.
+ */
+class CompactEnrollmentLedger extends EnrollmentLedger implements EnrolledCourses {
+    private static final int STRIDE = 3;
+    private static final int COURSE = 0;
+    private static final int DATE = 1;
+    private static final int STATE = 2;
+    private static final int[] NONE = new int[0];
+
+    private final String studentId;
+    private final CodeDictionary courseCodes;
+    private int[] entries;
+    private int count;
+    private int[] activeSlots;
+    private int activeCount;
+
+    CompactEnrollmentLedger(String studentId, CodeDictionary courseCodes) {
+        this.studentId = studentId;
+        this.courseCodes = courseCodes;
+        this.entries = NONE;
+        this.activeSlots = NONE;
+    }
+
+    @Override
+    void attach(Student student) {
+        student.setEnrolledCourseStore(this);
+    }
+
+    // Position in activeSlots of the active enrollment in the course, or -1
+    private int findActive(Object courseCode) {
+        int courseId = courseCodes.find(courseCode);
+        if (courseId == CodeDictionary.NOT_FOUND) {
+            return -1;
+        }
+        for (int i = 0; i < activeCount; i++) {
+            if (entries[activeSlots[i] * STRIDE + COURSE] == courseId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int stateOf(int slot) {
+        return entries[slot * STRIDE + STATE];
+    }
+
+    private String courseCodeOf(int slot) {
+        return courseCodes.codeOf(entries[slot * STRIDE + COURSE]);
+    }
+
+    private Enrollment view(int slot) {
+        int base = slot * STRIDE;
+        int state = entries[base + STATE];
+        return new Enrollment(studentId, courseCodes.codeOf(entries[base + COURSE]),
+                              LocalDate.ofEpochDay(entries[base + DATE]), PackedEnrollment.gradeOf(state),
+                              PackedEnrollment.marksOf(state), PackedEnrollment.isActive(state));
+    }
+
+    private int append(Enrollment enrollment, int credits) {
+        int state = PackedEnrollment.pack(enrollment, credits);
+        if ((count + 1) * STRIDE > entries.length) {
+            int capacity = Math.max(4, count + (count >> 1));
+            entries = Arrays.copyOf(entries, capacity * STRIDE);
+        }
+        int base = count * STRIDE;
+        entries[base + COURSE] = courseCodes.idOf(enrollment.getCourseCode());
+        entries[base + DATE] = (int) enrollment.getEnrollmentDate().toEpochDay();
+        entries[base + STATE] = state;
+        return count++;
+    }
+
+    @Override
+    boolean isActive(String courseCode) {
+        return findActive(courseCode) >= 0;
+    }
+
+    @Override
+    int getCreditsFor(String courseCode) {
+        int active = findActive(courseCode);
+        return active < 0 ? 0 : PackedEnrollment.creditsOf(stateOf(activeSlots[active]));
+    }
+
+    @Override
+    List<String> getActiveCourseCodes() {
+        return toList();
+    }
+
+    @Override
+    Collection<Enrollment> getActiveEnrollments() {
+        List<Enrollment> active = new ArrayList<>(activeCount);
+        for (int i = 0; i < activeCount; i++) {
+            active.add(view(activeSlots[i]));
+        }
+        return active;
+    }
+
+    @Override
+    List<Enrollment> getHistory() {
+        List<Enrollment> history = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            history.add(view(slot));
+        }
+        return history;
+    }
+
+    @Override
+    void forEachEnrollment(ObjIntConsumer<Enrollment> action) {
+        for (int slot = 0; slot < count; slot++) {
+            int state = stateOf(slot);
+            action.accept(view(slot), PackedEnrollment.isActive(state) ? PackedEnrollment.creditsOf(state) : 0);
+        }
+    }
+
+    @Override
+    void forEachActiveEnrollment(ObjIntConsumer<Enrollment> action) {
+        for (int i = 0; i < activeCount; i++) {
+            action.accept(view(activeSlots[i]), PackedEnrollment.creditsOf(stateOf(activeSlots[i])));
+        }
+    }
+
+    @Override
+    void add(Enrollment enrollment, int credits) {
+        int slot = append(enrollment, credits);
+        if (activeCount == activeSlots.length) {
+            activeSlots = Arrays.copyOf(activeSlots, Math.max(4, activeCount * 2));
+        }
+        activeSlots[activeCount++] = slot;
+        charge(credits);
+    }
+
+    @Override
+    void addInactive(Enrollment enrollment) {
+        append(enrollment, 0);
+    }
+
+    @Override
+    boolean recordGrade(String courseCode, double marks) {
+        int active = findActive(courseCode);
+        if (active < 0) {
+            return false;
+        }
+        int index = activeSlots[active] * STRIDE + STATE;
+        int state = entries[index];
+        Grade grade = Grade.fromPercentage(marks);
+        entries[index] = PackedEnrollment.withGrade(state, grade, marks);
+        regrade(PackedEnrollment.gradeOf(state), grade, PackedEnrollment.creditsOf(state));
+        return true;
+    }
+
+    @Override
+    boolean deactivate(String courseCode) {
+        int active = findActive(courseCode);
+        if (active < 0) {
+            return false;
+        }
+        int index = activeSlots[active] * STRIDE + STATE;
+        int state = entries[index];
+        entries[index] = PackedEnrollment.deactivated(state);
+        // Shift rather than swap, so the remaining enrollments keep their order
+        System.arraycopy(activeSlots, active + 1, activeSlots, active, activeCount - active - 1);
+        activeCount--;
+        release(PackedEnrollment.creditsOf(state), PackedEnrollment.gradeOf(state));
+        return true;
+    }
+
+    @Override
+    void clear() {
+        entries = NONE;
+        count = 0;
+        activeSlots = NONE;
+        activeCount = 0;
+        resetTotals();
+    }
+
+    // Enrolled course view
+
+    @Override
+    public void add(String courseCode) {
+        // Maintained by add and restore
+    }
+
+    @Override
+    public void remove(String courseCode) {
+        // Maintained by deactivate
+    }
+
+    @Override
+    public synchronized boolean contains(String courseCode) {
+        return findActive(courseCode) >= 0;
+    }
+
+    @Override
+    public synchronized boolean containsAny(Set<String> courseCodes) {
+        for (int i = 0; i < activeCount; i++) {
+            if (courseCodes.contains(courseCodeOf(activeSlots[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized int size() {
+        return activeCount;
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<String> action) {
+        for (int i = 0; i < activeCount; i++) {
+            action.accept(courseCodeOf(activeSlots[i]));
+        }
+    }
+
+    @Override
+    public synchronized List<String> toList() {
+        List<String> codes = new ArrayList<>(activeCount);
+        for (int i = 0; i < activeCount; i++) {
+            codes.add(courseCodeOf(activeSlots[i]));
+        }
+        return codes;
+    }
+}
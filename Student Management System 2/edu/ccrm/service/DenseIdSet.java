@@ -0,0 +1,159 @@
+package edu.ccrm.service;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Set of strings stored as their dense ids from a CodeDictionary, in an open-addressing
+ * int table: 5 to 11 bytes per member, depending on load, instead of a hash node each.
+ * Used for course rosters under compact enrollment storage.
+ *
+ * Thread-safe: updates and reads lock the set; iteration runs over a snapshot.
+ */
+class DenseIdSet extends AbstractSet<String> {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final CodeDictionary dictionary;
+    private int[] table;
+    private int size;
+
+    DenseIdSet(CodeDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.table = emptyTable(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public boolean add(String value) {
+        int id = dictionary.idOf(value);
+        synchronized (this) {
+            if (indexOf(id) >= 0) {
+                return false;
+            }
+            // Grow at 3/4 load
+            if ((size + 1) * 4 > table.length * 3) {
+                rehash(table.length * 2);
+            }
+            insert(table, id);
+            size++;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        int id = dictionary.find(value);
+        if (id == CodeDictionary.NOT_FOUND) {
+            return false;
+        }
+        synchronized (this) {
+            int index = indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+            deleteAt(index);
+            size--;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        int id = dictionary.find(value);
+        if (id == CodeDictionary.NOT_FOUND) {
+            return false;
+        }
+        synchronized (this) {
+            return indexOf(id) >= 0;
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        int[] ids;
+        synchronized (this) {
+            ids = new int[size];
+            int count = 0;
+            for (int id : table) {
+                if (id != EMPTY) {
+                    ids[count++] = id;
+                }
+            }
+        }
+        return new Iterator<String>() {
+            int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < ids.length;
+            }
+
+            @Override
+            public String next() {
+                return dictionary.codeOf(ids[next++]);
+            }
+        };
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] empty = new int[capacity];
+        Arrays.fill(empty, EMPTY);
+        return empty;
+    }
+
+    private static int slot(int id, int length) {
+        return (id * 0x9E3779B9 >>> 1) & (length - 1);
+    }
+
+    private int indexOf(int id) {
+        int mask = table.length - 1;
+        for (int i = slot(id, table.length); ; i = (i + 1) & mask) {
+            if (table[i] == id) {
+                return i;
+            }
+            if (table[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private static void insert(int[] target, int id) {
+        int mask = target.length - 1;
+        int i = slot(id, target.length);
+        while (target[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        target[i] = id;
+    }
+
+    // Backward-shift deletion keeps probe runs unbroken without tombstones
+    private void deleteAt(int index) {
+        int mask = table.length - 1;
+        int hole = index;
+        for (int i = (index + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(table[i], table.length);
+            // Move the entry into the hole unless its home lies cyclically in (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        int[] larger = emptyTable(capacity);
+        for (int id : table) {
+            if (id != EMPTY) {
+                insert(larger, id);
+            }
+        }
+        table = larger;
+    }
+}
@@ -0,0 +1,143 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Per-student enrollment bookkeeping used by StudentService
+ * Keeps the full enrollment history plus the active enrollments, looked up by course code
+ * so duplicate and credit checks do not depend on history length. Also keeps running
+ * totals: active credits, and grade points x credits and graded credits over active
+ * enrollments for the GPA. Subclasses decide how enrollments are laid out in memory.
+ *
+ * Not thread-safe on its own: StudentService uses each ledger as the lock for its student.
+ */
+abstract class EnrollmentLedger {
+    private int totalActiveCredits;
+    private double gradePoints;
+    private int gradedCredits;
+
+    /**
+     * Called when the student is (re)added with this ledger.
+     */
+    void attach(Student student) {
+    }
+
+    /**
+     * True while the ledger holds enrollments persisted by an earlier run, which startup
+     * recovery must leave as they are. See StudentService.finishStartupRecovery.
+     */
+    boolean isReopened() {
+        return false;
+    }
+
+    void markCurrent() {
+    }
+
+    abstract boolean isActive(String courseCode);
+
+    abstract int getCreditsFor(String courseCode);
+
+    /**
+     * A copy of the active course codes, in enrollment order.
+     */
+    abstract List<String> getActiveCourseCodes();
+
+    abstract Collection<Enrollment> getActiveEnrollments();
+
+    abstract List<Enrollment> getHistory();
+
+    /**
+     * Visits the history in enrollment order with the credits charged (0 once inactive).
+     */
+    abstract void forEachEnrollment(ObjIntConsumer<Enrollment> action);
+
+    /**
+     * Visits the active enrollments in enrollment order with the credits charged.
+     */
+    abstract void forEachActiveEnrollment(ObjIntConsumer<Enrollment> action);
+
+    /**
+     * Records a new active enrollment charged at the given credits.
+     * Credits are remembered so a later course edit cannot skew the running total.
+     */
+    abstract void add(Enrollment enrollment, int credits);
+
+    /**
+     * Appends an inactive enrollment to the history.
+     */
+    abstract void addInactive(Enrollment enrollment);
+
+    /**
+     * Records marks on the active enrollment in the course and moves the GPA totals by the
+     * difference between the old and new grade. Returns false if there is none.
+     */
+    abstract boolean recordGrade(String courseCode, double marks);
+
+    /**
+     * Ends the active enrollment in the course, keeping it in the history. Returns false if
+     * there is none.
+     */
+    abstract boolean deactivate(String courseCode);
+
+    abstract void clear();
+
+    int getActiveCredits() {
+        return totalActiveCredits;
+    }
+
+    double getGradePoints() {
+        return gradePoints;
+    }
+
+    int getGradedCredits() {
+        return gradedCredits;
+    }
+
+    /**
+     * Appends a persisted enrollment as-is. An active one counts towards the credit total and,
+     * when graded, towards the GPA totals; it replaces any active enrollment for the same course.
+     */
+    void restore(Enrollment enrollment, int credits) {
+        if (!enrollment.isActive()) {
+            addInactive(enrollment);
+            return;
+        }
+        deactivate(enrollment.getCourseCode());
+        add(enrollment, credits);
+        regrade(null, enrollment.getGrade(), credits);
+    }
+
+    // Running total updates for subclasses
+
+    void charge(int credits) {
+        totalActiveCredits += credits;
+    }
+
+    void release(int credits, Grade grade) {
+        totalActiveCredits -= credits;
+        regrade(grade, null, credits);
+    }
+
+    void regrade(Grade previous, Grade grade, int credits) {
+        if (previous != null) {
+            gradePoints -= previous.getPoints() * credits;
+            gradedCredits -= credits;
+        }
+        if (grade != null) {
+            gradePoints += grade.getPoints() * credits;
+            gradedCredits += credits;
+        }
+    }
+
+    void resetTotals() {
+        totalActiveCredits = 0;
+        gradePoints = 0.0;
+        gradedCredits = 0;
+    }
+}
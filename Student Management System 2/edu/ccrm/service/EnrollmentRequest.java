@@ -0,0 +1,24 @@
+package edu.ccrm.service;
+
+import java.util.Objects;
+
+/**
+ * One (student, course) pair for batch enrollment
+ */
+public class EnrollmentRequest {
+    private final String studentId;
+    private final String courseCode;
+
+    public EnrollmentRequest(String studentId, String courseCode) {
+        this.studentId = Objects.requireNonNull(studentId, "Student ID cannot be null");
+        this.courseCode = Objects.requireNonNull(courseCode, "Course code cannot be null");
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseCode() { return courseCode; }
+
+    @Override
+    public String toString() {
+        return String.format("EnrollmentRequest{studentId='%s', courseCode='%s'}", studentId, courseCode);
+    }
+}
@@ -0,0 +1,44 @@
+package edu.ccrm.service;
+
+/**
+ * Outcome of one pair in a batch enrollment
+ * Rejections are reported as a status rather than an exception
+ */
+public class EnrollmentResult {
+    public enum Status {
+        ENROLLED("Enrolled"),
+        DUPLICATE("Already enrolled"),
+        CREDIT_LIMIT_EXCEEDED("Credit limit exceeded"),
+        COURSE_FULL("Course is full"),
+        STUDENT_NOT_FOUND("Student not found"),
+        COURSE_NOT_FOUND("Course not found");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final EnrollmentRequest request;
+    private final Status status;
+
+    public EnrollmentResult(EnrollmentRequest request, Status status) {
+        this.request = request;
+        this.status = status;
+    }
+
+    public EnrollmentRequest getRequest() { return request; }
+    public Status getStatus() { return status; }
+    public boolean isEnrolled() { return status == Status.ENROLLED; }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s: %s", request.getStudentId(), request.getCourseCode(), 
+                           status.getDescription());
+    }
+}
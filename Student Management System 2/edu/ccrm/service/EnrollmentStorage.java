@@ -0,0 +1,25 @@
+package edu.ccrm.service;
+
+/**
+ * How StudentService keeps enrollments in memory
+ */
+public enum EnrollmentStorage {
+    /**
+     * One Enrollment object per enrollment, plus maps from course code; each student also
+     * keeps a list of its course codes.
+     */
+    OBJECTS,
+
+    /**
+     * Enrollments packed into a primitive array per student, with course codes and student
+     * IDs replaced by dense integer ids from interned dictionaries. Enrollment objects and
+     * students' course lists become views materialized on read. Marks are kept to hundredths.
+     */
+    COMPACT,
+
+    /**
+     * Like COMPACT, but the records live in an OffHeapEnrollmentStore: memory-mapped files
+     * that keep enrollments out of the heap and across restarts.
+     */
+    OFF_HEAP
+}
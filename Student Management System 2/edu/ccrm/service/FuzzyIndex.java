@@ -0,0 +1,492 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Typo-tolerant lookup of records by field values, such as names and emails
+ * Values are normalized (lower case, single spaces) and kept once each in a dictionary, with
+ * the records that have them; many students share a name, so name lookups work on distinct
+ * names. A value of several words is also indexed word by word, so a surname alone finds
+ * its records. Every value is split into trigrams, padded at both ends, and each trigram
+ * keeps a sorted list of the values of each length that contain it.
+ *
+ * Distance is optimal string alignment: insertions, deletions, substitutions and swaps of
+ * adjacent characters each count as one edit. One edit changes at most four of a value's
+ * trigrams, so a value within k edits of the query shares at least one trigram with any
+ * 4k + 1 of the query's trigram positions. Candidates are therefore read from the lists of
+ * the query's rarest trigrams, at lengths within k of the query's, and only those are
+ * measured; nothing compares the query with every value. Before measuring, a candidate's
+ * character set, kept as a 64-bit signature next to the others, must differ from the query's
+ * in at most k characters each way.
+ *
+ * Results are ranked by distance, then by the order records were first indexed. Searches try
+ * an exact match first and widen by one edit at a time until enough records are found.
+ *
+ * Guarded by a read-write lock; searches run concurrently with each other.
+ */
+class FuzzyIndex<T> {
+    static final int MAX_EDITS = 2;
+
+    private static final int GRAM = 3;
+    private static final char PAD = '\u0000';
+    private static final int[] EMPTY = new int[0];
+    // Postings a search counts beyond the few it must, before it stops adding rarer trigrams
+    private static final long COUNT_BUDGET = 50_000;
+
+    /**
+     * A distinct normalized value and the records having it
+     */
+    private static final class Value {
+        final String text;
+        final int id;
+        int[] records = EMPTY;
+        int recordCount;
+
+        Value(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Sorted value ids under one trigram and length
+     */
+    private static final class Postings {
+        int[] ids = EMPTY;
+        int count;
+    }
+
+    private final Function<T, List<String>> fields;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> recordNumbers = new HashMap<>();
+    private Object[] records = new Object[64];
+    private String[][] recordValues = new String[64][];
+    private int recordCount;
+
+    private final Map<String, Value> values = new HashMap<>();
+    private Value[] valuesById = new Value[64];
+    private long[] signaturesById = new long[64];
+    private int valueIdCount;
+    // Ids of values no record has any more, reused first
+    private int[] freeValueIds = new int[16];
+    private int freeValueIdCount;
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final ThreadLocal<HitCounter> counters = ThreadLocal.withInitial(HitCounter::new);
+
+    /**
+     * An index over the values the function returns for each record, and over their words;
+     * null and blank values are skipped.
+     */
+    FuzzyIndex(Function<T, List<String>> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Indexes the record under its key, replacing whatever was indexed under that key.
+     */
+    void put(String key, T record) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String field : fields.apply(record)) {
+            String value = normalize(field);
+            if (!value.isEmpty()) {
+                normalized.add(value);
+                if (value.indexOf(' ') >= 0) {
+                    normalized.addAll(Arrays.asList(value.split(" ")));
+                }
+            }
+        }
+        String[] added = normalized.toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            Integer number = recordNumbers.get(key);
+            String[] replaced = new String[0];
+            if (number == null) {
+                number = recordCount++;
+                if (number == records.length) {
+                    records = Arrays.copyOf(records, number * 2);
+                    recordValues = Arrays.copyOf(recordValues, number * 2);
+                }
+                recordNumbers.put(key, number);
+            } else {
+                replaced = recordValues[number];
+            }
+            records[number] = record;
+            recordValues[number] = added;
+            for (String value : replaced) {
+                if (!normalized.contains(value)) {
+                    unlink(value, number);
+                }
+            }
+            List<String> kept = Arrays.asList(replaced);
+            for (String value : added) {
+                if (!kept.contains(value)) {
+                    link(value, number);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(String text, int number) {
+        Value value = values.get(text);
+        if (value == null) {
+            int id;
+            if (freeValueIdCount > 0) {
+                id = freeValueIds[--freeValueIdCount];
+            } else {
+                id = valueIdCount++;
+                if (id == valuesById.length) {
+                    valuesById = Arrays.copyOf(valuesById, id * 2);
+                    signaturesById = Arrays.copyOf(signaturesById, id * 2);
+                }
+            }
+            value = new Value(text, id);
+            values.put(text, value);
+            valuesById[id] = value;
+            signaturesById[id] = signature(text);
+            for (long gram : distinct(gramsOf(text, text.length()))) {
+                Postings list = grams.computeIfAbsent(spread(gram), k -> new Postings());
+                list.ids = SortedInts.insert(list.ids, list.count++, id);
+            }
+        }
+        value.records = SortedInts.insert(value.records, value.recordCount++, number);
+    }
+
+    private void unlink(String text, int number) {
+        Value value = values.get(text);
+        value.recordCount -= SortedInts.delete(value.records, value.recordCount, number);
+        if (value.recordCount > 0) {
+            return;
+        }
+        for (long gram : distinct(gramsOf(text, text.length()))) {
+            long key = spread(gram);
+            Postings list = grams.get(key);
+            list.count -= SortedInts.delete(list.ids, list.count, value.id);
+            if (list.count == 0) {
+                grams.remove(key);
+            }
+        }
+        values.remove(text);
+        valuesById[value.id] = null;
+        if (freeValueIdCount == freeValueIds.length) {
+            freeValueIds = Arrays.copyOf(freeValueIds, freeValueIdCount * 2);
+        }
+        freeValueIds[freeValueIdCount++] = value.id;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return recordCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The records with a value closest to the query, closest first. Short queries allow fewer
+     * edits: one from 3 characters, two from 7.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> search(String query, int limit) {
+        String text = normalize(query);
+        List<T> results = new ArrayList<>();
+        if (text.isEmpty() || limit <= 0) {
+            return results;
+        }
+        int maxEdits = Math.min(MAX_EDITS, (text.length() + 1) / 4);
+        lock.readLock().lock();
+        try {
+            Set<Integer> found = new HashSet<>();
+            for (int edits = 0; edits <= maxEdits && results.size() < limit; edits++) {
+                List<Value> matched = new ArrayList<>();
+                if (edits == 0) {
+                    Value exact = values.get(text);
+                    if (exact != null) {
+                        matched.add(exact);
+                    }
+                } else {
+                    matched = valuesAt(text, edits);
+                }
+                for (int number : firstRecords(matched, limit - results.size(), found)) {
+                    found.add(number);
+                    results.add((T) records[number]);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The lowest record numbers among the values' records, skipping those already found
+    private static int[] firstRecords(List<Value> matched, int wanted, Set<Integer> found) {
+        int[] numbers = new int[0];
+        int count = 0;
+        for (Value value : matched) {
+            int taken = 0;
+            for (int i = 0; i < value.recordCount && taken < wanted; i++) {
+                if (!found.contains(value.records[i])) {
+                    if (count == numbers.length) {
+                        numbers = Arrays.copyOf(numbers, Math.max(16, count * 2));
+                    }
+                    numbers[count++] = value.records[i];
+                    taken++;
+                }
+            }
+        }
+        Arrays.sort(numbers, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count && unique < wanted; i++) {
+            if (unique == 0 || numbers[i] != numbers[unique - 1]) {
+                numbers[unique++] = numbers[i];
+            }
+        }
+        return Arrays.copyOf(numbers, unique);
+    }
+
+    // Values exactly `edits` away from the text, read from its rarest trigrams
+    private List<Value> valuesAt(String text, int edits) {
+        int minLength = Math.max(1, text.length() - edits);
+        int maxLength = text.length() + edits;
+
+        // Distinct trigrams with the query positions they cover and the values they list
+        Map<Long, int[]> positionsAndSizes = new HashMap<>();
+        for (long gram : gramsOf(text, 0)) {
+            int[] entry = positionsAndSizes.get(gram);
+            if (entry == null) {
+                int size = 0;
+                for (int length = minLength; length <= maxLength; length++) {
+                    Postings list = grams.get(spread(gram | length));
+                    size += list == null ? 0 : list.count;
+                }
+                positionsAndSizes.put(gram, new int[] {1, size});
+            } else {
+                entry[0]++;
+            }
+        }
+        List<Map.Entry<Long, int[]>> rarest = new ArrayList<>(positionsAndSizes.entrySet());
+        rarest.sort((a, b) -> Integer.compare(a.getValue()[1], b.getValue()[1]));
+
+        // Every value within reach has a trigram from any 4 * edits + 1 positions. Rarer
+        // trigrams beyond those are counted too while they are cheap, so that values must hit
+        // all but 4 * edits of the counted positions before their distance is measured.
+        HitCounter hits = counters.get();
+        hits.ensureCapacity(valueIdCount);
+        int positions = 0;
+        long counted = 0;
+        long budget = -1;
+        for (Map.Entry<Long, int[]> gram : rarest) {
+            // A trigram repeated beyond 4 * edits + 1 positions is in every value within reach;
+            // counting it as fewer positions keeps the bound and the byte counts small
+            int gramPositions = Math.min(gram.getValue()[0], 4 * edits + 1);
+            int size = gram.getValue()[1];
+            if (budget >= 0 && (counted + size > budget || positions + gramPositions > Byte.MAX_VALUE)) {
+                break;
+            }
+            for (int length = minLength; length <= maxLength; length++) {
+                Postings list = grams.get(spread(gram.getKey() | length));
+                if (list != null) {
+                    hits.add(list.ids, list.count, gramPositions);
+                }
+            }
+            positions += gramPositions;
+            counted += size;
+            if (budget < 0 && positions > 4 * edits) {
+                budget = Math.max(COUNT_BUDGET, 4 * counted);
+            }
+        }
+
+        // Each edit adds at most one character the query lacks and drops at most one it has
+        long querySignature = signature(text);
+        List<Value> matched = new ArrayList<>();
+        int required = positions - 4 * edits;
+        for (int i = 0; i < hits.touchedCount; i++) {
+            int id = hits.touched[i];
+            if (hits.hits[id] >= required
+                    && Long.bitCount(querySignature & ~signaturesById[id]) <= edits
+                    && Long.bitCount(signaturesById[id] & ~querySignature) <= edits) {
+                Value value = valuesById[id];
+                if (distance(text, value.text, edits) == edits) {
+                    matched.add(value);
+                }
+            }
+        }
+        hits.clear();
+        return matched;
+    }
+
+    /**
+     * Per-value hit counts for one search, reused by each thread and cleared after use
+     */
+    private static final class HitCounter {
+        byte[] hits = new byte[0];
+        int[] touched = new int[64];
+        int touchedCount;
+
+        void ensureCapacity(int ids) {
+            if (hits.length < ids) {
+                hits = new byte[Math.max(ids, hits.length * 2)];
+            }
+        }
+
+        void add(int[] ids, int count, int weight) {
+            for (int i = 0; i < count; i++) {
+                int id = ids[i];
+                if (hits[id] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+                hits[id] += weight;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                hits[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    /**
+     * Optimal string alignment distance, or max + 1 once it is known to exceed max. A common
+     * prefix and suffix are skipped, and only the diagonal band of width 2 * max + 1 of what
+     * remains is computed.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int start = 0;
+        int shorter = Math.min(a.length(), b.length());
+        while (start < shorter && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        int endA = a.length();
+        int endB = b.length();
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        return bandedDistance(a, endA, b, endB, start, max);
+    }
+
+    // distance() between a.substring(start, endA) and b.substring(start, endB)
+    private static int bandedDistance(String a, int endA, String b, int endB, int start, int max) {
+        int n = endA - start;
+        int m = endB - start;
+        if (n == 0 || m == 0) {
+            return Math.min(Math.max(n, m), max + 1);
+        }
+        int over = max + 1;
+        int[] twoBack = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = Math.min(j, over);
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            // Cells just outside the band read as over
+            current[0] = Math.min(i, over);
+            current[from - 1] = from > 1 ? over : current[0];
+            if (to < m) {
+                current[to + 1] = over;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                char ai = a.charAt(start + i - 1);
+                int cost = ai == b.charAt(start + j - 1) ? 0 : 1;
+                int cell = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && ai == b.charAt(start + j - 2) && a.charAt(start + i - 2) == b.charAt(start + j - 1)) {
+                    cell = Math.min(cell, twoBack[j - 2] + 1);
+                }
+                current[j] = Math.min(cell, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return over;
+            }
+            int[] recycled = twoBack;
+            twoBack = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+
+    /**
+     * Lower case with single spaces, no control characters, trimmed.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The padded trigrams of a value, in order, each packed with a length: three 16-bit
+     * characters over 16 bits of length. Values are indexed under their own length; a query's
+     * trigrams are taken with length 0 and tried at each length in range.
+     */
+    private static long[] gramsOf(String text, int length) {
+        length = Math.min(length, 0xFFFF);
+        String padded = "" + PAD + PAD + text + PAD + PAD;
+        long[] keys = new long[padded.length() - GRAM + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) padded.charAt(i) << 48 | (long) padded.charAt(i + 1) << 32
+                    | (long) padded.charAt(i + 2) << 16 | length;
+        }
+        return keys;
+    }
+
+    // Long.hashCode folds the packed characters onto each other; an odd multiplier is a
+    // bijection that mixes them first
+    private static long spread(long gram) {
+        return gram * 0x9E3779B97F4A7C15L;
+    }
+
+    // One bit per character, folded to 64; shared bits only make the check more lenient
+    private static long signature(String text) {
+        long bits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            bits |= 1L << (text.charAt(i) & 63);
+        }
+        return bits;
+    }
+
+    private static long[] distinct(long[] keys) {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+}
@@ -0,0 +1,28 @@
+package edu.ccrm.service;
+
+import java.util.Objects;
+
+/**
+ * One grade row for bulk grade ingestion
+ */
+public class GradeEntry {
+    private final String studentId;
+    private final String courseCode;
+    private final double marks;
+
+    public GradeEntry(String studentId, String courseCode, double marks) {
+        this.studentId = Objects.requireNonNull(studentId, "Student ID cannot be null");
+        this.courseCode = Objects.requireNonNull(courseCode, "Course code cannot be null");
+        this.marks = marks;
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseCode() { return courseCode; }
+    public double getMarks() { return marks; }
+
+    @Override
+    public String toString() {
+        return String.format("GradeEntry{studentId='%s', courseCode='%s', marks=%.2f}", 
+                           studentId, courseCode, marks);
+    }
+}
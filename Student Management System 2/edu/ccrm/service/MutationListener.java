@@ -0,0 +1,54 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+/**
+ * Observer of StudentService state changes
+ * Change events are delivered after the change is applied, under the lock of the affected
+ * student (or the course index lock), so events for one student arrive in the order the
+ * changes were applied. Listeners must not call back into StudentService from an event.
+ *
+ * beginMutation and endMutation bracket every public mutating call, outside those locks
+ * and on the calling thread; events of a batch call may arrive on other threads in between.
+ */
+public interface MutationListener {
+    default void beginMutation() {
+    }
+
+    default void endMutation() {
+    }
+
+    default void studentAdded(Student student) {
+    }
+
+    default void studentUpdated(Student student) {
+    }
+
+    default void courseAdded(Course course) {
+    }
+
+    default void instructorAdded(Instructor instructor) {
+    }
+
+    /**
+     * A new enrollment charged at the given credits, or a restored one (which may be
+     * inactive or graded already).
+     */
+    default void enrolled(Enrollment enrollment, int credits) {
+    }
+
+    default void unenrolled(String studentId, String courseCode) {
+    }
+
+    default void gradeRecorded(String studentId, String courseCode, double marks) {
+    }
+
+    /**
+     * The student's GPA was recomputed to a new value after a grade or enrollment change.
+     */
+    default void gpaChanged(Student student, double previousGpa) {
+    }
+}
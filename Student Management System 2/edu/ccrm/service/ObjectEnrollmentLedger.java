@@ -0,0 +1,108 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Enrollment ledger holding one Enrollment object per enrollment
+ * The history is a list; active enrollments and their charged credits are also kept in maps
+ * keyed by course code.
+ */
+class ObjectEnrollmentLedger extends EnrollmentLedger {
+    private final List<Enrollment> history;
+    private final Map<String, Enrollment> active;
+    private final Map<String, Integer> activeCredits;
+
+    ObjectEnrollmentLedger() {
+        this.history = new ArrayList<>();
+        this.active = new LinkedHashMap<>();
+        this.activeCredits = new HashMap<>();
+    }
+
+    @Override
+    boolean isActive(String courseCode) {
+        return active.containsKey(courseCode);
+    }
+
+    @Override
+    int getCreditsFor(String courseCode) {
+        Integer credits = activeCredits.get(courseCode);
+        return credits == null ? 0 : credits;
+    }
+
+    @Override
+    List<String> getActiveCourseCodes() {
+        return new ArrayList<>(active.keySet());
+    }
+
+    @Override
+    Collection<Enrollment> getActiveEnrollments() {
+        return active.values();
+    }
+
+    @Override
+    List<Enrollment> getHistory() {
+        return history;
+    }
+
+    @Override
+    void forEachEnrollment(ObjIntConsumer<Enrollment> action) {
+        for (Enrollment enrollment : history) {
+            action.accept(enrollment, enrollment.isActive() ? getCreditsFor(enrollment.getCourseCode()) : 0);
+        }
+    }
+
+    @Override
+    void forEachActiveEnrollment(ObjIntConsumer<Enrollment> action) {
+        for (Enrollment enrollment : active.values()) {
+            action.accept(enrollment, getCreditsFor(enrollment.getCourseCode()));
+        }
+    }
+
+    @Override
+    void add(Enrollment enrollment, int credits) {
+        history.add(enrollment);
+        active.put(enrollment.getCourseCode(), enrollment);
+        activeCredits.put(enrollment.getCourseCode(), credits);
+        charge(credits);
+    }
+
+    @Override
+    void addInactive(Enrollment enrollment) {
+        history.add(enrollment);
+    }
+
+    @Override
+    boolean recordGrade(String courseCode, double marks) {
+        Enrollment enrollment = active.get(courseCode);
+        if (enrollment == null) {
+            return false;
+        }
+        Grade previous = enrollment.getGrade();
+        enrollment.recordGrade(marks);
+        regrade(previous, enrollment.getGrade(), getCreditsFor(courseCode));
+        return true;
+    }
+
+    @Override
+    boolean deactivate(String courseCode) {
+        Enrollment enrollment = active.remove(courseCode);
+        if (enrollment == null) {
+            return false;
+        }
+        enrollment.setActive(false);
+        release(activeCredits.remove(courseCode), enrollment.getGrade());
+        return true;
+    }
+
+    @Override
+    void clear() {
+        history.clear();
+        active.clear();
+        activeCredits.clear();
+        resetTotals();
+    }
+}
@@ -0,0 +1,235 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.EnrolledCourses;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Enrollment ledger over a student's record chains in an OffHeapEnrollmentStore
+ * Only the running totals live on the heap. They are summed from the active chain when the
+ * ledger is created, so a student persisted by an earlier run starts with the right totals;
+ * the ledger of such a student stays reopened until StudentService ends startup recovery.
+ * Enrollment objects handed out are copies built on read.
+ *
+ * Also serves as the student's enrolled course view, like CompactEnrollmentLedger.
+ */
+class OffHeapEnrollmentLedger extends EnrollmentLedger implements EnrolledCourses {
+    private final String studentId;
+    private final OffHeapEnrollmentStore store;
+    private final CodeDictionary courseCodes;
+    private final int student;
+    private boolean reopened;
+
+    OffHeapEnrollmentLedger(String studentId, OffHeapEnrollmentStore store, boolean recovering) {
+        this.studentId = studentId;
+        this.store = store;
+        this.courseCodes = store.getCourseCodes();
+        this.student = store.getStudentIds().idOf(studentId);
+        for (int record = store.firstActiveRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextActiveRecord(record)) {
+            int state = store.stateOf(record);
+            charge(PackedEnrollment.creditsOf(state));
+            regrade(null, PackedEnrollment.gradeOf(state), PackedEnrollment.creditsOf(state));
+        }
+        this.reopened = recovering && store.heldBeforeOpen(student);
+    }
+
+    @Override
+    boolean isReopened() {
+        return reopened;
+    }
+
+    @Override
+    void markCurrent() {
+        reopened = false;
+    }
+
+    @Override
+    void attach(Student student) {
+        student.setEnrolledCourseStore(this);
+    }
+
+    // The active record in the course, or NONE; previous[0] gets the record before it
+    private int findActive(Object courseCode, int[] previous) {
+        int courseId = courseCodes.find(courseCode);
+        if (courseId == CodeDictionary.NOT_FOUND) {
+            return OffHeapEnrollmentStore.NONE;
+        }
+        int before = OffHeapEnrollmentStore.NONE;
+        for (int record = store.firstActiveRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextActiveRecord(record)) {
+            if (store.courseOf(record) == courseId) {
+                if (previous != null) {
+                    previous[0] = before;
+                }
+                return record;
+            }
+            before = record;
+        }
+        return OffHeapEnrollmentStore.NONE;
+    }
+
+    private Enrollment view(int record) {
+        int state = store.stateOf(record);
+        return new Enrollment(studentId, courseCodes.codeOf(store.courseOf(record)),
+                              LocalDate.ofEpochDay(store.dayOf(record)), PackedEnrollment.gradeOf(state),
+                              PackedEnrollment.marksOf(state), PackedEnrollment.isActive(state));
+    }
+
+    private int append(Enrollment enrollment, int credits) {
+        int state = PackedEnrollment.pack(enrollment, credits);
+        return store.append(student, courseCodes.idOf(enrollment.getCourseCode()),
+                            (int) enrollment.getEnrollmentDate().toEpochDay(), state);
+    }
+
+    @Override
+    boolean isActive(String courseCode) {
+        return findActive(courseCode, null) != OffHeapEnrollmentStore.NONE;
+    }
+
+    @Override
+    int getCreditsFor(String courseCode) {
+        int record = findActive(courseCode, null);
+        return record == OffHeapEnrollmentStore.NONE ? 0 : PackedEnrollment.creditsOf(store.stateOf(record));
+    }
+
+    @Override
+    List<String> getActiveCourseCodes() {
+        return toList();
+    }
+
+    @Override
+    Collection<Enrollment> getActiveEnrollments() {
+        List<Enrollment> active = new ArrayList<>();
+        forEachActiveEnrollment((enrollment, credits) -> active.add(enrollment));
+        return active;
+    }
+
+    @Override
+    List<Enrollment> getHistory() {
+        List<Enrollment> history = new ArrayList<>();
+        forEachEnrollment((enrollment, credits) -> history.add(enrollment));
+        return history;
+    }
+
+    @Override
+    void forEachEnrollment(ObjIntConsumer<Enrollment> action) {
+        for (int record = store.firstRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextRecord(record)) {
+            int state = store.stateOf(record);
+            action.accept(view(record), PackedEnrollment.isActive(state) ? PackedEnrollment.creditsOf(state) : 0);
+        }
+    }
+
+    @Override
+    void forEachActiveEnrollment(ObjIntConsumer<Enrollment> action) {
+        for (int record = store.firstActiveRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextActiveRecord(record)) {
+            action.accept(view(record), PackedEnrollment.creditsOf(store.stateOf(record)));
+        }
+    }
+
+    @Override
+    void add(Enrollment enrollment, int credits) {
+        append(enrollment, credits);
+        charge(credits);
+    }
+
+    @Override
+    void addInactive(Enrollment enrollment) {
+        append(enrollment, 0);
+    }
+
+    @Override
+    boolean recordGrade(String courseCode, double marks) {
+        int record = findActive(courseCode, null);
+        if (record == OffHeapEnrollmentStore.NONE) {
+            return false;
+        }
+        int state = store.stateOf(record);
+        Grade grade = Grade.fromPercentage(marks);
+        store.setState(record, PackedEnrollment.withGrade(state, grade, marks));
+        regrade(PackedEnrollment.gradeOf(state), grade, PackedEnrollment.creditsOf(state));
+        return true;
+    }
+
+    @Override
+    boolean deactivate(String courseCode) {
+        int[] previous = new int[1];
+        int record = findActive(courseCode, previous);
+        if (record == OffHeapEnrollmentStore.NONE) {
+            return false;
+        }
+        int state = store.stateOf(record);
+        store.unlinkActive(student, previous[0], record);
+        store.setState(record, PackedEnrollment.deactivated(state));
+        release(PackedEnrollment.creditsOf(state), PackedEnrollment.gradeOf(state));
+        return true;
+    }
+
+    @Override
+    void clear() {
+        store.clear(student);
+        resetTotals();
+        reopened = false;
+    }
+
+    // Enrolled course view
+
+    @Override
+    public void add(String courseCode) {
+        // Maintained by add and restore
+    }
+
+    @Override
+    public void remove(String courseCode) {
+        // Maintained by deactivate
+    }
+
+    @Override
+    public synchronized boolean contains(String courseCode) {
+        return findActive(courseCode, null) != OffHeapEnrollmentStore.NONE;
+    }
+
+    @Override
+    public synchronized boolean containsAny(Set<String> courseCodes) {
+        for (int record = store.firstActiveRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextActiveRecord(record)) {
+            if (courseCodes.contains(this.courseCodes.codeOf(store.courseOf(record)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized int size() {
+        int size = 0;
+        for (int record = store.firstActiveRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextActiveRecord(record)) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized void forEach(Consumer<String> action) {
+        for (int record = store.firstActiveRecord(student); record != OffHeapEnrollmentStore.NONE;
+             record = store.nextActiveRecord(record)) {
+            action.accept(courseCodes.codeOf(store.courseOf(record)));
+        }
+    }
+
+    @Override
+    public synchronized List<String> toList() {
+        List<String> codes = new ArrayList<>();
+        forEach(codes::add);
+        return codes;
+    }
+}
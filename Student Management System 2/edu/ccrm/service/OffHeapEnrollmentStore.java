@@ -0,0 +1,400 @@
+package edu.ccrm.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Enrollment records kept outside the Java heap, in memory-mapped files
+ * Used by StudentService with EnrollmentStorage.OFF_HEAP. The directory holds:
+ * - enrollments.dat: fixed-width 24-byte records (student id, course id, epoch day,
+ *   PackedEnrollment state, next record of the student's history, next active record).
+ *   Record 0 is the file header.
+ * - students.idx: one 16-byte entry per student id, with the first and last record of the
+ *   student's history and of its active enrollments. Record 0 marks the end of a chain.
+ * - students.codes, courses.codes: the dictionaries behind the dense ids, one per line.
+ *
+ * Records are appended and changed in place; nothing is rebuilt on open, apart from reading
+ * the two dictionaries. Files are mapped in fixed segments as they grow, so the heap holds
+ * only the mappings. Writes reach the OS page cache at once and so survive a crash of the
+ * process; force() or close() also writes them, and the two dictionaries, to the device. A
+ * MutationJournal over the service forces the store each time it syncs and before it is
+ * emptied by a checkpoint, since recovery trusts the store over the journal.
+ *
+ * Records of a student are only read and written under that student's ledger lock, which
+ * StudentService provides; appending from different students is safe.
+ */
+public class OffHeapEnrollmentStore implements Closeable {
+    static final int NONE = 0;
+
+    private static final int MAGIC = 0x43435245; // "CCRE"
+    private static final int VERSION = 1;
+
+    private static final int RECORD_SIZE = 24;
+    private static final int RECORD_STUDENT = 0;
+    private static final int RECORD_COURSE = 4;
+    private static final int RECORD_DAY = 8;
+    private static final int RECORD_STATE = 12;
+    private static final int RECORD_NEXT = 16;
+    private static final int RECORD_NEXT_ACTIVE = 20;
+    // Fields of the header in record 0
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_RECORD_SIZE = 8;
+    private static final int HEADER_NEXT_RECORD = 12;
+
+    private static final int INDEX_SIZE = 16;
+    private static final int INDEX_FIRST = 0;
+    private static final int INDEX_LAST = 4;
+    private static final int INDEX_FIRST_ACTIVE = 8;
+    private static final int INDEX_LAST_ACTIVE = 12;
+
+    private final Path directory;
+    private final MappedSlots records;
+    private final MappedSlots index;
+    private final CodeFile studentIds;
+    private final CodeFile courseCodes;
+    private final int studentsAtOpen;
+    private int nextRecord;
+
+    private OffHeapEnrollmentStore(Path directory, MappedSlots records, MappedSlots index,
+                                   CodeFile studentIds, CodeFile courseCodes) {
+        this.directory = directory;
+        this.records = records;
+        this.index = index;
+        this.studentIds = studentIds;
+        this.courseCodes = courseCodes;
+        this.studentsAtOpen = studentIds.size();
+    }
+
+    /**
+     * Opens the store in the directory, creating it if it does not exist yet.
+     */
+    public static OffHeapEnrollmentStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        MappedSlots records = null;
+        MappedSlots index = null;
+        CodeFile studentIds = null;
+        CodeFile courseCodes = null;
+        try {
+            records = new MappedSlots(directory.resolve("enrollments.dat"), RECORD_SIZE, 20);
+            index = new MappedSlots(directory.resolve("students.idx"), INDEX_SIZE, 18);
+            studentIds = new CodeFile(directory.resolve("students.codes"));
+            courseCodes = new CodeFile(directory.resolve("courses.codes"));
+            OffHeapEnrollmentStore store = new OffHeapEnrollmentStore(directory, records, index,
+                                                                      studentIds, courseCodes);
+            store.readHeader();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            for (Closeable opened : new Closeable[] {records, index, studentIds, courseCodes}) {
+                if (opened != null) {
+                    try {
+                        opened.close();
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (records.getInt(0, HEADER_MAGIC) == 0) {
+            records.putInt(0, HEADER_MAGIC, MAGIC);
+            records.putInt(0, HEADER_VERSION, VERSION);
+            records.putInt(0, HEADER_RECORD_SIZE, RECORD_SIZE);
+            records.putInt(0, HEADER_NEXT_RECORD, 1);
+        } else if (records.getInt(0, HEADER_MAGIC) != MAGIC
+                   || records.getInt(0, HEADER_VERSION) != VERSION
+                   || records.getInt(0, HEADER_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("Not a CCRM enrollment store: " + directory);
+        }
+        nextRecord = records.getInt(0, HEADER_NEXT_RECORD);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Records written so far, including those of histories since cleared.
+     */
+    public synchronized long getRecordCount() {
+        return nextRecord - 1;
+    }
+
+    public int getStudentCount() {
+        return studentIds.size();
+    }
+
+    /**
+     * Bytes of record and index data in use, not counting mapped space not yet written.
+     */
+    public long getDataBytes() {
+        return (getRecordCount() + 1) * RECORD_SIZE + (long) getStudentCount() * INDEX_SIZE;
+    }
+
+    /**
+     * True if the student was in the store before it was opened, with or without enrollments.
+     */
+    boolean heldBeforeOpen(int student) {
+        return student < studentsAtOpen;
+    }
+
+    CodeDictionary getStudentIds() {
+        return studentIds;
+    }
+
+    CodeDictionary getCourseCodes() {
+        return courseCodes;
+    }
+
+    // Per-student chains; callers hold the student's ledger lock
+
+    int firstRecord(int student) {
+        return index.getInt(student, INDEX_FIRST);
+    }
+
+    int firstActiveRecord(int student) {
+        return index.getInt(student, INDEX_FIRST_ACTIVE);
+    }
+
+    int nextRecord(int record) {
+        return records.getInt(record, RECORD_NEXT);
+    }
+
+    int nextActiveRecord(int record) {
+        return records.getInt(record, RECORD_NEXT_ACTIVE);
+    }
+
+    int courseOf(int record) {
+        return records.getInt(record, RECORD_COURSE);
+    }
+
+    int dayOf(int record) {
+        return records.getInt(record, RECORD_DAY);
+    }
+
+    int stateOf(int record) {
+        return records.getInt(record, RECORD_STATE);
+    }
+
+    void setState(int record, int state) {
+        records.putInt(record, RECORD_STATE, state);
+    }
+
+    /**
+     * Appends a record to the student's history, and to its active chain when the state is
+     * active. The record is complete and counted before anything links to it, so a crash
+     * part-way leaves at worst an unreachable record.
+     */
+    int append(int student, int course, int day, int state) {
+        int record = allocate();
+        records.putInt(record, RECORD_STUDENT, student);
+        records.putInt(record, RECORD_COURSE, course);
+        records.putInt(record, RECORD_DAY, day);
+        records.putInt(record, RECORD_STATE, state);
+        records.putInt(record, RECORD_NEXT, NONE);
+        records.putInt(record, RECORD_NEXT_ACTIVE, NONE);
+
+        link(student, record, INDEX_FIRST, INDEX_LAST, RECORD_NEXT);
+        if (PackedEnrollment.isActive(state)) {
+            link(student, record, INDEX_FIRST_ACTIVE, INDEX_LAST_ACTIVE, RECORD_NEXT_ACTIVE);
+        }
+        return record;
+    }
+
+    private void link(int student, int record, int firstField, int lastField, int nextField) {
+        int last = index.getInt(student, lastField);
+        if (last == NONE) {
+            index.putInt(student, firstField, record);
+        } else {
+            records.putInt(last, nextField, record);
+        }
+        index.putInt(student, lastField, record);
+    }
+
+    /**
+     * Takes a record out of the student's active chain; previous is the record before it
+     * in that chain, or NONE if it is the first.
+     */
+    void unlinkActive(int student, int previous, int record) {
+        int next = nextActiveRecord(record);
+        if (previous == NONE) {
+            index.putInt(student, INDEX_FIRST_ACTIVE, next);
+        } else {
+            records.putInt(previous, RECORD_NEXT_ACTIVE, next);
+        }
+        if (next == NONE) {
+            index.putInt(student, INDEX_LAST_ACTIVE, previous);
+        }
+        records.putInt(record, RECORD_NEXT_ACTIVE, NONE);
+    }
+
+    /**
+     * Empties the student's chains. The old records stay in the file, unreachable.
+     */
+    void clear(int student) {
+        index.putInt(student, INDEX_FIRST, NONE);
+        index.putInt(student, INDEX_LAST, NONE);
+        index.putInt(student, INDEX_FIRST_ACTIVE, NONE);
+        index.putInt(student, INDEX_LAST_ACTIVE, NONE);
+    }
+
+    private synchronized int allocate() {
+        if (nextRecord == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Enrollment store is full: " + directory);
+        }
+        int record = nextRecord++;
+        records.putInt(0, HEADER_NEXT_RECORD, nextRecord);
+        return record;
+    }
+
+    /**
+     * Writes every change to the storage device.
+     */
+    public void force() {
+        studentIds.force();
+        courseCodes.force();
+        records.force();
+        index.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        records.close();
+        index.close();
+        studentIds.close();
+        courseCodes.close();
+    }
+
+    /**
+     * A file of fixed-size slots, mapped in segments of 2^segmentBits slots on first use
+     */
+    private static final class MappedSlots implements Closeable {
+        private final FileChannel channel;
+        private final int slotSize;
+        private final int segmentBits;
+        private final int segmentMask;
+        private volatile MappedByteBuffer[] segments;
+
+        MappedSlots(Path file, int slotSize, int segmentBits) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE);
+            this.slotSize = slotSize;
+            this.segmentBits = segmentBits;
+            this.segmentMask = (1 << segmentBits) - 1;
+            this.segments = new MappedByteBuffer[0];
+        }
+
+        int getInt(int slot, int field) {
+            return segment(slot).getInt((slot & segmentMask) * slotSize + field);
+        }
+
+        void putInt(int slot, int field, int value) {
+            segment(slot).putInt((slot & segmentMask) * slotSize + field, value);
+        }
+
+        private MappedByteBuffer segment(int slot) {
+            int segment = slot >>> segmentBits;
+            MappedByteBuffer[] current = segments;
+            if (segment < current.length && current[segment] != null) {
+                return current[segment];
+            }
+            return map(segment);
+        }
+
+        // Mapping past the end grows the file; the new space reads as zeros
+        private synchronized MappedByteBuffer map(int segment) {
+            MappedByteBuffer[] current = segments;
+            if (segment < current.length && current[segment] != null) {
+                return current[segment];
+            }
+            long segmentBytes = (long) slotSize << segmentBits;
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                                                      segment * segmentBytes, segmentBytes);
+                MappedByteBuffer[] grown = Arrays.copyOf(current, Math.max(current.length, segment + 1));
+                grown[segment] = buffer;
+                segments = grown;
+                return buffer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void force() {
+            for (MappedByteBuffer segment : segments) {
+                if (segment != null) {
+                    segment.force();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Code dictionary that appends each new code to a file and reads them back on open
+     */
+    private static final class CodeFile extends CodeDictionary implements Closeable {
+        private final FileChannel channel;
+        private final BufferedWriter writer;
+
+        CodeFile(Path file) throws IOException {
+            if (Files.exists(file)) {
+                for (String code : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    idOf(code);
+                }
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.APPEND);
+            this.writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+        }
+
+        @Override
+        void assigned(int id, String code) {
+            if (writer == null) {
+                return; // still reading the file
+            }
+            if (code.indexOf('\n') >= 0 || code.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Line break in code: " + code);
+            }
+            try {
+                writer.write(code);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Codes are flushed to the channel as they are assigned, so forcing it is enough
+        void force() {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+
+/**
+ * The state word of a packed enrollment record
+ * Marks in hundredths (bits 16-31, signed), grade ordinal + 1 (bits 8-15, 0 when ungraded),
+ * charged credits (bits 1-7) and the active flag (bit 0). Shared by the compact and off-heap
+ * ledgers, which keep the course id and enrollment day alongside it.
+ */
+final class PackedEnrollment {
+    private static final int ACTIVE_BIT = 1;
+    private static final int CREDITS_SHIFT = 1;
+    private static final int MAX_CREDITS = 0x7F;
+    private static final int GRADE_SHIFT = 8;
+    private static final int MARKS_SHIFT = 16;
+    private static final Grade[] GRADES = Grade.values();
+
+    private PackedEnrollment() {
+    }
+
+    static int pack(Enrollment enrollment, int credits) {
+        if (credits < 0 || credits > MAX_CREDITS) {
+            throw new IllegalArgumentException("Credits out of range for packed storage: " + credits);
+        }
+        int state = enrollment.isActive() ? (credits << CREDITS_SHIFT) | ACTIVE_BIT : 0;
+        return withGrade(state, enrollment.getGrade(), enrollment.getMarks());
+    }
+
+    static int withGrade(int state, Grade grade, double marks) {
+        long hundredths = Math.round(marks * 100);
+        if (hundredths < Short.MIN_VALUE || hundredths > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Marks out of range for packed storage: " + marks);
+        }
+        int gradeBits = grade == null ? 0 : grade.ordinal() + 1;
+        return (state & 0xFF) | (gradeBits << GRADE_SHIFT) | ((int) hundredths << MARKS_SHIFT);
+    }
+
+    /**
+     * The state of an enrollment once dropped: inactive, no credits charged.
+     */
+    static int deactivated(int state) {
+        return state & ~ACTIVE_BIT & ~(MAX_CREDITS << CREDITS_SHIFT);
+    }
+
+    static boolean isActive(int state) {
+        return (state & ACTIVE_BIT) != 0;
+    }
+
+    static int creditsOf(int state) {
+        return (state >>> CREDITS_SHIFT) & MAX_CREDITS;
+    }
+
+    static Grade gradeOf(int state) {
+        int grade = (state >>> GRADE_SHIFT) & 0xFF;
+        return grade == 0 ? null : GRADES[grade - 1];
+    }
+
+    static double marksOf(int state) {
+        return (state >> MARKS_SHIFT) / 100.0;
+    }
+}
@@ -0,0 +1,339 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.SearchText;
+import edu.ccrm.domain.Searchable;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the searchable content of records, updated record by record
+ * Every word of a record is indexed under each of its prefixes up to MAX_PREFIX characters,
+ * so a query word is one map lookup whatever its length. Each prefix keeps two posting lists
+ * of record numbers, sorted: records with a word equal to the prefix, and records with only
+ * longer words starting with it. Words longer than that are also kept in a sorted set, so a
+ * long query word that starts no indexed word is turned away without touching the lists.
+ *
+ * A query matches records where every query word starts some word of the record. Each query
+ * word scores 2 for a whole-word match and 1 for a prefix match; ties go to the record indexed
+ * first. Candidates come from the shortest posting list, best tier first, and the walk stops
+ * once no remaining candidate can beat the results so far, so the cost usually follows the
+ * result limit rather than the number of records. Words that rarely occur together are the
+ * exception: finding that out walks the shortest list.
+ *
+ * Guarded by a read-write lock; searches run concurrently with each other.
+ */
+class SearchIndex<T extends Searchable<String>> {
+    static final int MAX_PREFIX = 6;
+
+    private static final int WHOLE_WORD_SCORE = 2;
+    private static final int PREFIX_SCORE = 1;
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Sorted record numbers under one prefix
+     */
+    private static final class Postings {
+        int[] wholeWords = EMPTY;
+        int wholeWordCount;
+        int[] prefixes = EMPTY;
+        int prefixCount;
+
+        int size() {
+            return wholeWordCount + prefixCount;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> recordNumbers = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    // Words longer than MAX_PREFIX, with how many records have each
+    private final NavigableMap<String, Integer> longWords = new TreeMap<>();
+    private Object[] records = new Object[64];
+    // Each record's words as indexed, space-separated: unindexes replaced records, checks long words
+    private String[] contents = new String[64];
+    private int recordCount;
+
+    /**
+     * Indexes the record under its key, replacing whatever was indexed under that key. Only
+     * the prefixes that differ from the replaced content are touched, so an update that keeps
+     * common words (an email domain, say) does not move their long posting lists.
+     */
+    void put(String key, T record) {
+        String content = String.join(" ", SearchText.words(record.getSearchableContent()));
+        Map<String, Boolean> added = keysOf(content);
+        lock.writeLock().lock();
+        try {
+            Integer number = recordNumbers.get(key);
+            Map<String, Boolean> replaced = Collections.emptyMap();
+            if (number == null) {
+                number = recordCount++;
+                if (number == records.length) {
+                    records = Arrays.copyOf(records, number * 2);
+                    contents = Arrays.copyOf(contents, number * 2);
+                }
+                recordNumbers.put(key, number);
+            } else {
+                replaced = keysOf(contents[number]);
+            }
+            records[number] = record;
+            contents[number] = content;
+            for (Map.Entry<String, Boolean> replacedKey : replaced.entrySet()) {
+                if (!replacedKey.getValue().equals(added.get(replacedKey.getKey()))) {
+                    unlink(replacedKey.getKey(), replacedKey.getValue(), number);
+                }
+            }
+            for (Map.Entry<String, Boolean> addedKey : added.entrySet()) {
+                if (!addedKey.getValue().equals(replaced.get(addedKey.getKey()))) {
+                    link(addedKey.getKey(), addedKey.getValue(), number);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(String key, boolean wholeWord, int number) {
+        if (key.length() > MAX_PREFIX) {
+            longWords.merge(key, 1, Integer::sum);
+            return;
+        }
+        Postings list = postings.computeIfAbsent(key, k -> new Postings());
+        if (wholeWord) {
+            list.wholeWords = SortedInts.insert(list.wholeWords, list.wholeWordCount++, number);
+        } else {
+            list.prefixes = SortedInts.insert(list.prefixes, list.prefixCount++, number);
+        }
+    }
+
+    private void unlink(String key, boolean wholeWord, int number) {
+        if (key.length() > MAX_PREFIX) {
+            if (longWords.merge(key, -1, Integer::sum) == 0) {
+                longWords.remove(key);
+            }
+            return;
+        }
+        Postings list = postings.get(key);
+        if (wholeWord) {
+            list.wholeWordCount -= SortedInts.delete(list.wholeWords, list.wholeWordCount, number);
+        } else {
+            list.prefixCount -= SortedInts.delete(list.prefixes, list.prefixCount, number);
+        }
+        if (list.size() == 0) {
+            postings.remove(key);
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return recordCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best matches for the query, best first; empty for a query without words.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> search(String query, int limit) {
+        Set<String> words = new LinkedHashSet<>(SearchText.words(query));
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            QueryTerm[] terms = new QueryTerm[words.size()];
+            int driver = 0;
+            int i = 0;
+            for (String word : words) {
+                Postings list = postings.get(word.length() > MAX_PREFIX ? word.substring(0, MAX_PREFIX) : word);
+                if (list == null) {
+                    return new ArrayList<>();
+                }
+                terms[i] = new QueryTerm(word, list, longWords);
+                if (terms[i].maxScore == 0) {
+                    return new ArrayList<>();
+                }
+                if (list.size() < terms[driver].postings.size()) {
+                    driver = i;
+                }
+                i++;
+            }
+            int otherTermsMax = 0;
+            for (QueryTerm term : terms) {
+                otherTermsMax += term.maxScore;
+            }
+            QueryTerm driverTerm = terms[driver];
+            otherTermsMax -= driverTerm.maxScore;
+
+            // Min-heap on score, then on record number reversed, so it keeps the best `limit`
+            PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, (a, b) ->
+                    a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+            Postings driverList = driverTerm.postings;
+            collect(driverList.wholeWords, driverList.wholeWordCount, driverTerm.maxScore + otherTermsMax,
+                    terms, limit, best);
+            int prefixBound = (driverTerm.beyondKey ? driverTerm.maxScore : PREFIX_SCORE) + otherTermsMax;
+            collect(driverList.prefixes, driverList.prefixCount, prefixBound, terms, limit, best);
+
+            List<long[]> ranked = new ArrayList<>(best);
+            ranked.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+            List<T> results = new ArrayList<>(ranked.size());
+            for (long[] hit : ranked) {
+                results.add((T) records[(int) hit[1]]);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One word of a query, with cursors into its posting lists. Candidates are scored in
+     * increasing record order within a pass, so membership checks only ever move forward.
+     */
+    private static final class QueryTerm {
+        final String word;
+        final Postings postings;
+        // Longer than the indexed prefixes: candidates are checked against their content
+        final boolean beyondKey;
+        // The best this word can score on any record; 0 if no record can match it
+        final int maxScore;
+        int wholeWordCursor;
+        int prefixCursor;
+
+        QueryTerm(String word, Postings postings, NavigableMap<String, Integer> longWords) {
+            this.word = word;
+            this.postings = postings;
+            this.beyondKey = word.length() > MAX_PREFIX;
+            if (!beyondKey) {
+                maxScore = postings.wholeWordCount > 0 ? WHOLE_WORD_SCORE : PREFIX_SCORE;
+            } else if (longWords.containsKey(word)) {
+                maxScore = WHOLE_WORD_SCORE;
+            } else {
+                String next = longWords.higherKey(word);
+                maxScore = next != null && next.startsWith(word) ? PREFIX_SCORE : 0;
+            }
+        }
+
+        void rewind() {
+            wholeWordCursor = 0;
+            prefixCursor = 0;
+        }
+
+        int score(int number, String content) {
+            wholeWordCursor = advance(postings.wholeWords, postings.wholeWordCount, wholeWordCursor, number);
+            boolean wholeWord = wholeWordCursor < postings.wholeWordCount
+                    && postings.wholeWords[wholeWordCursor] == number;
+            boolean prefix = false;
+            if (!wholeWord) {
+                prefixCursor = advance(postings.prefixes, postings.prefixCount, prefixCursor, number);
+                prefix = prefixCursor < postings.prefixCount && postings.prefixes[prefixCursor] == number;
+            }
+            if (!beyondKey) {
+                return wholeWord ? WHOLE_WORD_SCORE : prefix ? PREFIX_SCORE : 0;
+            }
+            return wholeWord || prefix ? contentScore(content) : 0;
+        }
+
+        // Looks for the word at word starts in space-separated content
+        private int contentScore(String content) {
+            int score = 0;
+            int at = content.indexOf(word);
+            while (at >= 0) {
+                if (at == 0 || content.charAt(at - 1) == ' ') {
+                    int end = at + word.length();
+                    if (end == content.length() || content.charAt(end) == ' ') {
+                        return WHOLE_WORD_SCORE;
+                    }
+                    score = PREFIX_SCORE;
+                }
+                at = content.indexOf(word, at + 1);
+            }
+            return score;
+        }
+    }
+
+    // Index of the first of the sorted first `count` entries, from `from` on, that is >= number
+    private static int advance(int[] list, int count, int from, int number) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < count && list[high] < number) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        int at = Arrays.binarySearch(list, low, Math.min(high + 1, count), number);
+        return at >= 0 ? at : -(at + 1);
+    }
+
+    // Scores candidates in record order; stops once none of the rest could displace a result
+    private void collect(int[] candidates, int count, int bound, QueryTerm[] terms, int limit,
+                         PriorityQueue<long[]> best) {
+        for (QueryTerm term : terms) {
+            term.rewind();
+        }
+        for (int i = 0; i < count; i++) {
+            int number = candidates[i];
+            if (best.size() == limit && !beats(bound, number, best.peek())) {
+                return;
+            }
+            int score = score(number, terms);
+            if (score > 0 && (best.size() < limit || beats(score, number, best.peek()))) {
+                best.add(new long[] {score, number});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    // 0 if some term does not match the record
+    private int score(int number, QueryTerm[] terms) {
+        int score = 0;
+        for (QueryTerm term : terms) {
+            int termScore = term.score(number, contents[number]);
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    private static boolean beats(long score, int number, long[] weakest) {
+        return score > weakest[0] || (score == weakest[0] && number < weakest[1]);
+    }
+
+    /**
+     * The index keys of space-separated content: each prefix of up to MAX_PREFIX characters,
+     * mapped to whether some word equals it, and each longer word itself, mapped to true.
+     */
+    private static Map<String, Boolean> keysOf(String content) {
+        Map<String, Boolean> keys = new HashMap<>();
+        int start = 0;
+        while (start < content.length()) {
+            int end = content.indexOf(' ', start);
+            if (end < 0) {
+                end = content.length();
+            }
+            int wordLength = end - start;
+            for (int length = 1; length <= Math.min(wordLength, MAX_PREFIX); length++) {
+                String prefix = content.substring(start, start + length);
+                if (length == wordLength) {
+                    keys.put(prefix, Boolean.TRUE);
+                } else {
+                    keys.putIfAbsent(prefix, Boolean.FALSE);
+                }
+            }
+            if (wordLength > MAX_PREFIX) {
+                keys.put(content.substring(start, end), Boolean.TRUE);
+            }
+            start = end + 1;
+        }
+        return keys;
+    }
+}
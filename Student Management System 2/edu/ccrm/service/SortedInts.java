@@ -0,0 +1,38 @@
+package edu.ccrm.service;
+
+import java.util.Arrays;
+
+/**
+ * Sorted int lists kept in the first `count` entries of a growable array, as the search
+ * indexes store their posting lists
+ */
+final class SortedInts {
+    private SortedInts() {
+    }
+
+    /**
+     * Inserts the value, which must not be present yet, growing the array if needed.
+     * Appending the largest value so far is the common case and needs no search.
+     */
+    static int[] insert(int[] list, int count, int value) {
+        if (count == list.length) {
+            list = Arrays.copyOf(list, Math.max(2, count * 2));
+        }
+        int at = count == 0 || list[count - 1] < value ? count : -(Arrays.binarySearch(list, 0, count, value) + 1);
+        System.arraycopy(list, at, list, at + 1, count - at);
+        list[at] = value;
+        return list;
+    }
+
+    /**
+     * Removes the value if present. Returns 1 if it was removed, else 0.
+     */
+    static int delete(int[] list, int count, int value) {
+        int at = Arrays.binarySearch(list, 0, count, value);
+        if (at < 0) {
+            return 0;
+        }
+        System.arraycopy(list, at + 1, list, at, count - at - 1);
+        return 1;
+    }
+}
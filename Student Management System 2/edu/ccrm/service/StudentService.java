@@ -4,32 +4,267 @@ import edu.ccrm.domain.Student;
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
 /**
  * Service class for student management
  * Demonstrates service layer pattern and Stream API usage
+ *
+ * Safe for concurrent use: all maps are concurrent, and every enrollment mutation for a
+ * student runs under that student's EnrollmentLedger monitor, so operations on different
+ * students never contend while racing operations on one student are serialized.
+ * Course seats are claimed with a compare-and-set on a per-course counter, so a popular
+ * section is never guarded by a single lock.
+ *
+ * Enrollments are held as objects, packed into primitive arrays, or off the heap in mapped
+ * files; see EnrollmentStorage.
+ *
+ * Registered MutationListeners see every change, e.g. to journal it.
+ * Enrollment, grading, transcript and search calls are timed into Metrics.
+ *
+ * Students, courses and instructors are also kept in SearchIndexes for ranked text search
+ * over names, titles, codes and emails, and in FuzzyIndexes for lookups that tolerate typos
+ * in a name, surname, email or course title.
  */
 public class StudentService {
+    // Batches at least this large are spread across the common fork-join pool
+    private static final int PARALLEL_BATCH_THRESHOLD = 10_000;
+
+    private static final OperationMetrics ENROLL_METRICS = operation("enrollStudent");
+    private static final OperationMetrics UNENROLL_METRICS = operation("unenrollStudent");
+    private static final OperationMetrics GRADE_METRICS = operation("recordGrade");
+    private static final OperationMetrics TRANSCRIPT_METRICS = operation("generateTranscript");
+    private static final OperationMetrics SEARCH_INSTRUCTOR_METRICS = operation("searchCoursesByInstructor");
+    private static final OperationMetrics SEARCH_DEPARTMENT_METRICS = operation("searchCoursesByDepartment");
+    private static final OperationMetrics SEARCH_SEMESTER_METRICS = operation("searchCoursesBySemester");
+    private static final OperationMetrics SEARCH_STUDENTS_METRICS = operation("searchStudents");
+    private static final OperationMetrics SEARCH_COURSES_METRICS = operation("searchCourses");
+    private static final OperationMetrics SEARCH_INSTRUCTORS_METRICS = operation("searchInstructors");
+    private static final OperationMetrics FUZZY_STUDENTS_METRICS = operation("fuzzySearchStudents");
+    private static final OperationMetrics FUZZY_COURSES_METRICS = operation("fuzzySearchCourses");
+    private static final OperationMetrics FUZZY_INSTRUCTORS_METRICS = operation("fuzzySearchInstructors");
+
     private final Map<String, Student> students;
     private final Map<String, Course> courses;
-    private final Map<String, List<Enrollment>> enrollments;
+    private final Map<String, Instructor> instructors;
+    private final Map<String, EnrollmentLedger> enrollments;
+    private final Map<String, Set<String>> courseRosters;
+    private final Map<String, AtomicInteger> seatsTaken;
+    private final Map<String, Waitlist> waitlists;
     private final int maxCreditsPerSemester;
+    private final EnrollmentStorage storage;
+    private final OffHeapEnrollmentStore offHeapStore;
+    // Dense ids for COMPACT and OFF_HEAP storage, shared by every ledger and roster
+    private final CodeDictionary courseCodes;
+    private final CodeDictionary studentIds;
+    private volatile boolean startupRecovery;
+    private volatile boolean gpaVerification;
+    private final List<MutationListener> listeners;
+
+    // Secondary course indexes, maintained by addCourse under courseIndexLock
+    private final Object courseIndexLock = new Object();
+    private final Map<String, Map<String, Course>> coursesByInstructor;
+    private final Map<String, Map<String, Course>> coursesByDepartment;
+    private final Map<Semester, Map<String, Course>> coursesBySemester;
+    private final SearchIndex<Student> studentSearch;
+    private final SearchIndex<Course> courseSearch;
+    private final SearchIndex<Instructor> instructorSearch;
+    private final FuzzyIndex<Student> studentLookup;
+    private final FuzzyIndex<Course> courseLookup;
+    private final FuzzyIndex<Instructor> instructorLookup;
 
     public StudentService(int maxCreditsPerSemester) {
-        this.students = new HashMap<>();
-        this.courses = new HashMap<>();
-        this.enrollments = new HashMap<>();
+        this(maxCreditsPerSemester, EnrollmentStorage.OBJECTS);
+    }
+
+    /**
+     * A service holding enrollments as OBJECTS or COMPACT; OFF_HEAP needs a store, see below.
+     */
+    public StudentService(int maxCreditsPerSemester, EnrollmentStorage storage) {
+        this(maxCreditsPerSemester, storage, null);
+    }
+
+    /**
+     * A service keeping enrollments in the given off-heap store. Enrollments the store holds
+     * from an earlier run are picked up as their students are added; see finishStartupRecovery.
+     */
+    public StudentService(int maxCreditsPerSemester, OffHeapEnrollmentStore store) {
+        this(maxCreditsPerSemester, EnrollmentStorage.OFF_HEAP,
+             Objects.requireNonNull(store, "Enrollment store cannot be null"));
+    }
+
+    private StudentService(int maxCreditsPerSemester, EnrollmentStorage storage, OffHeapEnrollmentStore store) {
+        if (storage == EnrollmentStorage.OFF_HEAP && store == null) {
+            throw new IllegalArgumentException("OFF_HEAP storage needs an OffHeapEnrollmentStore");
+        }
+        this.students = new ConcurrentHashMap<>();
+        this.courses = new ConcurrentHashMap<>();
+        this.instructors = new ConcurrentHashMap<>();
+        this.enrollments = new ConcurrentHashMap<>();
+        this.courseRosters = new ConcurrentHashMap<>();
+        this.seatsTaken = new ConcurrentHashMap<>();
+        this.waitlists = new ConcurrentHashMap<>();
+        this.coursesByInstructor = new ConcurrentHashMap<>();
+        this.coursesByDepartment = new ConcurrentHashMap<>();
+        this.coursesBySemester = new ConcurrentHashMap<>();
+        this.studentSearch = new SearchIndex<>();
+        this.courseSearch = new SearchIndex<>();
+        this.instructorSearch = new SearchIndex<>();
+        this.studentLookup = new FuzzyIndex<>(student -> Arrays.asList(student.getFullName(), student.getEmail()));
+        this.courseLookup = new FuzzyIndex<>(course -> Collections.singletonList(course.getTitle()));
+        this.instructorLookup = new FuzzyIndex<>(instructor -> Arrays.asList(instructor.getFullName(), instructor.getEmail()));
         this.maxCreditsPerSemester = maxCreditsPerSemester;
+        this.storage = Objects.requireNonNull(storage, "Enrollment storage cannot be null");
+        this.offHeapStore = store;
+        this.courseCodes = store != null ? store.getCourseCodes() : new CodeDictionary();
+        this.studentIds = store != null ? store.getStudentIds() : new CodeDictionary();
+        this.startupRecovery = store != null;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public EnrollmentStorage getEnrollmentStorage() {
+        return storage;
+    }
+
+    private EnrollmentLedger newLedger(String studentId) {
+        switch (storage) {
+            case COMPACT:
+                return new CompactEnrollmentLedger(studentId, courseCodes);
+            case OFF_HEAP:
+                return new OffHeapEnrollmentLedger(studentId, offHeapStore, startupRecovery);
+            default:
+                return new ObjectEnrollmentLedger();
+        }
+    }
+
+    /**
+     * Ends startup recovery for a service over an off-heap store. Until then, loading the
+     * snapshot and replaying the journal leave alone the enrollments of students the store
+     * already holds, since the store is at least as recent as both; their GPAs are brought
+     * in line with the store here. Call once, after the journal has been replayed.
+     */
+    public void finishStartupRecovery() {
+        startupRecovery = false;
+        for (Map.Entry<String, EnrollmentLedger> entry : enrollments.entrySet()) {
+            EnrollmentLedger ledger = entry.getValue();
+            synchronized (ledger) {
+                if (ledger.isReopened()) {
+                    ledger.markCurrent();
+                    updateStudentGPA(entry.getKey(), ledger);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the off-heap enrollment store, if the service has one, to the storage device.
+     * The journal calls this whenever it makes changes durable.
+     */
+    public void forceEnrollmentStore() {
+        if (offHeapStore != null) {
+            offHeapStore.force();
+        }
+    }
+
+    public void addMutationListener(MutationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeMutationListener(MutationListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void beginMutation() {
+        for (MutationListener listener : listeners) {
+            listener.beginMutation();
+        }
+    }
+
+    private void endMutation() {
+        for (MutationListener listener : listeners) {
+            listener.endMutation();
+        }
+    }
+
+    private static OperationMetrics operation(String name) {
+        return Metrics.getInstance().operation("StudentService." + name, Metrics.HOT_PATH_SAMPLING);
     }
 
     public void addStudent(Student student) {
-        students.put(student.getId(), student);
-        enrollments.put(student.getId(), new ArrayList<>());
+        beginMutation();
+        try {
+            EnrollmentLedger ledger = enrollments.computeIfAbsent(student.getId(), this::newLedger);
+            List<String> freedCourses = Collections.emptyList();
+            synchronized (ledger) {
+                if (ledger.isReopened()) {
+                    // Keep what the off-heap store holds; the first add rebuilds rosters and seats
+                    if (!students.containsKey(student.getId())) {
+                        for (String courseCode : ledger.getActiveCourseCodes()) {
+                            addToRoster(courseCode, student.getId());
+                            seatsTaken.computeIfAbsent(courseCode, k -> new AtomicInteger()).incrementAndGet();
+                        }
+                    }
+                } else {
+                    // Re-adding a student starts a fresh enrollment history, as before
+                    freedCourses = ledger.getActiveCourseCodes();
+                    for (String courseCode : freedCourses) {
+                        removeFromRoster(courseCode, student.getId());
+                        releaseSeat(courseCode);
+                    }
+                    ledger.clear();
+                }
+                ledger.attach(student);
+                students.put(student.getId(), student);
+                studentSearch.put(student.getId(), student);
+                studentLookup.put(student.getId(), student);
+                for (MutationListener listener : listeners) {
+                    listener.studentAdded(student);
+                }
+            }
+            freedCourses.forEach(this::promoteFromWaitlist);
+        } finally {
+            endMutation();
+        }
+    }
+
+    /**
+     * Changes a student's profile fields. Goes through the service (rather than the setters)
+     * so listeners see the change.
+     */
+    public void updateStudent(String studentId, String fullName, String email, boolean active) {
+        beginMutation();
+        try {
+            Student student = students.get(studentId);
+            EnrollmentLedger ledger = enrollments.get(studentId);
+            if (student == null || ledger == null) {
+                throw new IllegalArgumentException("Student not found: " + studentId);
+            }
+            synchronized (ledger) {
+                student.setFullName(fullName);
+                student.setEmail(email);
+                student.setActive(active);
+                studentSearch.put(studentId, student);
+                studentLookup.put(studentId, student);
+                for (MutationListener listener : listeners) {
+                    listener.studentUpdated(student);
+                }
+            }
+        } finally {
+            endMutation();
+        }
     }
 
     public Student getStudent(String studentId) {
@@ -40,6 +275,14 @@ public class StudentService {
         return new ArrayList<>(students.values());
     }
 
+    /**
+     * Read-only live view of all students, for streaming over them without copying.
+     * Iteration is weakly consistent under concurrent updates.
+     */
+    public Collection<Student> getStudentsView() {
+        return Collections.unmodifiableCollection(students.values());
+    }
+
     public List<Student> getActiveStudents() {
         return students.values().stream()
                 .filter(Student::isActive)
@@ -47,97 +290,593 @@ public class StudentService {
     }
 
     public void enrollStudent(String studentId, String courseCode) 
-            throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        long start = ENROLL_METRICS.start();
+        beginMutation();
+        try {
+            Student student = students.get(studentId);
+            Course course = courses.get(courseCode);
         
+            if (student == null) {
+                throw new IllegalArgumentException("Student not found: " + studentId);
+            }
+            if (course == null) {
+                throw new IllegalArgumentException("Course not found: " + courseCode);
+            }
+
+            EnrollmentLedger ledger = enrollments.get(studentId);
+            synchronized (ledger) {
+                switch (enrollLocked(ledger, student, course)) {
+                    case DUPLICATE:
+                        throw new DuplicateEnrollmentException("Student already enrolled in course: " + courseCode);
+                    case CREDIT_LIMIT_EXCEEDED:
+                        throw new MaxCreditLimitExceededException(
+                            String.format("Credit limit exceeded. Current: %d, Adding: %d, Max: %d", 
+                                         ledger.getActiveCredits(), course.getCredits(), maxCreditsPerSemester));
+                    case COURSE_FULL:
+                        throw new CourseFullException(
+                            String.format("Course %s is full (capacity %d)", courseCode, course.getCapacity()));
+                    default:
+                        break;
+                }
+            }
+            ENROLL_METRICS.succeeded(start);
+        } catch (Exception e) {
+            ENROLL_METRICS.failed(start, e);
+            throw e;
+        } finally {
+            endMutation();
+        }
+    }
+
+    /**
+     * Enrolls a whole batch of (student, course) pairs. Pairs are grouped by student and each
+     * student's pairs are checked and applied in input order under one lock, so the credit and
+     * duplicate rules see earlier pairs of the same batch. Large batches spread students across
+     * the common fork-join pool. Returns one result per request, in input order; rejections are
+     * reported as statuses and never thrown.
+     */
+    public List<EnrollmentResult> enrollStudents(List<EnrollmentRequest> requests) {
+        beginMutation();
+        try {
+            EnrollmentResult[] results = new EnrollmentResult[requests.size()];
+            Map<String, List<Integer>> rowsByStudent = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                rowsByStudent.computeIfAbsent(requests.get(i).getStudentId(), k -> new ArrayList<>()).add(i);
+            }
+
+            if (requests.size() >= PARALLEL_BATCH_THRESHOLD) {
+                rowsByStudent.entrySet().parallelStream()
+                        .forEach(entry -> enrollBatchForStudent(entry.getKey(), entry.getValue(), requests, results));
+            } else {
+                rowsByStudent.forEach((studentId, rows) -> enrollBatchForStudent(studentId, rows, requests, results));
+            }
+            return Arrays.asList(results);
+        } finally {
+            endMutation();
+        }
+    }
+
+    private void enrollBatchForStudent(String studentId, List<Integer> rows,
+                                       List<EnrollmentRequest> requests, EnrollmentResult[] results) {
         Student student = students.get(studentId);
-        Course course = courses.get(courseCode);
-        
-        if (student == null) {
-            throw new IllegalArgumentException("Student not found: " + studentId);
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (student == null || ledger == null) {
+            for (int row : rows) {
+                results[row] = new EnrollmentResult(requests.get(row), EnrollmentResult.Status.STUDENT_NOT_FOUND);
+            }
+            return;
         }
-        if (course == null) {
-            throw new IllegalArgumentException("Course not found: " + courseCode);
+
+        synchronized (ledger) {
+            for (int row : rows) {
+                EnrollmentRequest request = requests.get(row);
+                Course course = courses.get(request.getCourseCode());
+                EnrollmentResult.Status status = course == null
+                        ? EnrollmentResult.Status.COURSE_NOT_FOUND
+                        : enrollLocked(ledger, student, course);
+                results[row] = new EnrollmentResult(request, status);
+            }
         }
+    }
+
+    // Caller must hold the ledger monitor
+    private EnrollmentResult.Status enrollLocked(EnrollmentLedger ledger, Student student, Course course) {
+        String courseCode = course.getCode();
 
         // Check for duplicate enrollment
-        List<Enrollment> studentEnrollments = enrollments.get(studentId);
-        boolean alreadyEnrolled = studentEnrollments.stream()
-                .anyMatch(e -> e.getCourseCode().equals(courseCode) && e.isActive());
-        
-        if (alreadyEnrolled) {
-            throw new DuplicateEnrollmentException("Student already enrolled in course: " + courseCode);
+        if (ledger.isActive(courseCode)) {
+            return EnrollmentResult.Status.DUPLICATE;
         }
 
         // Check credit limit
-        int currentCredits = studentEnrollments.stream()
-                .filter(Enrollment::isActive)
-                .mapToInt(e -> courses.get(e.getCourseCode()).getCredits())
-                .sum();
-        
-        if (currentCredits + course.getCredits() > maxCreditsPerSemester) {
-            throw new MaxCreditLimitExceededException(
-                String.format("Credit limit exceeded. Current: %d, Adding: %d, Max: %d", 
-                             currentCredits, course.getCredits(), maxCreditsPerSemester));
+        if (ledger.getActiveCredits() + course.getCredits() > maxCreditsPerSemester) {
+            return EnrollmentResult.Status.CREDIT_LIMIT_EXCEEDED;
+        }
+
+        // Claim a seat last, so a rejected request never holds one
+        if (!tryReserveSeat(course)) {
+            return EnrollmentResult.Status.COURSE_FULL;
         }
 
         // Create enrollment
-        Enrollment enrollment = new Enrollment(studentId, courseCode);
-        studentEnrollments.add(enrollment);
+        Enrollment enrollment = new Enrollment(student.getId(), courseCode);
+        ledger.add(enrollment, course.getCredits());
+        addToRoster(courseCode, student.getId());
         student.enrollInCourse(courseCode);
+        for (MutationListener listener : listeners) {
+            listener.enrolled(enrollment, course.getCredits());
+        }
+        return EnrollmentResult.Status.ENROLLED;
     }
 
     public void unenrollStudent(String studentId, String courseCode) {
-        List<Enrollment> studentEnrollments = enrollments.get(studentId);
-        if (studentEnrollments != null) {
-            studentEnrollments.stream()
-                    .filter(e -> e.getCourseCode().equals(courseCode) && e.isActive())
-                    .findFirst()
-                    .ifPresent(e -> {
-                        e.setActive(false);
+        long start = UNENROLL_METRICS.start();
+        beginMutation();
+        try {
+            EnrollmentLedger ledger = enrollments.get(studentId);
+            if (ledger != null) {
+                boolean freed = false;
+                synchronized (ledger) {
+                    if (!ledger.isReopened() && ledger.deactivate(courseCode)) {
+                        removeFromRoster(courseCode, studentId);
+                        releaseSeat(courseCode);
                         students.get(studentId).unenrollFromCourse(courseCode);
-                    });
+                        updateStudentGPA(studentId, ledger);
+                        freed = true;
+                        for (MutationListener listener : listeners) {
+                            listener.unenrolled(studentId, courseCode);
+                        }
+                    }
+                }
+                // Promote outside this student's lock; promotion takes the next student's lock
+                if (freed) {
+                    promoteFromWaitlist(courseCode);
+                }
+            }
+            UNENROLL_METRICS.succeeded(start);
+        } catch (RuntimeException e) {
+            UNENROLL_METRICS.failed(start, e);
+            throw e;
+        } finally {
+            endMutation();
+        }
+    }
+
+    public int getSeatsTaken(String courseCode) {
+        AtomicInteger taken = seatsTaken.get(courseCode);
+        return taken == null ? 0 : taken.get();
+    }
+
+    /**
+     * Returns the number of free seats, or Integer.MAX_VALUE for a course without a capacity limit.
+     */
+    public int getAvailableSeats(String courseCode) {
+        Course course = courses.get(courseCode);
+        if (course == null) {
+            throw new IllegalArgumentException("Course not found: " + courseCode);
+        }
+        if (!course.hasCapacityLimit()) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, course.getCapacity() - getSeatsTaken(courseCode));
+    }
+
+    /**
+     * Queues a student for a seat in the course. The first eligible student in the queue
+     * is enrolled automatically when a seat is freed.
+     */
+    public void joinWaitlist(String studentId, String courseCode) {
+        if (!students.containsKey(studentId)) {
+            throw new IllegalArgumentException("Student not found: " + studentId);
+        }
+        if (!courses.containsKey(courseCode)) {
+            throw new IllegalArgumentException("Course not found: " + courseCode);
         }
+        waitlists.computeIfAbsent(courseCode, k -> new Waitlist()).add(studentId);
+    }
+
+    public boolean leaveWaitlist(String studentId, String courseCode) {
+        Waitlist waitlist = waitlists.get(courseCode);
+        return waitlist != null && waitlist.remove(studentId);
+    }
+
+    public List<String> getWaitlist(String courseCode) {
+        Waitlist waitlist = waitlists.get(courseCode);
+        return waitlist == null ? new ArrayList<>() : waitlist.toList();
     }
 
+    private boolean tryReserveSeat(Course course) {
+        AtomicInteger taken = seatsTaken.computeIfAbsent(course.getCode(), k -> new AtomicInteger());
+        if (!course.hasCapacityLimit()) {
+            taken.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int current = taken.get();
+            if (current >= course.getCapacity()) {
+                return false;
+            }
+            if (taken.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void releaseSeat(String courseCode) {
+        AtomicInteger taken = seatsTaken.get(courseCode);
+        if (taken != null) {
+            taken.decrementAndGet();
+        }
+    }
+
+    private void promoteFromWaitlist(String courseCode) {
+        Waitlist waitlist = waitlists.get(courseCode);
+        if (waitlist == null) {
+            return;
+        }
+        String next;
+        while ((next = waitlist.poll()) != null) {
+            Student student = students.get(next);
+            EnrollmentLedger ledger = enrollments.get(next);
+            Course course = courses.get(courseCode);
+            if (student == null || ledger == null || course == null) {
+                waitlist.finish(next);
+                continue;
+            }
+            EnrollmentResult.Status status;
+            synchronized (ledger) {
+                status = enrollLocked(ledger, student, course);
+            }
+            if (status == EnrollmentResult.Status.COURSE_FULL) {
+                // Another request took the seat first; keep this student at the head of the queue
+                waitlist.requeue(next);
+                return;
+            }
+            waitlist.finish(next);
+            if (status == EnrollmentResult.Status.ENROLLED) {
+                return;
+            }
+            // No longer eligible, try the next student
+        }
+    }
+
+    /**
+     * Records marks (0-100) for an active enrollment; other marks, NaN included, are rejected
+     * with IllegalArgumentException, as recordGrades rejects them per row.
+     */
     public void recordGrade(String studentId, String courseCode, double marks) {
-        List<Enrollment> studentEnrollments = enrollments.get(studentId);
-        if (studentEnrollments != null) {
-            studentEnrollments.stream()
-                    .filter(e -> e.getCourseCode().equals(courseCode) && e.isActive())
-                    .findFirst()
-                    .ifPresent(e -> e.recordGrade(marks));
-            
-            // Update student GPA
-            updateStudentGPA(studentId);
-        }
-    }
-
-    private void updateStudentGPA(String studentId) {
-        List<Enrollment> studentEnrollments = enrollments.get(studentId);
-        if (studentEnrollments != null) {
-            double totalPoints = studentEnrollments.stream()
-                    .filter(Enrollment::isActive)
-                    .filter(e -> e.getGrade() != null)
-                    .mapToDouble(e -> {
-                        Course course = courses.get(e.getCourseCode());
-                        return e.getGrade().getPoints() * course.getCredits();
-                    })
-                    .sum();
-            
-            int totalCredits = studentEnrollments.stream()
-                    .filter(Enrollment::isActive)
-                    .filter(e -> e.getGrade() != null)
-                    .mapToInt(e -> courses.get(e.getCourseCode()).getCredits())
-                    .sum();
-            
-            if (totalCredits > 0) {
-                double gpa = totalPoints / totalCredits;
-                students.get(studentId).setGpa(gpa);
+        long start = GRADE_METRICS.start();
+        beginMutation();
+        try {
+            // Checked here so every enrollment storage rejects the same marks
+            if (!isValidMarks(marks)) {
+                throw new IllegalArgumentException(marksOutOfRange(marks));
+            }
+            EnrollmentLedger ledger = enrollments.get(studentId);
+            if (ledger != null) {
+                synchronized (ledger) {
+                    if (!ledger.isReopened() && ledger.recordGrade(courseCode, marks)) {
+                        for (MutationListener listener : listeners) {
+                            listener.gradeRecorded(studentId, courseCode, marks);
+                        }
+                        // Update student GPA; a grade that was not recorded leaves it as it is
+                        updateStudentGPA(studentId, ledger);
+                    }
+                }
+            }
+            GRADE_METRICS.succeeded(start);
+        } catch (RuntimeException e) {
+            GRADE_METRICS.failed(start, e);
+            throw e;
+        } finally {
+            endMutation();
+        }
+    }
+
+    /**
+     * Records many grades at once. Rows are grouped by student, each student's rows are
+     * applied in input order under one lock, and each GPA is recomputed once per batch.
+     * Bad rows, including marks recordGrade would reject, are reported in the returned
+     * BatchReport instead of stopping the batch.
+     */
+    public BatchReport recordGrades(List<GradeEntry> grades) {
+        beginMutation();
+        try {
+            BatchReport report = new BatchReport();
+            Map<String, List<Integer>> rowsByStudent = new LinkedHashMap<>();
+            for (int i = 0; i < grades.size(); i++) {
+                rowsByStudent.computeIfAbsent(grades.get(i).getStudentId(), k -> new ArrayList<>()).add(i);
+            }
+
+            for (Map.Entry<String, List<Integer>> entry : rowsByStudent.entrySet()) {
+                String studentId = entry.getKey();
+                EnrollmentLedger ledger = enrollments.get(studentId);
+                if (ledger == null || !students.containsKey(studentId)) {
+                    for (int row : entry.getValue()) {
+                        report.addError(row + 1, "Student not found: " + studentId);
+                    }
+                    continue;
+                }
+
+                synchronized (ledger) {
+                    boolean changed = false;
+                    for (int row : entry.getValue()) {
+                        GradeEntry grade = grades.get(row);
+                        if (!ledger.isActive(grade.getCourseCode())) {
+                            report.addError(row + 1, "Student " + studentId + 
+                                    " is not enrolled in course: " + grade.getCourseCode());
+                        } else if (!isValidMarks(grade.getMarks())) {
+                            report.addError(row + 1, marksOutOfRange(grade.getMarks()));
+                        } else {
+                            ledger.recordGrade(grade.getCourseCode(), grade.getMarks());
+                            for (MutationListener listener : listeners) {
+                                listener.gradeRecorded(studentId, grade.getCourseCode(), grade.getMarks());
+                            }
+                            report.addApplied();
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        updateStudentGPA(studentId, ledger);
+                    }
+                }
+            }
+            return report;
+        } finally {
+            endMutation();
+        }
+    }
+
+    // The one rule for both grade entry points; false for NaN
+    private static boolean isValidMarks(double marks) {
+        return marks >= 0 && marks <= 100;
+    }
+
+    private static String marksOutOfRange(double marks) {
+        return "Marks out of range (0-100): " + marks;
+    }
+
+    /**
+     * Restores a persisted enrollment as-is, bypassing the duplicate, credit and seat rules.
+     * Used when loading saved state; the student must already have been added.
+     */
+    public void restoreEnrollment(Enrollment enrollment, int chargedCredits) {
+        beginMutation();
+        try {
+            String studentId = enrollment.getStudentId();
+            String courseCode = enrollment.getCourseCode();
+            Student student = students.get(studentId);
+            EnrollmentLedger ledger = enrollments.get(studentId);
+            if (student == null || ledger == null) {
+                throw new IllegalArgumentException("Student not found: " + studentId);
+            }
+            synchronized (ledger) {
+                if (ledger.isReopened()) {
+                    return; // Already in the off-heap store
+                }
+                boolean seatHeld = ledger.isActive(courseCode);
+                ledger.restore(enrollment, chargedCredits);
+                if (enrollment.isActive()) {
+                    addToRoster(courseCode, studentId);
+                    if (!seatHeld) {
+                        seatsTaken.computeIfAbsent(courseCode, k -> new AtomicInteger()).incrementAndGet();
+                    }
+                    student.enrollInCourse(courseCode);
+                }
+                for (MutationListener listener : listeners) {
+                    listener.enrolled(enrollment, chargedCredits);
+                }
             }
+        } finally {
+            endMutation();
+        }
+    }
+
+    /**
+     * Returns every enrollment the student has had, active or not, in enrollment order.
+     */
+    public List<Enrollment> getEnrollmentHistory(String studentId) {
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger == null) {
+            return new ArrayList<>();
+        }
+        synchronized (ledger) {
+            return new ArrayList<>(ledger.getHistory());
+        }
+    }
+
+    /**
+     * Visits every enrollment of the student in enrollment order, together with the credits
+     * charged for it (0 once inactive). Runs under the student's lock, so the view is consistent.
+     */
+    public void forEachEnrollment(String studentId, ObjIntConsumer<Enrollment> action) {
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger == null) {
+            return;
+        }
+        synchronized (ledger) {
+            ledger.forEachEnrollment(action);
+        }
+    }
+
+    /**
+     * Visits the student's active enrollments in transcript order, with the credits charged
+     * for each. Runs under the student's lock, so the view is consistent.
+     */
+    public void forEachActiveEnrollment(String studentId, ObjIntConsumer<Enrollment> action) {
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger == null) {
+            return;
+        }
+        synchronized (ledger) {
+            ledger.forEachActiveEnrollment(action);
+        }
+    }
+
+    /**
+     * Runs the action under the student's lock, the one the student's mutation events are
+     * sent under. Listeners that seed themselves from current state use it so that they take
+     * locks in the same order as the events do. Does nothing for an unknown student.
+     */
+    public void runLocked(String studentId, Runnable action) {
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger == null) {
+            return;
+        }
+        synchronized (ledger) {
+            action.run();
+        }
+    }
+
+    public boolean isEnrolled(String studentId, String courseCode) {
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger == null) {
+            return false;
+        }
+        synchronized (ledger) {
+            return ledger.isActive(courseCode);
+        }
+    }
+
+    public int getActiveCredits(String studentId) {
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger == null) {
+            return 0;
+        }
+        synchronized (ledger) {
+            return ledger.getActiveCredits();
+        }
+    }
+
+    public List<Student> getCourseRoster(String courseCode) {
+        Set<String> roster = courseRosters.get(courseCode);
+        if (roster == null) {
+            return new ArrayList<>();
+        }
+        return roster.stream()
+                .map(students::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public int getCourseEnrollmentCount(String courseCode) {
+        Set<String> roster = courseRosters.get(courseCode);
+        return roster == null ? 0 : roster.size();
+    }
+
+    /**
+     * Checks the enrollment invariants: no student over the credit limit, running credit
+     * totals matching their active enrollments, and rosters and seat counts agreeing with the ledgers.
+     * Intended for diagnostics and concurrency stress runs, not the request path.
+     */
+    public boolean verifyEnrollmentIndexes() {
+        Map<String, Set<String>> expectedRosters = new HashMap<>();
+        for (Map.Entry<String, EnrollmentLedger> entry : enrollments.entrySet()) {
+            EnrollmentLedger ledger = entry.getValue();
+            synchronized (ledger) {
+                int credits = 0;
+                for (Enrollment e : ledger.getActiveEnrollments()) {
+                    if (!e.isActive() || !e.getStudentId().equals(entry.getKey())) {
+                        return false;
+                    }
+                    credits += ledger.getCreditsFor(e.getCourseCode());
+                    expectedRosters.computeIfAbsent(e.getCourseCode(), k -> new HashSet<>()).add(entry.getKey());
+                }
+                if (credits != ledger.getActiveCredits() || credits > maxCreditsPerSemester) {
+                    return false;
+                }
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : courseRosters.entrySet()) {
+            Set<String> expected = expectedRosters.getOrDefault(entry.getKey(), Collections.emptySet());
+            if (!expected.equals(entry.getValue()) || getSeatsTaken(entry.getKey()) != expected.size()) {
+                return false;
+            }
+        }
+        return courseRosters.keySet().containsAll(expectedRosters.keySet());
+    }
+
+    // Rosters are never removed once created, so updates stay lock-free on the hot path
+    private void addToRoster(String courseCode, String studentId) {
+        courseRosters.computeIfAbsent(courseCode, k -> storage == EnrollmentStorage.OBJECTS
+                ? ConcurrentHashMap.newKeySet()
+                : new DenseIdSet(studentIds)).add(studentId);
+    }
+
+    private void removeFromRoster(String courseCode, String studentId) {
+        Set<String> roster = courseRosters.get(courseCode);
+        if (roster != null) {
+            roster.remove(studentId);
+        }
+    }
+
+    /**
+     * When enabled, every incremental GPA update is checked against a full recompute
+     * over the student's active enrollments and a mismatch raises IllegalStateException.
+     */
+    public void setGpaVerification(boolean enabled) {
+        this.gpaVerification = enabled;
+    }
+
+    public boolean isGpaVerification() {
+        return gpaVerification;
+    }
+
+    // Caller must hold the ledger monitor
+    private void updateStudentGPA(String studentId, EnrollmentLedger ledger) {
+        double totalPoints = ledger.getGradePoints();
+        int totalCredits = ledger.getGradedCredits();
+        
+        // No graded credits left, e.g. after dropping the last graded course: no GPA
+        double gpa = totalCredits > 0 ? totalPoints / totalCredits : 0.0;
+        Student student = students.get(studentId);
+        double previousGpa = student.getGpa();
+        student.setGpa(gpa);
+        
+        if (gpaVerification) {
+            verifyGpa(student, ledger, totalPoints, totalCredits);
+        }
+        
+        if (gpa != previousGpa) {
+            for (MutationListener listener : listeners) {
+                listener.gpaChanged(student, previousGpa);
+            }
+        }
+    }
+
+    // Checks the running totals and the student's GPA against a recompute from the enrollments
+    private void verifyGpa(Student student, EnrollmentLedger ledger, double totalPoints, int totalCredits) {
+        String studentId = student.getId();
+        double[] expectedPoints = new double[1];
+        int[] expectedCredits = new int[1];
+        ledger.forEachActiveEnrollment((e, credits) -> {
+            if (e.getGrade() != null) {
+                expectedPoints[0] += e.getGrade().getPoints() * credits;
+                expectedCredits[0] += credits;
+            }
+        });
+        
+        if (expectedCredits[0] != totalCredits || Math.abs(expectedPoints[0] - totalPoints) > 1e-9) {
+            throw new IllegalStateException(String.format(
+                "GPA totals drifted for %s: points %.2f/%d, recomputed %.2f/%d",
+                studentId, totalPoints, totalCredits, expectedPoints[0], expectedCredits[0]));
+        }
+        double expectedGpa = expectedCredits[0] > 0 ? expectedPoints[0] / expectedCredits[0] : 0.0;
+        if (Math.abs(student.getGpa() - expectedGpa) > 1e-9) {
+            throw new IllegalStateException(String.format(
+                "GPA drifted for %s: %.4f, recomputed %.4f", studentId, student.getGpa(), expectedGpa));
         }
     }
 
     public String generateTranscript(String studentId) {
+        long start = TRANSCRIPT_METRICS.start();
+        String transcript = buildTranscript(studentId);
+        TRANSCRIPT_METRICS.succeeded(start);
+        return transcript;
+    }
+
+    private String buildTranscript(String studentId) {
         Student student = students.get(studentId);
         if (student == null) {
             return "Student not found: " + studentId;
@@ -153,26 +892,69 @@ public class StudentService {
         transcript.append("Code\tTitle\t\t\tCredits\tGrade\tMarks\n");
         transcript.append("----\t-----\t\t\t-------\t-----\t-----\n");
         
-        List<Enrollment> studentEnrollments = enrollments.get(studentId);
-        if (studentEnrollments != null) {
-            studentEnrollments.stream()
-                    .filter(Enrollment::isActive)
-                    .forEach(e -> {
-                        Course course = courses.get(e.getCourseCode());
-                        transcript.append(String.format("%s\t%-20s\t%d\t%s\t%.1f\n",
-                                course.getCode(),
-                                course.getTitle(),
-                                course.getCredits(),
-                                e.getGrade() != null ? e.getGrade().getLetter() : "N/A",
-                                e.getMarks()));
-                    });
+        EnrollmentLedger ledger = enrollments.get(studentId);
+        if (ledger != null) {
+            synchronized (ledger) {
+                ledger.getActiveEnrollments()
+                        .forEach(e -> {
+                            Course course = courses.get(e.getCourseCode());
+                            transcript.append(String.format("%s\t%-20s\t%d\t%s\t%.1f\n",
+                                    course.getCode(),
+                                    course.getTitle(),
+                                    course.getCredits(),
+                                    e.getGrade() != null ? e.getGrade().getLetter() : "N/A",
+                                    e.getMarks()));
+                        });
+            }
         }
         
         return transcript.toString();
     }
 
+    public void addInstructor(Instructor instructor) {
+        beginMutation();
+        try {
+            instructors.put(instructor.getId(), instructor);
+            instructorSearch.put(instructor.getId(), instructor);
+            instructorLookup.put(instructor.getId(), instructor);
+            for (MutationListener listener : listeners) {
+                listener.instructorAdded(instructor);
+            }
+        } finally {
+            endMutation();
+        }
+    }
+
+    public Instructor getInstructor(String instructorId) {
+        return instructors.get(instructorId);
+    }
+
+    public List<Instructor> getAllInstructors() {
+        return new ArrayList<>(instructors.values());
+    }
+
+    public Collection<Instructor> getInstructorsView() {
+        return Collections.unmodifiableCollection(instructors.values());
+    }
+
     public void addCourse(Course course) {
-        courses.put(course.getCode(), course);
+        beginMutation();
+        try {
+            synchronized (courseIndexLock) {
+                Course previous = courses.put(course.getCode(), course);
+                if (previous != null) {
+                    unindexCourse(previous);
+                }
+                indexCourse(course);
+                courseSearch.put(course.getCode(), course);
+                courseLookup.put(course.getCode(), course);
+                for (MutationListener listener : listeners) {
+                    listener.courseAdded(course);
+                }
+            }
+        } finally {
+            endMutation();
+        }
     }
 
     public Course getCourse(String courseCode) {
@@ -183,24 +965,194 @@ public class StudentService {
         return new ArrayList<>(courses.values());
     }
 
+    public Collection<Course> getCoursesView() {
+        return Collections.unmodifiableCollection(courses.values());
+    }
+
     public List<Course> searchCoursesByInstructor(String instructorId) {
+        long start = SEARCH_INSTRUCTOR_METRICS.start();
+        List<Course> found = indexLookup(coursesByInstructor, instructorId);
+        SEARCH_INSTRUCTOR_METRICS.succeeded(start);
+        return found;
+    }
+
+    public List<Course> searchCoursesByDepartment(String department) {
+        long start = SEARCH_DEPARTMENT_METRICS.start();
+        List<Course> found = indexLookup(coursesByDepartment, departmentKey(department));
+        SEARCH_DEPARTMENT_METRICS.succeeded(start);
+        return found;
+    }
+
+    public List<Course> searchCoursesBySemester(Semester semester) {
+        long start = SEARCH_SEMESTER_METRICS.start();
+        List<Course> found = indexLookup(coursesBySemester, semester);
+        SEARCH_SEMESTER_METRICS.succeeded(start);
+        return found;
+    }
+
+    /**
+     * Students whose ID, registration number, name or email has a word starting with each
+     * word of the query, best matches first: whole-word matches rank above prefix matches.
+     */
+    public List<Student> searchStudents(String query, int limit) {
+        long start = SEARCH_STUDENTS_METRICS.start();
+        List<Student> found = studentSearch.search(query, limit);
+        SEARCH_STUDENTS_METRICS.succeeded(start);
+        return found;
+    }
+
+    /**
+     * Courses matching the query by code, title or department, ranked as in searchStudents.
+     */
+    public List<Course> searchCourses(String query, int limit) {
+        long start = SEARCH_COURSES_METRICS.start();
+        List<Course> found = courseSearch.search(query, limit);
+        SEARCH_COURSES_METRICS.succeeded(start);
+        return found;
+    }
+
+    /**
+     * Instructors matching the query by ID, employee ID, name, email or department.
+     */
+    public List<Instructor> searchInstructors(String query, int limit) {
+        long start = SEARCH_INSTRUCTORS_METRICS.start();
+        List<Instructor> found = instructorSearch.search(query, limit);
+        SEARCH_INSTRUCTORS_METRICS.succeeded(start);
+        return found;
+    }
+
+    /**
+     * Students whose full name, one of its words, or email is within a few typos of the
+     * query, closest first, for when the exact ID is not at hand. Allows up to FuzzyIndex.MAX_EDITS edits, fewer
+     * for short queries.
+     */
+    public List<Student> fuzzySearchStudents(String query, int limit) {
+        long start = FUZZY_STUDENTS_METRICS.start();
+        List<Student> found = studentLookup.search(query, limit);
+        FUZZY_STUDENTS_METRICS.succeeded(start);
+        return found;
+    }
+
+    /**
+     * Courses whose title, or one of its words, is within a few typos of the query, closest
+     * first.
+     */
+    public List<Course> fuzzySearchCourses(String query, int limit) {
+        long start = FUZZY_COURSES_METRICS.start();
+        List<Course> found = courseLookup.search(query, limit);
+        FUZZY_COURSES_METRICS.succeeded(start);
+        return found;
+    }
+
+    /**
+     * Instructors whose full name, one of its words, or email is within a few typos of the
+     * query, closest first.
+     */
+    public List<Instructor> fuzzySearchInstructors(String query, int limit) {
+        long start = FUZZY_INSTRUCTORS_METRICS.start();
+        List<Instructor> found = instructorLookup.search(query, limit);
+        FUZZY_INSTRUCTORS_METRICS.succeeded(start);
+        return found;
+    }
+
+    // Full-scan variants, kept to cross-check and benchmark the indexed lookups
+    public List<Course> scanCoursesByInstructor(String instructorId) {
         return courses.values().stream()
-                .filter(c -> c.getInstructorId().equals(instructorId))
+                .filter(c -> instructorId != null && instructorId.equals(c.getInstructorId()))
                 .collect(Collectors.toList());
     }
 
-    public List<Course> searchCoursesByDepartment(String department) {
+    public List<Course> scanCoursesByDepartment(String department) {
         return courses.values().stream()
-                .filter(c -> c.getDepartment().equalsIgnoreCase(department))
+                .filter(c -> department != null && department.equalsIgnoreCase(c.getDepartment()))
                 .collect(Collectors.toList());
     }
 
-    public List<Course> searchCoursesBySemester(edu.ccrm.domain.Semester semester) {
+    public List<Course> scanCoursesBySemester(Semester semester) {
         return courses.values().stream()
                 .filter(c -> c.getSemester().equals(semester))
                 .collect(Collectors.toList());
     }
-}
 
+    // Unranked, in no particular order
+    public List<Student> scanStudents(String query) {
+        return students.values().stream()
+                .filter(s -> s.matches(query))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Compares every indexed lookup with its full-scan equivalent.
+     * Returns false if any index has drifted from the course map.
+     */
+    public boolean verifyCourseIndexes() {
+        for (Course course : courses.values()) {
+            if (!sameCourses(searchCoursesByInstructor(course.getInstructorId()),
+                             scanCoursesByInstructor(course.getInstructorId()))
+                    || !sameCourses(searchCoursesByDepartment(course.getDepartment()),
+                                    scanCoursesByDepartment(course.getDepartment()))) {
+                return false;
+            }
+        }
+        for (Semester semester : Semester.values()) {
+            if (!sameCourses(searchCoursesBySemester(semester), scanCoursesBySemester(semester))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    private void indexCourse(Course course) {
+        // Courses without an instructor or department are left out of those indexes, which no lookup matches
+        if (course.getInstructorId() != null) {
+            coursesByInstructor.computeIfAbsent(course.getInstructorId(), k -> new ConcurrentHashMap<>())
+                    .put(course.getCode(), course);
+        }
+        if (course.getDepartment() != null) {
+            coursesByDepartment.computeIfAbsent(departmentKey(course.getDepartment()), k -> new ConcurrentHashMap<>())
+                    .put(course.getCode(), course);
+        }
+        coursesBySemester.computeIfAbsent(course.getSemester(), k -> new ConcurrentHashMap<>())
+                .put(course.getCode(), course);
+    }
 
+    private void unindexCourse(Course course) {
+        if (course.getInstructorId() != null) {
+            removeFromIndex(coursesByInstructor, course.getInstructorId(), course.getCode());
+        }
+        if (course.getDepartment() != null) {
+            removeFromIndex(coursesByDepartment, departmentKey(course.getDepartment()), course.getCode());
+        }
+        removeFromIndex(coursesBySemester, course.getSemester(), course.getCode());
+    }
+
+    private static <K> void removeFromIndex(Map<K, Map<String, Course>> index, K key, String courseCode) {
+        Map<String, Course> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(courseCode);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static <K> List<Course> indexLookup(Map<K, Map<String, Course>> index, K key) {
+        if (key == null) {
+            return new ArrayList<>();
+        }
+        Map<String, Course> bucket = index.get(key);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+
+    /**
+     * Departments match case-insensitively; this is the key the department index and the
+     * reports group courses by. Null for a null department, which no lookup matches.
+     */
+    public static String departmentKey(String department) {
+        return department == null ? null : department.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean sameCourses(List<Course> a, List<Course> b) {
+        return a.size() == b.size() && new HashSet<>(a).equals(new HashSet<>(b));
+    }
+}
@@ -0,0 +1,409 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.OperationMetrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Transcript rendering with a per-student cache
+ * Produces the same text as StudentService.generateTranscript, built with a StringBuilder
+ * and preformatted course columns instead of a String.format per row. Rendered transcripts
+ * are cached and dropped when a mutation event touches the student (enrollment, grade,
+ * GPA or profile change). A course change bumps a generation instead of walking the cache:
+ * transcripts and course columns carry the generation they were built under and are stale
+ * once it moves on.
+ *
+ * A render that overlaps a change to its student is returned but not cached: invalidation
+ * bumps a counter in a fixed array of stripes picked by student ID, and a transcript is only
+ * stored while its stripe still reads as it did when the render started. Only rendered
+ * transcripts are kept, so the cache never holds more than maxCached entries.
+ *
+ * close() unsubscribes from the service and drops the cache; transcripts are then
+ * rendered afresh on every call.
+ */
+public class TranscriptService implements MutationListener, AutoCloseable {
+    public static final int DEFAULT_MAX_CACHED = 10_000;
+    // Students rendered in parallel per batch in bulk output, which bounds memory use
+    private static final int BULK_BATCH_SIZE = 1024;
+    private static final String LINE_SEPARATOR = "\n";
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private static final OperationMetrics TRANSCRIPT_METRICS =
+            Metrics.getInstance().operation("TranscriptService.getTranscript", Metrics.HOT_PATH_SAMPLING);
+    private static final OperationMetrics EXPORT_METRICS =
+            Metrics.getInstance().operation("TranscriptService.exportTranscripts");
+    private static final OperationMetrics EXPORT_FILES_METRICS =
+            Metrics.getInstance().operation("TranscriptService.exportTranscriptFiles");
+
+    /**
+     * Text built under a generation: a whole transcript, or the columns of one course
+     */
+    private static class Cached {
+        final long generation;
+        final String text;
+
+        Cached(long generation, String text) {
+            this.generation = generation;
+            this.text = text;
+        }
+    }
+
+    private final StudentService studentService;
+    private final int maxCached;
+    private final Map<String, Cached> cache;
+    private final Map<String, Cached> courseColumns;
+    private final AtomicInteger cachedTranscripts;
+    // Bumped when every transcript is invalidated at once
+    private final AtomicLong generation;
+    private final AtomicLongArray invalidations;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    // Once closed, no events arrive to invalidate a cache, so nothing is cached
+    private volatile boolean closed;
+
+    public TranscriptService(StudentService studentService) {
+        this(studentService, DEFAULT_MAX_CACHED);
+    }
+
+    public TranscriptService(StudentService studentService, int maxCached) {
+        this.studentService = studentService;
+        this.maxCached = maxCached;
+        this.cache = new ConcurrentHashMap<>();
+        this.courseColumns = new ConcurrentHashMap<>();
+        this.cachedTranscripts = new AtomicInteger();
+        this.generation = new AtomicLong();
+        this.invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        studentService.addMutationListener(this);
+    }
+
+    /**
+     * Returns the student's transcript, from the cache when it is current.
+     */
+    public String getTranscript(String studentId) {
+        long start = TRANSCRIPT_METRICS.start();
+        String transcript = lookup(studentId);
+        TRANSCRIPT_METRICS.succeeded(start);
+        return transcript;
+    }
+
+    private String lookup(String studentId) {
+        long renderGeneration = generation.get();
+        Cached cached = cache.get(studentId);
+        if (!closed && cached != null && cached.generation == renderGeneration) {
+            hits.increment();
+            return cached.text;
+        }
+        misses.increment();
+
+        int stripe = stripe(studentId);
+        long stamp = invalidations.get(stripe);
+        String transcript = render(studentId, renderGeneration);
+        if (transcript == null) {
+            return notFound(studentId);
+        }
+        if (!closed && (cached != null || cachedTranscripts.get() < maxCached)) {
+            cache.compute(studentId, (id, current) -> {
+                // A stale generation's transcript is replaced in place; invalidation removes
+                // entries, so a moved stripe means the render may have missed a change
+                if (invalidations.get(stripe) != stamp || generation.get() != renderGeneration
+                        || (current != null && current.generation == renderGeneration)) {
+                    return current;
+                }
+                if (current == null) {
+                    cachedTranscripts.incrementAndGet();
+                }
+                return new Cached(renderGeneration, transcript);
+            });
+        }
+        return transcript;
+    }
+
+    /**
+     * Writes the student's transcript to the writer, which is flushed but not closed.
+     */
+    public void writeTranscript(String studentId, Writer out) throws IOException {
+        out.write(getTranscript(studentId));
+        out.flush();
+    }
+
+    /**
+     * Writes the student's transcript as UTF-8; the stream is flushed but not closed.
+     */
+    public void writeTranscript(String studentId, OutputStream out) throws IOException {
+        writeTranscript(studentId, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * IDs of the students matching the filter, in ID order, e.g. a graduating cohort.
+     */
+    public List<String> selectStudents(Predicate<Student> filter) {
+        return studentService.getStudentsView().stream()
+                .filter(filter)
+                .map(Student::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the transcripts of the given students to the writer in the given order,
+     * separated by blank lines. Batches are rendered in parallel and written in order, so
+     * memory stays bounded whatever the cohort size. Bulk runs read the cache but do not
+     * fill it. Returns the number of transcripts written.
+     */
+    public int writeTranscripts(List<String> studentIds, Writer out) throws IOException {
+        int written = 0;
+        for (int start = 0; start < studentIds.size(); start += BULK_BATCH_SIZE) {
+            List<String> batch = studentIds.subList(start, Math.min(start + BULK_BATCH_SIZE, studentIds.size()));
+            List<String> transcripts = batch.parallelStream()
+                    .map(this::cachedOrRender)
+                    .collect(Collectors.toList());
+            for (String transcript : transcripts) {
+                if (written > 0) {
+                    out.write(LINE_SEPARATOR);
+                }
+                out.write(transcript);
+                written++;
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Writes the transcripts of the given students into one UTF-8 file.
+     */
+    public int exportTranscripts(List<String> studentIds, Path file) throws IOException {
+        long start = EXPORT_METRICS.start();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            int written;
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                written = writeTranscripts(studentIds, out);
+            }
+            EXPORT_METRICS.succeeded(start, written);
+            return written;
+        } catch (IOException | RuntimeException e) {
+            EXPORT_METRICS.failed(start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes one file per student (named after the student ID) into the directory, in
+     * parallel. Returns the number of files written.
+     */
+    public int exportTranscriptFiles(List<String> studentIds, Path directory) throws IOException {
+        long start = EXPORT_FILES_METRICS.start();
+        try {
+            int written = writeTranscriptFiles(studentIds, directory);
+            EXPORT_FILES_METRICS.succeeded(start, written);
+            return written;
+        } catch (IOException | RuntimeException e) {
+            EXPORT_FILES_METRICS.failed(start, e);
+            throw e;
+        }
+    }
+
+    private int writeTranscriptFiles(List<String> studentIds, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try {
+            return studentIds.parallelStream()
+                    .mapToInt(studentId -> {
+                        Path file = directory.resolve(fileName(studentId) + ".txt");
+                        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                                Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+                            out.write(cachedOrRender(studentId));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return 1;
+                    })
+                    .sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public int getCachedCount() {
+        return cachedTranscripts.get();
+    }
+
+    /**
+     * Unsubscribes from the student service and drops the cache.
+     */
+    @Override
+    public void close() {
+        studentService.removeMutationListener(this);
+        closed = true;
+        cache.clear();
+        courseColumns.clear();
+        cachedTranscripts.set(0);
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        invalidate(student.getId());
+    }
+
+    @Override
+    public void studentUpdated(Student student) {
+        invalidate(student.getId());
+    }
+
+    @Override
+    public void enrolled(Enrollment enrollment, int credits) {
+        invalidate(enrollment.getStudentId());
+    }
+
+    @Override
+    public void unenrolled(String studentId, String courseCode) {
+        invalidate(studentId);
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseCode, double marks) {
+        invalidate(studentId);
+    }
+
+    @Override
+    public void gpaChanged(Student student, double previousGpa) {
+        invalidate(student.getId());
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        // Title or credits may have changed under every transcript that lists the course
+        generation.incrementAndGet();
+    }
+
+    private void invalidate(String studentId) {
+        // Bumped before the removal, so a render that stores after it sees the change
+        invalidations.incrementAndGet(stripe(studentId));
+        if (cache.remove(studentId) != null) {
+            cachedTranscripts.decrementAndGet();
+        }
+    }
+
+    private static int stripe(String studentId) {
+        return (studentId.hashCode() * 0x9E3779B9 >>> 1) % INVALIDATION_STRIPES;
+    }
+
+    private String cachedOrRender(String studentId) {
+        long renderGeneration = generation.get();
+        Cached cached = cache.get(studentId);
+        if (!closed && cached != null && cached.generation == renderGeneration) {
+            return cached.text;
+        }
+        String transcript = render(studentId, renderGeneration);
+        return transcript != null ? transcript : notFound(studentId);
+    }
+
+    private static String notFound(String studentId) {
+        return "Student not found: " + studentId;
+    }
+
+    // Null when there is no such student
+    private String render(String studentId, long renderGeneration) {
+        Student student = studentService.getStudent(studentId);
+        if (student == null) {
+            return null;
+        }
+
+        StringBuilder transcript = new StringBuilder(512);
+        transcript.append("=== TRANSCRIPT ===\n");
+        transcript.append("Student: ").append(student.getFullName()).append("\n");
+        transcript.append("Registration No: ").append(student.getRegNo()).append("\n");
+        transcript.append("GPA: ").append(String.format("%.2f", student.getGpa())).append("\n\n");
+
+        transcript.append("Course Records:\n");
+        transcript.append("Code\tTitle\t\t\tCredits\tGrade\tMarks\n");
+        transcript.append("----\t-----\t\t\t-------\t-----\t-----\n");
+
+        studentService.forEachActiveEnrollment(studentId, (enrollment, credits) -> {
+            transcript.append(courseColumns(enrollment.getCourseCode(), credits, renderGeneration));
+            transcript.append(enrollment.getGrade() != null ? enrollment.getGrade().getLetter() : "N/A");
+            transcript.append('\t');
+            appendOneDecimal(transcript, enrollment.getMarks());
+            transcript.append('\n');
+        });
+        return transcript.toString();
+    }
+
+    // "code TAB title padded to 20 TAB credits TAB", built once per course and generation.
+    // Columns read before a course change are stored under the older generation, so they are
+    // rebuilt on next use rather than outliving the change.
+    private String courseColumns(String courseCode, int chargedCredits, long renderGeneration) {
+        Cached columns = courseColumns.get(courseCode);
+        if (!closed && columns != null && columns.generation == renderGeneration) {
+            return columns.text;
+        }
+        Course course = studentService.getCourse(courseCode);
+        if (course == null) {
+            // Not cached: the course may be added later
+            return courseCode + "\t" + padRight("(unknown course)", 20) + "\t" + chargedCredits + "\t";
+        }
+        String text = course.getCode() + "\t" + padRight(String.valueOf(course.getTitle()), 20) + "\t" + course.getCredits() + "\t";
+        if (!closed) {
+            courseColumns.put(courseCode, new Cached(renderGeneration, text));
+        }
+        return text;
+    }
+
+    private static String padRight(String value, int width) {
+        StringBuilder padded = new StringBuilder(value);
+        while (padded.length() < width) {
+            padded.append(' ');
+        }
+        return padded.toString();
+    }
+
+    // Same output as %.1f for marks (non-negative, at most 100), without a Formatter
+    private static void appendOneDecimal(StringBuilder out, double value) {
+        if (value < 0 || value > 1e9 || Double.isNaN(value)) {
+            out.append(String.format("%.1f", value));
+            return;
+        }
+        long tenths = Math.round(value * 10);
+        out.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    private static String fileName(String studentId) {
+        String name = studentId.replaceAll("[^A-Za-z0-9._-]+", "_");
+        return name.isEmpty() || name.startsWith(".") ? "_" + name : name;
+    }
+}
@@ -0,0 +1,64 @@
+package edu.ccrm.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A course's queue of students waiting for a seat, in join order, with a membership set so
+ * a student is queued at most once and the check costs O(1) rather than a scan of the queue.
+ * A student taken off the head for promotion stays a member until the promotion finishes,
+ * so joining again meanwhile does not queue them twice.
+ *
+ * Thread-safe: every operation locks the waitlist.
+ */
+class Waitlist {
+    private final Deque<String> queue = new ArrayDeque<>();
+    private final Set<String> members = new HashSet<>();
+
+    /**
+     * Queues the student at the tail; false if they are already waiting.
+     */
+    synchronized boolean add(String studentId) {
+        if (!members.add(studentId)) {
+            return false;
+        }
+        queue.addLast(studentId);
+        return true;
+    }
+
+    synchronized boolean remove(String studentId) {
+        if (!members.remove(studentId)) {
+            return false;
+        }
+        queue.remove(studentId);
+        return true;
+    }
+
+    /**
+     * Takes the head for promotion, or null if nobody is queued. The caller ends the
+     * promotion with finish or requeue.
+     */
+    synchronized String poll() {
+        return queue.pollFirst();
+    }
+
+    // Promotion is over: the student was enrolled or is no longer eligible
+    synchronized void finish(String studentId) {
+        members.remove(studentId);
+    }
+
+    // Promotion found no seat: back to the head, unless the student left meanwhile
+    synchronized void requeue(String studentId) {
+        if (members.contains(studentId)) {
+            queue.addFirst(studentId);
+        }
+    }
+
+    synchronized List<String> toList() {
+        return new ArrayList<>(queue);
+    }
+}
@@ -0,0 +1,38 @@
+package edu.ccrm.util;
+
+import edu.ccrm.io.CsvWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Renders a report as CSV: a header of column keys, then one line per row
+ */
+public class CsvReportRenderer implements ReportRenderer {
+
+    @Override
+    public void render(Report report, Writer out) throws IOException {
+        List<Report.Column> columns = report.getColumns();
+        // Not closed: that would close the caller's writer
+        CsvWriter csv = new CsvWriter(out);
+        for (Report.Column column : columns) {
+            csv.field(column.getKey());
+        }
+        csv.endRow();
+        for (List<Object> row : report.getRows()) {
+            for (int c = 0; c < columns.size(); c++) {
+                Object value = row.get(c);
+                if (value instanceof Double || value instanceof Float) {
+                    csv.field(((Number) value).doubleValue(), columns.get(c).getDecimals());
+                } else if (value instanceof Number) {
+                    csv.field(((Number) value).longValue());
+                } else {
+                    csv.field(value == null ? null : value.toString());
+                }
+            }
+            csv.endRow();
+        }
+        csv.flush();
+    }
+}
@@ -0,0 +1,53 @@
+package edu.ccrm.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of courses per department, largest first
+ */
+public class DepartmentStatsReport extends Report {
+    private static final List<Column> COLUMNS = columns(
+            new Column("department", "Department"),
+            new Column("courses", "Courses"));
+
+    private final Map<String, Long> courseCounts;
+
+    public DepartmentStatsReport(Map<String, Long> courseCounts) {
+        super("department-stats", "Department-wise Course Count");
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(courseCounts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        this.courseCounts = Collections.unmodifiableMap(sorted);
+    }
+
+    public Map<String, Long> getCourseCounts() {
+        return courseCounts;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public List<List<Object>> getRows() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : courseCounts.entrySet()) {
+            rows.add(row(entry.getKey(), entry.getValue()));
+        }
+        return rows;
+    }
+
+    @Override
+    public String getEmptyMessage() {
+        return "No courses found.";
+    }
+}
@@ -0,0 +1,56 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Semester;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Active students, their enrollments and the average per student
+ */
+public class EnrollmentStatsReport extends Report {
+    private static final List<Column> COLUMNS = columns(
+            new Column("students", "Total Students"),
+            new Column("enrollments", "Total Enrollments"),
+            new Column("averagePerStudent", "Average Enrollments per Student", 2));
+
+    private final long students;
+    private final long enrollments;
+
+    public EnrollmentStatsReport(long students, long enrollments) {
+        this(null, null, students, enrollments);
+    }
+
+    /**
+     * Figures for a cohort: its students and their enrollments in the cohort's courses.
+     */
+    public EnrollmentStatsReport(String department, Semester semester, long students, long enrollments) {
+        super("enrollment-stats", "Enrollment Statistics" + cohortSuffix(department, semester));
+        this.students = students;
+        this.enrollments = enrollments;
+    }
+
+    public long getStudents() {
+        return students;
+    }
+
+    public long getEnrollments() {
+        return enrollments;
+    }
+
+    public double getAveragePerStudent() {
+        return students == 0 ? 0 : (double) enrollments / students;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public List<List<Object>> getRows() {
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(row(students, enrollments, getAveragePerStudent()));
+        return rows;
+    }
+}
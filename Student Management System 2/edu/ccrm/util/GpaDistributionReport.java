@@ -0,0 +1,76 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Semester;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Number of students in each GPA band, lowest band first; empty bands are left out
+ */
+public class GpaDistributionReport extends Report {
+    private static final List<Column> COLUMNS = columns(
+            new Column("range", "GPA Range"),
+            new Column("students", "Students"));
+
+    /**
+     * Students with from <= GPA < to
+     */
+    public static class Band {
+        private final String label;
+        private final double from;
+        private final double to;
+        private final int students;
+
+        public Band(String label, double from, double to, int students) {
+            this.label = label;
+            this.from = from;
+            this.to = to;
+            this.students = students;
+        }
+
+        public String getLabel() { return label; }
+        public double getFrom() { return from; }
+        public double getTo() { return to; }
+        public int getStudents() { return students; }
+    }
+
+    private final List<Band> bands;
+
+    public GpaDistributionReport(String department, Semester semester, List<Band> bands) {
+        super("gpa-distribution", "GPA Distribution" + cohortSuffix(department, semester));
+        this.bands = Collections.unmodifiableList(new ArrayList<>(bands));
+    }
+
+    public List<Band> getBands() {
+        return bands;
+    }
+
+    public int getTotalStudents() {
+        int total = 0;
+        for (Band band : bands) {
+            total += band.students;
+        }
+        return total;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public List<List<Object>> getRows() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Band band : bands) {
+            rows.add(row(band.label, band.students));
+        }
+        return rows;
+    }
+
+    @Override
+    public String getEmptyMessage() {
+        return "No students with recorded grades found.";
+    }
+}
@@ -0,0 +1,76 @@
+package edu.ccrm.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GPA mean and p50/p90/p99 for a set of cohorts (e.g. all students, then each semester)
+ */
+public class GpaPercentileReport extends Report {
+    private static final List<Column> COLUMNS = columns(
+            new Column("cohort", "Cohort"),
+            new Column("students", "Students"),
+            new Column("mean", "Mean", 2),
+            new Column("p50", "p50", 2),
+            new Column("p90", "p90", 2),
+            new Column("p99", "p99", 2));
+
+    /**
+     * Figures for one cohort
+     */
+    public static class Cohort {
+        private final String name;
+        private final int students;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+
+        public Cohort(String name, GpaStatistics.Summary summary) {
+            this.name = name;
+            this.students = summary.getCount();
+            this.mean = summary.getMean();
+            this.p50 = summary.percentile(50);
+            this.p90 = summary.percentile(90);
+            this.p99 = summary.percentile(99);
+        }
+
+        public String getName() { return name; }
+        public int getStudents() { return students; }
+        public double getMean() { return mean; }
+        public double getP50() { return p50; }
+        public double getP90() { return p90; }
+        public double getP99() { return p99; }
+    }
+
+    private final List<Cohort> cohorts;
+
+    public GpaPercentileReport(String department, List<Cohort> cohorts) {
+        super("gpa-percentiles", "GPA Percentiles" + cohortSuffix(department, null));
+        this.cohorts = Collections.unmodifiableList(new ArrayList<>(cohorts));
+    }
+
+    public List<Cohort> getCohorts() {
+        return cohorts;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public List<List<Object>> getRows() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Cohort cohort : cohorts) {
+            rows.add(row(cohort.name, cohort.students, cohort.mean, cohort.p50, cohort.p90, cohort.p99));
+        }
+        return rows;
+    }
+
+    @Override
+    public String getEmptyMessage() {
+        return "No students with recorded grades found.";
+    }
+}
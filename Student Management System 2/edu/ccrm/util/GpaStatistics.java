@@ -0,0 +1,258 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Top-K ranking and GPA percentiles over the students with recorded grades
+ * Each query is one pass over the live student view. Top-K keeps a min-heap of at most K
+ * students; percentiles come from a fixed histogram of GPA in 0.01 steps, so memory stays
+ * the same whatever the number of students.
+ *
+ * Queries can be narrowed to a cohort: students actively enrolled in at least one course of
+ * the given department and/or semester. Pass null for either filter to leave it open.
+ */
+public class GpaStatistics {
+    public static final double MAX_GPA = 10.0;
+    public static final int BUCKETS_PER_POINT = 100;
+    static final int BUCKETS = (int) (MAX_GPA * BUCKETS_PER_POINT) + 1;
+
+    // Highest GPA first; ties go to the lower student ID so rankings are stable
+    private static final Comparator<Student> RANKING = GpaStatistics::compareRank;
+
+    private final StudentService studentService;
+
+    public GpaStatistics(StudentService studentService) {
+        this.studentService = studentService;
+    }
+
+    /**
+     * Returns up to k students in the cohort, best GPA first.
+     */
+    public List<Student> topStudents(int k, String department, Semester semester) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        Set<String> cohortCourses = cohortCourses(department, semester);
+        if (cohortCourses != null && cohortCourses.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        TopStudents top = new TopStudents(k);
+        for (Student student : studentService.getStudentsView()) {
+            if (isRanked(student, cohortCourses)) {
+                top.offer(student);
+            }
+        }
+        return top.toList();
+    }
+
+    /**
+     * Collects the GPA distribution of the cohort.
+     */
+    public Summary summarize(String department, Semester semester) {
+        Summary summary = new Summary();
+        Set<String> cohortCourses = cohortCourses(department, semester);
+        if (cohortCourses != null && cohortCourses.isEmpty()) {
+            return summary;
+        }
+        for (Student student : studentService.getStudentsView()) {
+            if (isRanked(student, cohortCourses)) {
+                summary.add(student.getGpa());
+            }
+        }
+        return summary;
+    }
+
+    // Written out rather than chained from Comparator helpers: it runs for every offer to a full heap
+    private static int compareRank(Student a, Student b) {
+        int byGpa = Double.compare(b.getGpa(), a.getGpa());
+        return byGpa != 0 ? byGpa : a.getId().compareTo(b.getId());
+    }
+
+    // Null means no filter; an empty set means a filter no course matches
+    private Set<String> cohortCourses(String department, Semester semester) {
+        boolean byDepartment = department != null && !department.trim().isEmpty();
+        if (!byDepartment && semester == null) {
+            return null;
+        }
+        List<Course> candidates = byDepartment
+                ? studentService.searchCoursesByDepartment(department.trim())
+                : studentService.searchCoursesBySemester(semester);
+        Set<String> codes = new HashSet<>();
+        for (Course course : candidates) {
+            if (semester == null || course.getSemester() == semester) {
+                codes.add(course.getCode());
+            }
+        }
+        return codes;
+    }
+
+    private static boolean isRanked(Student student, Set<String> cohortCourses) {
+        return student.isActive() && student.getGpa() > 0
+                && (cohortCourses == null || student.isEnrolledInAny(cohortCourses));
+    }
+
+    /**
+     * The best k students offered so far
+     * Kept in a min-heap of at most k entries, the worst of them at the head, ready to be displaced.
+     */
+    static class TopStudents {
+        private final int k;
+        private final PriorityQueue<Student> heap;
+
+        TopStudents(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(k + 1, (a, b) -> compareRank(b, a));
+        }
+
+        void offer(Student student) {
+            if (heap.size() < k) {
+                heap.add(student);
+            } else if (k > 0 && compareRank(student, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(student);
+            }
+        }
+
+        void merge(TopStudents other) {
+            for (Student student : other.heap) {
+                offer(student);
+            }
+        }
+
+        List<Student> toList() {
+            List<Student> top = new ArrayList<>(heap);
+            top.sort(RANKING);
+            return top;
+        }
+    }
+
+    /**
+     * GPA histogram of a cohort
+     * Each bucket holds the GPAs from its floor up to the next bucket, so a GPA of 8.996 counts in
+     * the 8.0-8.9 band, as it always has. Percentiles use the nearest-rank method and report the bucket floor,
+     * accurate to one bucket (0.01); min, max and mean are exact.
+     */
+    public static class Summary {
+        private final int[] counts;
+        private int count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        Summary() {
+            this.counts = new int[BUCKETS];
+        }
+
+        // From a maintained histogram: min and max are then known only to bucket resolution
+        Summary(int[] counts, double sum) {
+            this.counts = counts;
+            this.sum = sum;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (counts[bucket] > 0) {
+                    double gpa = (double) bucket / BUCKETS_PER_POINT;
+                    count += counts[bucket];
+                    min = Math.min(min, gpa);
+                    max = Math.max(max, gpa);
+                }
+            }
+        }
+
+        // Floor, not round: 8.996 belongs with 8.0-8.9; the epsilon keeps 8.3 out of 8.29
+        static int bucketOf(double gpa) {
+            return floorBucket(Math.min(Math.max(gpa, 0.0), MAX_GPA));
+        }
+
+        private static int floorBucket(double gpa) {
+            return (int) Math.floor(gpa * BUCKETS_PER_POINT + 1e-9);
+        }
+
+        void add(double gpa) {
+            counts[bucketOf(gpa)]++;
+            count++;
+            sum += gpa;
+            min = Math.min(min, gpa);
+            max = Math.max(max, gpa);
+        }
+
+        void merge(Summary other) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] += other.counts[bucket];
+            }
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getMin() {
+            return count == 0 ? 0.0 : min;
+        }
+
+        public double getMax() {
+            return count == 0 ? 0.0 : max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : sum / count;
+        }
+
+        /**
+         * GPA at the given percentile, e.g. 50, 90 or 99. Returns 0 for an empty cohort.
+         */
+        public double percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    double gpa = (double) bucket / BUCKETS_PER_POINT;
+                    return Math.min(Math.max(gpa, min), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Number of students with from <= GPA < to, at bucket resolution.
+         */
+        public int countBetween(double from, double to) {
+            int first = Math.max(0, floorBucket(from));
+            int last = Math.min(BUCKETS, floorBucket(to));
+            int total = 0;
+            for (int bucket = first; bucket < last; bucket++) {
+                total += counts[bucket];
+            }
+            return total;
+        }
+
+        public List<Integer> getCounts() {
+            List<Integer> list = new ArrayList<>(BUCKETS);
+            for (int c : counts) {
+                list.add(c);
+            }
+            return Collections.unmodifiableList(list);
+        }
+    }
+}
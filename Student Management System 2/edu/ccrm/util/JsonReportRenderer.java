@@ -0,0 +1,74 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Renders a report as a JSON object: its name, title and an array of rows keyed by column
+ */
+public class JsonReportRenderer implements ReportRenderer {
+
+    @Override
+    public void render(Report report, Writer out) throws IOException {
+        List<Report.Column> columns = report.getColumns();
+        out.write("{\"report\":");
+        writeString(out, report.getName());
+        out.write(",\"title\":");
+        writeString(out, report.getTitle());
+        out.write(",\"rows\":[");
+        boolean firstRow = true;
+        for (List<Object> row : report.getRows()) {
+            out.write(firstRow ? "\n  {" : ",\n  {");
+            firstRow = false;
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) {
+                    out.write(',');
+                }
+                writeString(out, columns.get(c).getKey());
+                out.write(':');
+                writeValue(out, row.get(c), columns.get(c).getDecimals());
+            }
+            out.write('}');
+        }
+        out.write(firstRow ? "]}" : "\n]}");
+        out.write(System.lineSeparator());
+        out.flush();
+    }
+
+    private static void writeValue(Writer out, Object value, int decimals) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            // JSON has no NaN or Infinity
+            out.write(Double.isNaN(number) || Double.isInfinite(number)
+                      ? "null" : TextReportRenderer.format(value, decimals));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.write(value.toString());
+        } else {
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
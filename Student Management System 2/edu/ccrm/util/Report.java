@@ -0,0 +1,93 @@
+package edu.ccrm.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a report, independent of how it is shown
+ * Subclasses carry the typed figures; every report also exposes them as a table of
+ * columns and rows, which is what the renderers (text, CSV, JSON) work from.
+ */
+public abstract class Report {
+
+    /**
+     * One column of the tabular form. Decimal places apply to floating-point values.
+     */
+    public static class Column {
+        private final String key;
+        private final String label;
+        private final int decimals;
+
+        public Column(String key, String label) {
+            this(key, label, 0);
+        }
+
+        public Column(String key, String label, int decimals) {
+            this.key = key;
+            this.label = label;
+            this.decimals = decimals;
+        }
+
+        public String getKey() { return key; }
+        public String getLabel() { return label; }
+        public int getDecimals() { return decimals; }
+    }
+
+    private final String name;
+    private final String title;
+
+    protected Report(String name, String title) {
+        this.name = name;
+        this.title = title;
+    }
+
+    /**
+     * Short file-friendly name, e.g. "top-students".
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public abstract List<Column> getColumns();
+
+    /**
+     * Rows of values in column order: Strings, Integers/Longs or Doubles.
+     */
+    public abstract List<List<Object>> getRows();
+
+    /**
+     * Shown by the text renderer instead of an empty table.
+     */
+    public String getEmptyMessage() {
+        return "No data found.";
+    }
+
+    protected static List<Column> columns(Column... columns) {
+        List<Column> list = new ArrayList<>();
+        Collections.addAll(list, columns);
+        return Collections.unmodifiableList(list);
+    }
+
+    protected static List<Object> row(Object... values) {
+        List<Object> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+
+    // Appended to titles of reports narrowed to a department and/or semester
+    static String cohortSuffix(String department, Object semester) {
+        boolean byDepartment = department != null && !department.trim().isEmpty();
+        if (!byDepartment && semester == null) {
+            return "";
+        }
+        if (byDepartment && semester != null) {
+            return " (" + department.trim() + ", " + semester + ")";
+        }
+        return " (" + (byDepartment ? department.trim() : semester) + ")";
+    }
+}
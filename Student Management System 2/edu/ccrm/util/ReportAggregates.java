@@ -0,0 +1,212 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.MutationListener;
+import edu.ccrm.service.StudentService;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Report figures kept up to date from StudentService mutation events
+ * Every event adjusts the totals by the difference it makes, in constant time, so reports
+ * read precomputed state instead of streaming copies of every student and course.
+ *
+ * Maintained: active student and enrollment counts, course counts per department, and the
+ * GPA histogram of active students with recorded grades. Each figure is exact on its own;
+ * figures read while updates are in flight may be from slightly different moments.
+ * Close it when done, so the service stops updating it.
+ */
+public class ReportAggregates implements MutationListener, AutoCloseable {
+    // Reported department of courses without one
+    static final String NO_DEPARTMENT = "(none)";
+
+    /**
+     * What one student currently contributes to the totals
+     */
+    private static class Contribution {
+        Student student;
+        boolean active;
+        int enrollments;
+        double gpa; // 0 when not in the histogram
+
+        Contribution(Student student) {
+            this.student = student;
+        }
+    }
+
+    private final StudentService studentService;
+    private final Map<String, Contribution> contributions;
+    // Department counts are keyed by StudentService.departmentKey, so spellings differing in case count together
+    private final Map<String, String> courseDepartments;
+    private final Map<String, String> departmentNames;
+    private final Map<String, LongAdder> departmentCourseCounts;
+    private final LongAdder activeStudents;
+    private final LongAdder activeEnrollments;
+    private final AtomicIntegerArray gpaCounts;
+    private final DoubleAdder gpaSum;
+
+    /**
+     * Subscribes to the service and takes in its current state.
+     */
+    public ReportAggregates(StudentService studentService) {
+        this.studentService = studentService;
+        this.contributions = new ConcurrentHashMap<>();
+        this.courseDepartments = new ConcurrentHashMap<>();
+        this.departmentNames = new ConcurrentHashMap<>();
+        this.departmentCourseCounts = new ConcurrentHashMap<>();
+        this.activeStudents = new LongAdder();
+        this.activeEnrollments = new LongAdder();
+        this.gpaCounts = new AtomicIntegerArray(GpaStatistics.BUCKETS);
+        this.gpaSum = new DoubleAdder();
+
+        // Subscribe first, so nothing changed during the seeding pass is missed. Students are
+        // seeded under their service lock, which events already hold when they reach refresh:
+        // the student's enrollment count takes that lock in the compact storage modes, so
+        // it must always come before the contribution's.
+        studentService.addMutationListener(this);
+        for (Course course : studentService.getCoursesView()) {
+            courseAdded(course);
+        }
+        for (Student student : studentService.getStudentsView()) {
+            studentService.runLocked(student.getId(),
+                    () -> refresh(contributions.computeIfAbsent(student.getId(), k -> new Contribution(student))));
+        }
+    }
+
+    /**
+     * Unsubscribes from the service; the figures stop changing.
+     */
+    @Override
+    public void close() {
+        studentService.removeMutationListener(this);
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        Contribution contribution = contributions.computeIfAbsent(student.getId(), k -> new Contribution(student));
+        synchronized (contribution) {
+            contribution.student = student;
+            refresh(contribution);
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student) {
+        refresh(student.getId());
+    }
+
+    @Override
+    public void enrolled(Enrollment enrollment, int credits) {
+        refresh(enrollment.getStudentId());
+    }
+
+    @Override
+    public void unenrolled(String studentId, String courseCode) {
+        refresh(studentId);
+    }
+
+    @Override
+    public void gpaChanged(Student student, double previousGpa) {
+        refresh(student.getId());
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        String name = departmentName(course.getDepartment());
+        String key = StudentService.departmentKey(name);
+        synchronized (courseDepartments) {
+            String previous = courseDepartments.put(course.getCode(), key);
+            if (previous != null) {
+                departmentCourseCounts.get(previous).decrement();
+            }
+            departmentNames.merge(key, name, ReportAggregates::preferredName);
+            departmentCourseCounts.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+    }
+
+    private void refresh(String studentId) {
+        Contribution contribution = contributions.get(studentId);
+        if (contribution != null) {
+            refresh(contribution);
+        }
+    }
+
+    // Re-reads the student and applies the difference from what was counted before
+    private void refresh(Contribution contribution) {
+        synchronized (contribution) {
+            Student student = contribution.student;
+            boolean active = student.isActive();
+            int enrollments = active ? student.getEnrolledCourseCount() : 0;
+            double gpa = active && student.getGpa() > 0 ? student.getGpa() : 0.0;
+
+            if (active != contribution.active) {
+                activeStudents.add(active ? 1 : -1);
+            }
+            activeEnrollments.add(enrollments - contribution.enrollments);
+            if (gpa != contribution.gpa) {
+                if (contribution.gpa > 0) {
+                    gpaCounts.decrementAndGet(GpaStatistics.Summary.bucketOf(contribution.gpa));
+                }
+                if (gpa > 0) {
+                    gpaCounts.incrementAndGet(GpaStatistics.Summary.bucketOf(gpa));
+                }
+                gpaSum.add(gpa - contribution.gpa);
+            }
+
+            contribution.active = active;
+            contribution.enrollments = enrollments;
+            contribution.gpa = gpa;
+        }
+    }
+
+    public long getActiveStudentCount() {
+        return activeStudents.sum();
+    }
+
+    public long getActiveEnrollmentCount() {
+        return activeEnrollments.sum();
+    }
+
+    /**
+     * Course counts by department, departments in name order. Departments differing only in
+     * case are counted together under one spelling; courses without one under NO_DEPARTMENT.
+     */
+    public Map<String, Long> getDepartmentCourseCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : departmentCourseCounts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                counts.put(departmentNames.get(entry.getKey()), count);
+            }
+        }
+        return counts;
+    }
+
+    static String departmentName(String department) {
+        return department == null ? NO_DEPARTMENT : department;
+    }
+
+    // Of two spellings of one department, the one reports show; the same whatever the order seen
+    static String preferredName(String a, String b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    /**
+     * GPA distribution of active students with recorded grades. Min and max are at bucket
+     * resolution (0.01).
+     */
+    public GpaStatistics.Summary getGpaSummary() {
+        int[] counts = new int[gpaCounts.length()];
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] = gpaCounts.get(bucket);
+        }
+        return new GpaStatistics.Summary(counts, gpaSum.sum());
+    }
+}
@@ -0,0 +1,26 @@
+package edu.ccrm.util;
+
+/**
+ * Output formats for reports, each with its renderer and file extension
+ */
+public enum ReportFormat {
+    TEXT("txt", new TextReportRenderer()),
+    CSV("csv", new CsvReportRenderer()),
+    JSON("json", new JsonReportRenderer());
+
+    private final String extension;
+    private final ReportRenderer renderer;
+
+    ReportFormat(String extension, ReportRenderer renderer) {
+        this.extension = extension;
+        this.renderer = renderer;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ReportRenderer getRenderer() {
+        return renderer;
+    }
+}
@@ -0,0 +1,46 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Semester;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The full report pack: reports for every department x semester combination, with the
+ * all-departments and all-semesters rollups, as produced by ReportService.reportPack
+ */
+public class ReportPack {
+    private final List<String> departments;
+    private final Map<String, List<Report>> reportsByCohort;
+
+    ReportPack(List<String> departments) {
+        this.departments = Collections.unmodifiableList(new ArrayList<>(departments));
+        this.reportsByCohort = new HashMap<>();
+    }
+
+    void put(String department, Semester semester, List<Report> reports) {
+        reportsByCohort.put(key(department, semester), Collections.unmodifiableList(reports));
+    }
+
+    /**
+     * Departments with at least one course, in name order.
+     */
+    public List<String> getDepartments() {
+        return departments;
+    }
+
+    /**
+     * Reports for one cohort; null stands for all departments or all semesters.
+     */
+    public List<Report> getReports(String department, Semester semester) {
+        List<Report> reports = reportsByCohort.get(key(department, semester));
+        return reports == null ? Collections.emptyList() : reports;
+    }
+
+    private static String key(String department, Semester semester) {
+        return (department == null ? "" : "D" + department) + "|" + (semester == null ? "" : semester.name());
+    }
+}
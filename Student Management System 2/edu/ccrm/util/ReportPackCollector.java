@@ -0,0 +1,221 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Accumulates every cohort of the report pack in a single pass over the students
+ * Cohorts are the cells of a (department + all) x (semester + all) grid. Each student is
+ * added to every cell it belongs to (the cells of its enrolled courses and their rollups).
+ * The all x all cell takes every active student, enrolled or not.
+ *
+ * Used as a mutable reduction: each thread fills its own collector from newCollector(), and
+ * the collectors are merged at the end, so the pass needs no locking.
+ */
+class ReportPackCollector implements Consumer<String> {
+    private static final Semester[] SEMESTERS = Semester.values();
+    // One slot per semester, the last for all semesters
+    private static final int SEMESTER_SLOTS = SEMESTERS.length + 1;
+
+    private final List<String> departments;
+    private final Map<String, Long> departmentCourseCounts;
+    private final Map<String, Integer> courseCells;
+    private final int topK;
+    private final int allCell;
+
+    private final GpaStatistics.TopStudents[] top;
+    private final GpaStatistics.Summary[] gpa;
+    private final long[] students;
+    private final long[] enrollments;
+    // Per-student scratch: enrollments counted per cell, and which cells were touched
+    private final int[] cellEnrollments;
+    private final int[] touched;
+    private int touchedCount;
+    private int enrolledCount;
+
+    /**
+     * Lays out the grid from the current courses.
+     */
+    ReportPackCollector(Collection<Course> courses, int topK) {
+        // Grouped case-insensitively, as ReportAggregates and the department index group them
+        Map<String, String> names = new TreeMap<>();
+        Map<String, Long> counts = new HashMap<>();
+        for (Course course : courses) {
+            String name = ReportAggregates.departmentName(course.getDepartment());
+            String key = StudentService.departmentKey(name);
+            names.merge(key, name, ReportAggregates::preferredName);
+            counts.merge(key, 1L, Long::sum);
+        }
+        this.departmentCourseCounts = new TreeMap<>();
+        this.departments = new ArrayList<>();
+        Map<String, Integer> departmentIndex = new HashMap<>();
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            departmentIndex.put(entry.getKey(), departments.size());
+            departments.add(entry.getValue());
+            departmentCourseCounts.put(entry.getValue(), counts.get(entry.getKey()));
+        }
+        this.courseCells = new HashMap<>();
+        for (Course course : courses) {
+            String key = StudentService.departmentKey(ReportAggregates.departmentName(course.getDepartment()));
+            courseCells.put(course.getCode(), cell(departmentIndex.get(key), course.getSemester().ordinal()));
+        }
+        this.topK = topK;
+        this.allCell = cell(departments.size(), SEMESTERS.length);
+
+        int cells = (departments.size() + 1) * SEMESTER_SLOTS;
+        this.top = new GpaStatistics.TopStudents[cells];
+        this.gpa = new GpaStatistics.Summary[cells];
+        this.students = new long[cells];
+        this.enrollments = new long[cells];
+        this.cellEnrollments = new int[cells];
+        this.touched = new int[cells];
+    }
+
+    // Shares the layout of an existing collector
+    private ReportPackCollector(ReportPackCollector layout) {
+        this.departments = layout.departments;
+        this.departmentCourseCounts = layout.departmentCourseCounts;
+        this.courseCells = layout.courseCells;
+        this.topK = layout.topK;
+        this.allCell = layout.allCell;
+        int cells = layout.top.length;
+        this.top = new GpaStatistics.TopStudents[cells];
+        this.gpa = new GpaStatistics.Summary[cells];
+        this.students = new long[cells];
+        this.enrollments = new long[cells];
+        this.cellEnrollments = new int[cells];
+        this.touched = new int[cells];
+    }
+
+    ReportPackCollector newCollector() {
+        return new ReportPackCollector(this);
+    }
+
+    private static int cell(int department, int semesterSlot) {
+        return department * SEMESTER_SLOTS + semesterSlot;
+    }
+
+    void add(Student student) {
+        if (!student.isActive()) {
+            return;
+        }
+        touchedCount = 0;
+        enrolledCount = 0;
+        student.forEachEnrolledCourse(this);
+
+        double studentGpa = student.getGpa();
+        for (int i = 0; i < touchedCount; i++) {
+            int c = touched[i];
+            count(c, student, studentGpa, cellEnrollments[c]);
+            cellEnrollments[c] = 0;
+        }
+        count(allCell, student, studentGpa, enrolledCount);
+    }
+
+    // Called by add() for each course of the student; the collector itself is the visitor,
+    // so the pass allocates nothing per student
+    @Override
+    public void accept(String courseCode) {
+        enrolledCount++;
+        Integer courseCell = courseCells.get(courseCode);
+        if (courseCell == null) {
+            return;
+        }
+        int department = courseCell / SEMESTER_SLOTS;
+        int semester = courseCell % SEMESTER_SLOTS;
+        touch(courseCell);
+        touch(cell(department, SEMESTERS.length));
+        touch(cell(departments.size(), semester));
+    }
+
+    private void touch(int c) {
+        if (cellEnrollments[c]++ == 0) {
+            touched[touchedCount++] = c;
+        }
+    }
+
+    private void count(int c, Student student, double studentGpa, int cellEnrollmentCount) {
+        students[c]++;
+        enrollments[c] += cellEnrollmentCount;
+        if (studentGpa > 0) {
+            if (top[c] == null) {
+                top[c] = new GpaStatistics.TopStudents(topK);
+                gpa[c] = new GpaStatistics.Summary();
+            }
+            top[c].offer(student);
+            gpa[c].add(studentGpa);
+        }
+    }
+
+    void merge(ReportPackCollector other) {
+        for (int c = 0; c < top.length; c++) {
+            students[c] += other.students[c];
+            enrollments[c] += other.enrollments[c];
+            if (other.top[c] == null) {
+                continue;
+            }
+            if (top[c] == null) {
+                top[c] = other.top[c];
+                gpa[c] = other.gpa[c];
+            } else {
+                top[c].merge(other.top[c]);
+                gpa[c].merge(other.gpa[c]);
+            }
+        }
+    }
+
+    ReportPack toPack() {
+        ReportPack pack = new ReportPack(departments);
+        for (int d = 0; d <= departments.size(); d++) {
+            String department = d < departments.size() ? departments.get(d) : null;
+            for (int s = 0; s < SEMESTER_SLOTS; s++) {
+                Semester semester = s < SEMESTERS.length ? SEMESTERS[s] : null;
+                int c = cell(d, s);
+                GpaStatistics.Summary summary = summary(c);
+
+                List<Report> reports = new ArrayList<>();
+                List<Student> best = top[c] == null ? new ArrayList<>() : top[c].toList();
+                reports.add(new TopStudentsReport(topK, department, semester, best));
+                reports.add(ReportService.distribution(department, semester, summary));
+                reports.add(new EnrollmentStatsReport(department, semester, students[c], enrollments[c]));
+                if (semester == null) {
+                    reports.add(percentiles(department, d));
+                }
+                if (c == allCell) {
+                    reports.add(new DepartmentStatsReport(departmentCourseCounts));
+                }
+                pack.put(department, semester, reports);
+            }
+        }
+        return pack;
+    }
+
+    private GpaPercentileReport percentiles(String department, int d) {
+        List<GpaPercentileReport.Cohort> cohorts = new ArrayList<>();
+        GpaStatistics.Summary overall = summary(cell(d, SEMESTERS.length));
+        if (overall.getCount() > 0) {
+            cohorts.add(new GpaPercentileReport.Cohort("All", overall));
+            for (int s = 0; s < SEMESTERS.length; s++) {
+                GpaStatistics.Summary summary = summary(cell(d, s));
+                if (summary.getCount() > 0) {
+                    cohorts.add(new GpaPercentileReport.Cohort(SEMESTERS[s].getDisplayName(), summary));
+                }
+            }
+        }
+        return new GpaPercentileReport(department, cohorts);
+    }
+
+    private GpaStatistics.Summary summary(int c) {
+        return gpa[c] == null ? new GpaStatistics.Summary() : gpa[c];
+    }
+}
@@ -0,0 +1,12 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a report in some output format. Renderers are stateless and safe to share between
+ * threads; they do not close the writer.
+ */
+public interface ReportRenderer {
+    void render(Report report, Writer out) throws IOException;
+}
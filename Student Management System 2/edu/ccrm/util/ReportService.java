@@ -0,0 +1,213 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Semester;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Report API: builds typed report results without any console I/O
+ * Safe to use from several threads; the global figures come from the materialized
+ * ReportAggregates, cohort-specific ones from a pass of GpaStatistics. The full pack for
+ * every department and semester is built in one parallel pass (see reportPack). Use a
+ * ReportRenderer (see ReportFormat) to turn results into text, CSV or JSON.
+ * The aggregates follow every change to the service until close() is called.
+ */
+public class ReportService implements AutoCloseable {
+    public static final int DEFAULT_TOP_STUDENTS = 5;
+    // Export layout: overall reports in OVERALL_DIRECTORY, one directory per department below DEPARTMENTS_DIRECTORY
+    public static final String OVERALL_DIRECTORY = "all";
+    public static final String DEPARTMENTS_DIRECTORY = "departments";
+
+    private static final double[] GPA_BAND_FLOORS = {0.0, 5.0, 6.0, 7.0, 8.0, 9.0};
+    private static final String[] GPA_BAND_LABELS = {
+        "0.0-4.9 (Poor)", "5.0-5.9 (Below Average)", "6.0-6.9 (Average)",
+        "7.0-7.9 (Good)", "8.0-8.9 (Very Good)", "9.0-10.0 (Excellent)"
+    };
+
+    private final StudentService studentService;
+    private final GpaStatistics gpaStatistics;
+    private final ReportAggregates aggregates;
+
+    public ReportService(StudentService studentService) {
+        this.studentService = studentService;
+        this.gpaStatistics = new GpaStatistics(studentService);
+        this.aggregates = new ReportAggregates(studentService);
+    }
+
+    /**
+     * Stops maintaining the aggregates; call when done with the service, e.g. at the end of a batch job.
+     */
+    @Override
+    public void close() {
+        aggregates.close();
+    }
+
+    public TopStudentsReport topStudents(int limit, String department, Semester semester) {
+        return new TopStudentsReport(limit, department, semester,
+                                     gpaStatistics.topStudents(limit, department, semester));
+    }
+
+    public GpaDistributionReport gpaDistribution(String department, Semester semester) {
+        GpaStatistics.Summary summary = isOverall(department, semester)
+                ? aggregates.getGpaSummary()
+                : gpaStatistics.summarize(department, semester);
+        return distribution(department, semester, summary);
+    }
+
+    static GpaDistributionReport distribution(String department, Semester semester, GpaStatistics.Summary summary) {
+        List<GpaDistributionReport.Band> bands = new ArrayList<>();
+        for (int i = 0; i < GPA_BAND_FLOORS.length; i++) {
+            double from = GPA_BAND_FLOORS[i];
+            double to = i + 1 < GPA_BAND_FLOORS.length ? GPA_BAND_FLOORS[i + 1] : GpaStatistics.MAX_GPA + 1;
+            int students = summary.countBetween(from, to);
+            if (students > 0) {
+                bands.add(new GpaDistributionReport.Band(GPA_BAND_LABELS[i], from, to, students));
+            }
+        }
+        return new GpaDistributionReport(department, semester, bands);
+    }
+
+    /**
+     * Percentiles for the whole cohort, then for each semester that has graded students.
+     */
+    public GpaPercentileReport gpaPercentiles(String department) {
+        List<GpaPercentileReport.Cohort> cohorts = new ArrayList<>();
+        GpaStatistics.Summary overall = isOverall(department, null)
+                ? aggregates.getGpaSummary()
+                : gpaStatistics.summarize(department, null);
+        if (overall.getCount() > 0) {
+            cohorts.add(new GpaPercentileReport.Cohort("All", overall));
+            for (Semester semester : Semester.values()) {
+                GpaStatistics.Summary summary = gpaStatistics.summarize(department, semester);
+                if (summary.getCount() > 0) {
+                    cohorts.add(new GpaPercentileReport.Cohort(semester.getDisplayName(), summary));
+                }
+            }
+        }
+        return new GpaPercentileReport(department, cohorts);
+    }
+
+    public EnrollmentStatsReport enrollmentStats() {
+        return new EnrollmentStatsReport(aggregates.getActiveStudentCount(), aggregates.getActiveEnrollmentCount());
+    }
+
+    public DepartmentStatsReport departmentStats() {
+        return new DepartmentStatsReport(aggregates.getDepartmentCourseCounts());
+    }
+
+    /**
+     * Every report over all students.
+     */
+    public List<Report> overallReports() {
+        List<Report> reports = new ArrayList<>();
+        reports.add(topStudents(DEFAULT_TOP_STUDENTS, null, null));
+        reports.add(gpaDistribution(null, null));
+        reports.add(gpaPercentiles(null));
+        reports.add(enrollmentStats());
+        reports.add(departmentStats());
+        return reports;
+    }
+
+    /**
+     * The reports that can be narrowed to one department.
+     */
+    public List<Report> departmentReports(String department) {
+        List<Report> reports = new ArrayList<>();
+        reports.add(topStudents(DEFAULT_TOP_STUDENTS, department, null));
+        reports.add(gpaDistribution(department, null));
+        reports.add(gpaPercentiles(department));
+        return reports;
+    }
+
+    /**
+     * Top students, GPA distribution and enrollment statistics for every department x
+     * semester combination and the rollups over departments and semesters, plus GPA
+     * percentiles per department and the department course counts.
+     *
+     * All of it comes from a single parallel pass over the students: each worker thread
+     * accumulates every cohort at once, and the per-thread results are merged at the end.
+     */
+    public ReportPack reportPack(int topK) {
+        ReportPackCollector layout = new ReportPackCollector(studentService.getAllCourses(), topK);
+        return studentService.getStudentsView().parallelStream()
+                .collect(layout::newCollector, ReportPackCollector::add, ReportPackCollector::merge)
+                .toPack();
+    }
+
+    /**
+     * The department reports of every department, from one report pack, by department name.
+     */
+    public Map<String, List<Report>> reportsByDepartment() {
+        ReportPack pack = reportPack(DEFAULT_TOP_STUDENTS);
+        Map<String, List<Report>> reports = new TreeMap<>();
+        for (String department : pack.getDepartments()) {
+            reports.put(department, pack.getReports(department, null));
+        }
+        return reports;
+    }
+
+    /**
+     * Writes the full report pack under the directory, one file per report: overall reports
+     * in OVERALL_DIRECTORY, each department's in DEPARTMENTS_DIRECTORY, and each semester's
+     * in a subdirectory of those. Returns the number of files written.
+     */
+    public int exportAll(Path directory, ReportFormat format) throws IOException {
+        ReportPack pack = reportPack(DEFAULT_TOP_STUDENTS);
+        Map<Path, List<Report>> reportsByDirectory = new TreeMap<>();
+        List<String> departments = new ArrayList<>();
+        departments.add(null);
+        departments.addAll(pack.getDepartments());
+        for (String department : departments) {
+            Path departmentDirectory = department == null
+                    ? directory.resolve(OVERALL_DIRECTORY)
+                    : directory.resolve(DEPARTMENTS_DIRECTORY).resolve(fileName(department));
+            reportsByDirectory.put(departmentDirectory, pack.getReports(department, null));
+            for (Semester semester : Semester.values()) {
+                reportsByDirectory.put(departmentDirectory.resolve(semester.name()),
+                                       pack.getReports(department, semester));
+            }
+        }
+        try {
+            return reportsByDirectory.entrySet().parallelStream()
+                    .mapToInt(entry -> writeReports(entry.getKey(), entry.getValue(), format))
+                    .sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int writeReports(Path directory, List<Report> reports, ReportFormat format) {
+        try {
+            Files.createDirectories(directory);
+            for (Report report : reports) {
+                Path file = directory.resolve(report.getName() + "." + format.getExtension());
+                try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    format.getRenderer().render(report, out);
+                }
+            }
+            return reports.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Department names may hold characters that are not safe in file names
+    private static String fileName(String department) {
+        String name = department.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        return name.isEmpty() || name.startsWith(".") ? "_" + name : name;
+    }
+
+    private static boolean isOverall(String department, Semester semester) {
+        return (department == null || department.trim().isEmpty()) && semester == null;
+    }
+}
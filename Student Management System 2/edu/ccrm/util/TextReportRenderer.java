@@ -0,0 +1,84 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders a report as a titled, column-aligned table for the console or a text file
+ */
+public class TextReportRenderer implements ReportRenderer {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    @Override
+    public void render(Report report, Writer out) throws IOException {
+        out.write(LINE_SEPARATOR);
+        out.write("=== " + report.getTitle() + " ===");
+        out.write(LINE_SEPARATOR);
+
+        List<List<Object>> rows = report.getRows();
+        if (rows.isEmpty()) {
+            out.write(report.getEmptyMessage());
+            out.write(LINE_SEPARATOR);
+            return;
+        }
+
+        List<Report.Column> columns = report.getColumns();
+        List<String[]> cells = new ArrayList<>();
+        int[] widths = new int[columns.size()];
+        for (int c = 0; c < columns.size(); c++) {
+            widths[c] = columns.get(c).getLabel().length();
+        }
+        for (List<Object> row : rows) {
+            String[] line = new String[columns.size()];
+            for (int c = 0; c < columns.size(); c++) {
+                line[c] = format(row.get(c), columns.get(c).getDecimals());
+                widths[c] = Math.max(widths[c], line[c].length());
+            }
+            cells.add(line);
+        }
+
+        String[] header = new String[columns.size()];
+        for (int c = 0; c < columns.size(); c++) {
+            header[c] = columns.get(c).getLabel();
+        }
+        writeLine(out, header, widths, rows.get(0));
+        for (String[] line : cells) {
+            writeLine(out, line, widths, rows.get(0));
+        }
+    }
+
+    // Numbers are right-aligned, text left-aligned; the first row decides which columns are numeric
+    private static void writeLine(Writer out, String[] line, int[] widths, List<Object> sample) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int c = 0; c < line.length; c++) {
+            if (c > 0) {
+                text.append("  ");
+            }
+            boolean numeric = sample.get(c) instanceof Number;
+            String pad = " ".repeat(widths[c] - line[c].length());
+            if (numeric) {
+                text.append(pad).append(line[c]);
+            } else if (c < line.length - 1) {
+                text.append(line[c]).append(pad);
+            } else {
+                text.append(line[c]);
+            }
+        }
+        out.write(text.toString());
+        out.write(LINE_SEPARATOR);
+    }
+
+    static String format(Object value, int decimals) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Double || value instanceof Float) {
+            // Root locale keeps the decimal point a '.', which CSV and JSON output rely on
+            return String.format(Locale.ROOT, "%." + decimals + "f", ((Number) value).doubleValue());
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package edu.ccrm.util;
+
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Best students by GPA, best first
+ */
+public class TopStudentsReport extends Report {
+    private static final List<Column> COLUMNS = columns(
+            new Column("rank", "Rank"),
+            new Column("studentId", "Student ID"),
+            new Column("name", "Name"),
+            new Column("gpa", "GPA", 2));
+
+    private final List<Student> students;
+
+    public TopStudentsReport(int limit, String department, Semester semester, List<Student> students) {
+        super("top-students", "Top " + limit + " Students by GPA" + cohortSuffix(department, semester));
+        this.students = Collections.unmodifiableList(new ArrayList<>(students));
+    }
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public List<List<Object>> getRows() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            rows.add(row(i + 1, student.getId(), student.getFullName(), student.getGpa()));
+        }
+        return rows;
+    }
+
+    @Override
+    public String getEmptyMessage() {
+        return "No students with recorded grades found.";
+    }
+}